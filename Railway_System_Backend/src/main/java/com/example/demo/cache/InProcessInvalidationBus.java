@@ -0,0 +1,22 @@
+package com.example.demo.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers invalidations within this JVM only. Enough for a single node and for tests.
+ */
+@Component
+@ConditionalOnProperty(name = "rail.cache.invalidation.type", havingValue = "in-process", matchIfMissing = true)
+public class InProcessInvalidationBus extends LocalSubscribers implements InvalidationBus {
+
+    @Override
+    public void publish(String topic, long id) {
+        deliver(topic, id);
+    }
+
+    @Override
+    public void publish(String topic, String key) {
+        deliver(topic, key);
+    }
+}
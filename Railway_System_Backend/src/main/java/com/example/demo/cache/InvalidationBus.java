@@ -0,0 +1,21 @@
+package com.example.demo.cache;
+
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Tells every node that a cached entity changed. Publishing notifies the local subscribers
+ * straight away; implementations that span nodes also deliver the event to the others.
+ * Subscribers must be idempotent: an event can arrive more than once.
+ */
+public interface InvalidationBus {
+
+    void publish(String topic, long id);
+
+    void subscribe(String topic, LongConsumer listener);
+
+    // For caches keyed by something other than an entity id, such as a username
+    void publish(String topic, String key);
+
+    void subscribeKeys(String topic, Consumer<String> listener);
+}
@@ -0,0 +1,91 @@
+package com.example.demo.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Carries invalidations between nodes through the {@code cache_invalidation} table, which
+ * every node already shares. Each node appends the events it publishes and polls for rows
+ * written by the others. Old rows are pruned after {@code retention}.
+ * <p>
+ * A row whose id was allocated before, but committed after, one the poller already passed
+ * is missed; the cache TTLs and the periodic resync of the route index and seat layouts
+ * bound how long anything can stay stale.
+ */
+@Component
+@ConditionalOnProperty(name = "rail.cache.invalidation.type", havingValue = "jdbc")
+public class JdbcInvalidationBus extends LocalSubscribers implements InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcInvalidationBus.class);
+
+    private final JdbcTemplate jdbc;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Duration retention;
+    private volatile long lastSeenId;
+
+    public JdbcInvalidationBus(JdbcTemplate jdbc,
+                               @Value("${rail.cache.invalidation.retention:PT1H}") Duration retention) {
+        this.jdbc = jdbc;
+        this.retention = retention;
+        // Events from before this node started are irrelevant: its caches start empty
+        Long max = jdbc.queryForObject("SELECT MAX(id) FROM cache_invalidation", Long.class);
+        this.lastSeenId = max == null ? 0 : max;
+    }
+
+    @Override
+    public void publish(String topic, long id) {
+        deliver(topic, id);
+        jdbc.update("INSERT INTO cache_invalidation (topic, entity_id, origin_node, created_at) VALUES (?, ?, ?, ?)",
+                topic, id, nodeId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Override
+    public void publish(String topic, String key) {
+        deliver(topic, key);
+        jdbc.update("INSERT INTO cache_invalidation (topic, entity_key, origin_node, created_at) VALUES (?, ?, ?, ?)",
+                topic, key, nodeId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${rail.cache.invalidation.poll-interval:PT2S}")
+    public synchronized void poll() {
+        List<Event> events = jdbc.query(
+                "SELECT id, topic, entity_id, entity_key, origin_node FROM cache_invalidation WHERE id > ? ORDER BY id LIMIT 500",
+                (rs, row) -> new Event(rs.getLong("id"), rs.getString("topic"), rs.getLong("entity_id"),
+                        rs.getString("entity_key"), rs.getString("origin_node")),
+                lastSeenId);
+        for (Event event : events) {
+            if (!nodeId.equals(event.originNode())) {
+                if (event.entityKey() != null) {
+                    deliver(event.topic(), event.entityKey());
+                } else {
+                    deliver(event.topic(), event.entityId());
+                }
+            }
+            lastSeenId = event.id();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rail.cache.invalidation.prune-interval:PT10M}")
+    public void prune() {
+        int removed = jdbc.update("DELETE FROM cache_invalidation WHERE created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+        if (removed > 0) {
+            log.debug("Pruned {} cache invalidation events", removed);
+        }
+    }
+
+    // An event carries either an entity id or, for caches keyed otherwise, a key
+    private record Event(long id, String topic, long entityId, String entityKey, String originNode) {
+    }
+}
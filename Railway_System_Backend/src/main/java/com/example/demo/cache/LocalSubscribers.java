@@ -0,0 +1,62 @@
+package com.example.demo.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Listener bookkeeping shared by the bus implementations
+abstract class LocalSubscribers {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalSubscribers.class);
+
+    private final Map<String, List<LongConsumer>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> keyListeners = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    public void subscribe(String topic, LongConsumer listener) {
+        listeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void subscribeKeys(String topic, Consumer<String> listener) {
+        keyListeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    protected void deliver(String topic, long id) {
+        count(topic);
+        for (LongConsumer listener : listeners.getOrDefault(topic, List.of())) {
+            try {
+                listener.accept(id);
+            } catch (RuntimeException e) {
+                // One broken listener must not keep the others stale
+                log.error("Invalidation listener for {} {} failed", topic, id, e);
+            }
+        }
+    }
+
+    protected void deliver(String topic, String key) {
+        count(topic);
+        for (Consumer<String> listener : keyListeners.getOrDefault(topic, List.of())) {
+            try {
+                listener.accept(key);
+            } catch (RuntimeException e) {
+                log.error("Invalidation listener for {} {} failed", topic, key, e);
+            }
+        }
+    }
+
+    private void count(String topic) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("rail.cache.invalidations", "topic", topic).increment();
+        }
+    }
+}
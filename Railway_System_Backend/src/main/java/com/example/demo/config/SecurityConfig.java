@@ -1,6 +1,8 @@
 package com.example.demo.config;
 
 import com.example.demo.security.JwtFilter;
+import com.example.demo.web.IdempotencyFilter;
+import com.example.demo.web.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,6 +10,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -23,6 +26,10 @@ public class SecurityConfig {
 
     @Autowired
     private JwtFilter jwtFilter;
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -34,21 +41,29 @@ public class SecurityConfig {
                 // Public endpoints
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/trains", "/api/trains/search", "/api/trains/details/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
 
                 // Admin-only rules
                 .requestMatchers(HttpMethod.POST, "/api/trains").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.PUT, "/api/trains/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.DELETE, "/api/trains/**").hasRole("ADMIN")
                 .requestMatchers("/api/bookings/admin/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                 // User-only rules
                 .requestMatchers("/api/bookings/**").hasRole("USER")
                 .requestMatchers("/api/payment/**").hasRole("USER")
+                // Admins may queue passengers with a priority
+                .requestMatchers("/api/waitlist/**").hasAnyRole("USER", "ADMIN")
 
                 // All other requests must be authenticated
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+            // Throttled requests are turned away before any real work, but after the caller is known
+            .addFilterAfter(rateLimitFilter, JwtFilter.class)
+            // Retries are answered only once the caller is known and allowed in
+            .addFilterAfter(idempotencyFilter, AuthorizationFilter.class);
 
         return http.build();
     }
@@ -5,10 +5,16 @@ import com.example.demo.model.User;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.RegisterRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
+// Hashing is asynchronous: the request thread is released while BCrypt runs on its own pool
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin
@@ -18,24 +24,34 @@ public class AuthController {
     private UserService userService;
 
     @PostMapping("/register")
-    public User register(@RequestBody RegisterRequest registerRequest) {
-        return userService.registerUser(registerRequest.getUsername(), registerRequest.getPassword());
+    public CompletableFuture<ResponseEntity<User>> register(@RequestBody RegisterRequest registerRequest) {
+        return userService.registerUser(registerRequest.getUsername(), registerRequest.getPassword())
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(AuthController::busy);
     }
 
     @PostMapping("/login")
-    public AuthResponse login(@RequestBody LoginRequest loginRequest) {
-        String token = userService.loginAndGenerateToken(
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@RequestBody LoginRequest loginRequest) {
+        return userService.loginAndGenerateToken(
                 loginRequest.getUsername(),
                 loginRequest.getPassword()
-        );
-        return new AuthResponse(token);
+        ).thenApply(token -> ResponseEntity.ok(new AuthResponse(token)))
+                .exceptionally(AuthController::busy);
     }
     @PostMapping("/registerAdmin")
-    public User registerAdmin(@RequestBody RegisterRequest registerRequest) {
-        return userService.saveAdmin(registerRequest.getUsername(), registerRequest.getPassword());
+    public CompletableFuture<ResponseEntity<User>> registerAdmin(@RequestBody RegisterRequest registerRequest) {
+        return userService.saveAdmin(registerRequest.getUsername(), registerRequest.getPassword())
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(AuthController::busy);
     }
 
-
+    // A saturated hashing pool is answered 503 so clients back off; anything else fails as before
+    private static <T> ResponseEntity<T> busy(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
+    }
 
 }
-
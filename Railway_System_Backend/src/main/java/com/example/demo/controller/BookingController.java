@@ -1,12 +1,30 @@
 package com.example.demo.controller;
+import com.example.demo.dto.BookingDetail;
+import com.example.demo.dto.BookingFilter;
+import com.example.demo.dto.BookingPage;
 import com.example.demo.dto.BookingRequestDTO;
+import com.example.demo.dto.BookingStateChange;
+import com.example.demo.dto.BookingStats;
+import com.example.demo.dto.BookingStatus;
+import com.example.demo.dto.BookingSummary;
+import com.example.demo.dto.BulkBookingResult;
 import com.example.demo.model.Booking;
+import com.example.demo.security.PrincipalCache;
+import com.example.demo.service.BookingExportService;
 import com.example.demo.service.BookingService;
-import jakarta.mail.MessagingException;
+import com.example.demo.service.BookingStatsService;
+import com.example.demo.service.BulkBookingService;
+import com.example.demo.service.TicketService;
+import com.example.demo.storage.StoredTicket;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -14,10 +32,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -25,54 +48,140 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookingController {
 
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final BookingService bookingService;
+    private final BulkBookingService bulkBookingService;
+    private final BookingExportService bookingExportService;
+    private final BookingStatsService bookingStatsService;
+    private final TicketService ticketService;
+    private final PrincipalCache principals;
 
     @PostMapping
-    public ResponseEntity<Booking> bookTicket(@Valid @RequestBody BookingRequestDTO request, Authentication auth) {
-        String username = auth.getName();
+    public ResponseEntity<BookingSummary> bookTicket(@Valid @RequestBody BookingRequestDTO request, Authentication auth) {
         Booking saved = bookingService.bookTicket(
             request.getBookingDetails(),
             request.getSeatNumbers(),
-            username
+            principals.userId(auth)
         );
-        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        return ResponseEntity.status(HttpStatus.CREATED).body(BookingSummary.from(saved));
+    }
+
+    // Many bookings at once; each item is booked or rejected on its own, see the per-item results
+    @PostMapping("/batch")
+    public ResponseEntity<List<BulkBookingResult>> bookTickets(@RequestBody List<BookingRequestDTO> requests, Authentication auth) {
+        if (requests.isEmpty() || requests.size() > bulkBookingService.maxItems()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bulkBookingService.bookAll(requests, principals.userId(auth)));
     }
 
     @PatchMapping("/{id}/cancel")
-    public ResponseEntity<Booking> cancelTicket(@PathVariable Long id, Authentication auth) {
-        String username = auth.getName();
+    public ResponseEntity<BookingStateChange> cancelTicket(@PathVariable Long id, Authentication auth) {
         boolean isAdmin = auth.getAuthorities().stream()
                               .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
 
-        Booking canceled = bookingService.cancelTicket(id, username, isAdmin);
-        return ResponseEntity.ok(canceled);
+        return ResponseEntity.ok(bookingService.cancelTicket(id, principals.userId(auth), isAdmin));
     }
 
     @GetMapping
-    public ResponseEntity<List<Booking>> getMyBookings(Authentication auth) {
+    public ResponseEntity<List<BookingSummary>> getMyBookings(Authentication auth) {
         return ResponseEntity.ok(
-                bookingService.getActiveBookingsForUsername(auth.getName())
+                bookingService.getActiveBookingsForUser(principals.userId(auth))
         );
     }
 
     @GetMapping("/admin")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Booking>> getAllBookingsForAdmin() {
-        return ResponseEntity.ok(bookingService.getAllBookings());
+    public ResponseEntity<BookingPage<BookingDetail>> getBookingsForAdmin(
+            @RequestParam(required = false) Long trainId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) BookingStatus status,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int size) {
+        BookingFilter filter = new BookingFilter(trainId, from, to, status);
+        return ResponseEntity.ok(bookingService.findBookingsForAdmin(filter, cursor, size));
+    }
+
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam(required = false) Long trainId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) BookingStatus status,
+            @RequestParam(defaultValue = "csv") String format) {
+        BookingFilter filter = new BookingFilter(trainId, from, to, status);
+        return switch (format) {
+            case "csv" -> ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bookings.csv")
+                    .body(out -> bookingExportService.writeCsv(filter, out));
+            case "ndjson" -> ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bookings.ndjson")
+                    .body(out -> bookingExportService.writeNdjson(filter, out));
+            default -> ResponseEntity.badRequest().build();
+        };
+    }
+
+    // Dashboard counters, kept in memory as bookings change; none of these read the bookings table
+    @GetMapping("/admin/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BookingStats> getBookingStats() {
+        return ResponseEntity.ok(bookingStatsService.totals());
+    }
+
+    // One entry per travel date in the range, at most a year of them
+    @GetMapping("/admin/stats/daily")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<LocalDate, BookingStats>> getDailyBookingStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= 366) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bookingStatsService.daily(from, to));
+    }
+
+    @GetMapping("/admin/stats/trains")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<Long, BookingStats>> getBookingStatsByTrain() {
+        return ResponseEntity.ok(bookingStatsService.byTrain());
     }
 
     @GetMapping("/{id}/ticket")
-    public ResponseEntity<Resource> downloadTicket(@PathVariable Long id)
-            throws FileNotFoundException {
+    public ResponseEntity<Resource> downloadTicket(@PathVariable Long id,
+                                                   HttpServletRequest request,
+                                                   HttpServletResponse response) throws IOException {
+        StoredTicket ticket = ticketService.ticketFor(id).orElse(null);
+        if (ticket == null) return ResponseEntity.notFound().build();
 
-        File file = new File("Ticket_" + id + ".pdf");
-        if (!file.exists()) return ResponseEntity.notFound().build();
+        // The digest never changes for a given ticket, so a matching If-None-Match is a cheap 304
+        if (new ServletWebRequest(request, response).checkNotModified(ticket.etag())) return null;
 
-        Resource res = new FileSystemResource(file);
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_PDF)
+                .eTag(ticket.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
                 .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=" + file.getName())
-                .body(res);
+                        "attachment; filename=Ticket_" + id + ".pdf");
+
+        // Whole-file downloads from local storage go out through Tomcat's sendfile (FileChannel.transferTo)
+        if (ticket.file() != null && request.getHeader(HttpHeaders.RANGE) == null
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, ticket.file().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, ticket.size());
+            return ok.contentLength(ticket.size()).build();
+        }
+
+        // Spring answers Range requests for Resource bodies with 206 and the requested regions
+        return ok.body(ticket.resource());
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,9 @@
 package com.example.demo.controller;
 
-import com.example.demo.model.Booking;
+import com.example.demo.dto.BookingStateChange;
 import com.example.demo.service.PaymentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
-import java.io.FileNotFoundException;
-import jakarta.mail.MessagingException;
-import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/payment")
@@ -17,7 +14,7 @@ public class PaymentController {
     private PaymentService paymentService;
 
     @PostMapping("/simulate")
-    public Booking simulatePayment(@RequestParam Long bookingId) throws IOException,FileNotFoundException, MessagingException {
+    public BookingStateChange simulatePayment(@RequestParam Long bookingId) {
         return paymentService.simulatePayment(bookingId);
     }
 }
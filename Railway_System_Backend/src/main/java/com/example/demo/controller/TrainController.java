@@ -1,14 +1,22 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CoachAvailabilityDTO;
 import com.example.demo.dto.TrainDTO;
+import com.example.demo.service.AvailabilityStreamService;
 import com.example.demo.service.TrainService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -18,6 +26,7 @@ import java.util.List;
 public class TrainController {
 
     private final TrainService trainService;
+    private final AvailabilityStreamService availabilityStream;
 
     @GetMapping
     public ResponseEntity<List<TrainDTO>> getAllTrains() {
@@ -28,14 +37,38 @@ public class TrainController {
     public ResponseEntity<List<TrainDTO>> searchTrains(
             @RequestParam String from,
             @RequestParam String to,
-            @RequestParam String date) {
-        return ResponseEntity.ok(trainService.searchTrains(from, to, date));
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "0") @Min(0) @Max(500) int size) {
+        return ResponseEntity.ok(trainService.searchTrains(from, to, date, page, size));
     }
 
     // --- THIS IS THE CORRECTED, NON-CONFLICTING PATH ---
     @GetMapping("/details/{id}")
-    public ResponseEntity<TrainDTO> getTrainById(@PathVariable Long id) {
-        return ResponseEntity.ok(trainService.getTrainById(id));
+    public ResponseEntity<TrainDTO> getTrainById(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(trainService.getTrainDetails(id, date != null ? date : LocalDate.now()));
+    }
+
+    @GetMapping("/details/{id}/coaches")
+    public ResponseEntity<List<CoachAvailabilityDTO>> getCoaches(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(trainService.getCoachAvailability(id, date != null ? date : LocalDate.now()));
+    }
+
+    // Server-sent "availability" events whenever a booking or cancellation for the date commits
+    @GetMapping(value = "/details/{id}/availability/stream", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamAvailability(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        trainService.getTrainById(id);
+        SseEmitter emitter = availabilityStream.subscribe(id, date != null ? date : LocalDate.now());
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        return ResponseEntity.ok(emitter);
     }
 
     @PostMapping
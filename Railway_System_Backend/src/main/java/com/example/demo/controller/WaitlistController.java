@@ -0,0 +1,43 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.WaitlistEntryDTO;
+import com.example.demo.dto.WaitlistRequest;
+import com.example.demo.service.WaitlistService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/waitlist")
+@CrossOrigin
+@RequiredArgsConstructor
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    @PostMapping
+    public ResponseEntity<WaitlistEntryDTO> join(@Valid @RequestBody WaitlistRequest request, Authentication auth) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(waitlistService.join(request, auth.getName(), isAdmin(auth)));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<WaitlistEntryDTO>> getMyEntries(Authentication auth) {
+        return ResponseEntity.ok(waitlistService.entriesFor(auth.getName()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> withdraw(@PathVariable Long id, Authentication auth) {
+        waitlistService.withdraw(id, auth.getName(), isAdmin(auth));
+        return ResponseEntity.noContent().build();
+    }
+
+    private static boolean isAdmin(Authentication auth) {
+        return auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+}
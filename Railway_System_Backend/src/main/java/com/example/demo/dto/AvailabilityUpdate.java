@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Pushed to clients watching a train: the current seat availability per class for the date.
+ * Versions only grow, so a client can ignore anything older than what it already has.
+ */
+public record AvailabilityUpdate(Long trainId,
+                                 LocalDate travelDate,
+                                 long version,
+                                 List<SeatAvailabilityDTO> classes) {
+}
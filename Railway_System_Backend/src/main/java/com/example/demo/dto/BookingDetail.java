@@ -0,0 +1,39 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.BookingState;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A booking as the admin screens see it: the summary plus who made it.
+ */
+public record BookingDetail(Long id,
+                            boolean paid,
+                            boolean canceled,
+                            BookingState state,
+                            String passengerName,
+                            String email,
+                            LocalDateTime bookingDate,
+                            LocalDate travelDate,
+                            LocalDateTime holdExpiresAt,
+                            BookingSummary.TrainInfo train,
+                            List<BookingSummary.SeatInfo> seats,
+                            UserInfo user) {
+
+    /**
+     * Expects the booking's train, seats and user to be loaded already.
+     */
+    public static BookingDetail from(Booking booking) {
+        BookingSummary summary = BookingSummary.from(booking);
+        return new BookingDetail(summary.id(), summary.paid(), summary.canceled(), summary.state(), summary.passengerName(),
+                summary.email(), summary.bookingDate(), summary.travelDate(), summary.holdExpiresAt(), summary.train(),
+                summary.seats(),
+                new UserInfo(booking.getUser().getId(), booking.getUser().getUsername()));
+    }
+
+    public record UserInfo(Long id, String username) {
+    }
+}
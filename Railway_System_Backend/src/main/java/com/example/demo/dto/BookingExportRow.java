@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.BookingState;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the bookings export query: a booking joined with one of its seats, so a
+ * booking with three seats comes back as three consecutive rows.
+ */
+public record BookingExportRow(Long id,
+                               String username,
+                               Long trainId,
+                               long trainNumber,
+                               String trainName,
+                               LocalDate travelDate,
+                               LocalDateTime bookingDate,
+                               String passengerName,
+                               String email,
+                               BookingState state,
+                               String seatNumber) {
+}
@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Admin booking filters; any of them may be null. The date range is on the travel date
+ * and includes both ends.
+ */
+public record BookingFilter(Long trainId, LocalDate from, LocalDate to, BookingStatus status) {
+}
@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. Pass {@code nextCursor} back as {@code cursor} to
+ * get the following page; it is null on the last page.
+ */
+public record BookingPage<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.BookingState;
+
+/**
+ * The state a payment or cancellation left the booking in. {@code paid} and {@code canceled}
+ * read the same as in {@link BookingSummary}.
+ */
+public record BookingStateChange(Long id, BookingState state, boolean paid, boolean canceled) {
+
+    public static BookingStateChange of(Long id, BookingState state) {
+        return new BookingStateChange(id, state, state == BookingState.PAID, !state.isActive());
+    }
+}
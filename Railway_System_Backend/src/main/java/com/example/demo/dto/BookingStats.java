@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+/**
+ * Booking counts of one slice (all bookings, a travel date or a train) by status. Revenue is
+ * the train fare of every paid booking that is not canceled.
+ */
+public record BookingStats(long bookings, long paid, long unpaid, long canceled, long revenue) {
+
+    public static final BookingStats EMPTY = new BookingStats(0, 0, 0, 0, 0);
+}
@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.BookingState;
+
+/**
+ * Booking status as the admin screens filter on it. A canceled booking is CANCELED whether
+ * or not it was paid; ACTIVE covers both PAID and UNPAID.
+ */
+public enum BookingStatus {
+    ACTIVE,
+    PAID,
+    UNPAID,
+    CANCELED;
+
+    // An expired hold counts as canceled here
+    public static BookingStatus of(BookingState state) {
+        return switch (state) {
+            case HELD -> UNPAID;
+            case PAID -> PAID;
+            case CANCELED, EXPIRED -> CANCELED;
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.BookedSeat;
+import com.example.demo.model.Booking;
+import com.example.demo.model.BookingState;
+import com.example.demo.model.Train;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * A booking as its owner sees it. Field names match what the booking entity used to
+ * serialize to, so clients read it the same way; the user (and their password hash) is no
+ * longer part of it. {@code paid} and {@code canceled} are derived from {@code state}.
+ */
+public record BookingSummary(Long id,
+                             boolean paid,
+                             boolean canceled,
+                             BookingState state,
+                             String passengerName,
+                             String email,
+                             LocalDateTime bookingDate,
+                             LocalDate travelDate,
+                             LocalDateTime holdExpiresAt,
+                             TrainInfo train,
+                             List<SeatInfo> seats) {
+
+    /**
+     * Expects the booking's train and seats to be loaded already.
+     */
+    public static BookingSummary from(Booking booking) {
+        return new BookingSummary(
+                booking.getId(),
+                booking.isPaid(),
+                booking.isCanceled(),
+                booking.getState(),
+                booking.getPassengerName(),
+                booking.getEmail(),
+                booking.getBookingDate(),
+                booking.getTravelDate(),
+                booking.getHoldExpiresAt(),
+                TrainInfo.from(booking.getTrain()),
+                SeatInfo.from(booking.getSeats()));
+    }
+
+    public record TrainInfo(Long id,
+                            long trainNumber,
+                            String trainName,
+                            String origin,
+                            String destination,
+                            LocalTime departureTime,
+                            LocalTime arrivalTime,
+                            long price) {
+
+        static TrainInfo from(Train train) {
+            return new TrainInfo(train.getId(), train.getTrainNumber(), train.getTrainName(), train.getOrigin(),
+                    train.getDestination(), train.getDepartureTime(), train.getArrivalTime(), train.getPrice());
+        }
+    }
+
+    public record SeatInfo(Long id, String seatNumber) {
+
+        static List<SeatInfo> from(List<BookedSeat> seats) {
+            return seats.stream().map(seat -> new SeatInfo(seat.getId(), seat.getSeatNumber())).toList();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+/**
+ * Outcome of one item of a bulk booking request, at the same index as the item. Either
+ * {@code booking} or {@code error} is set.
+ */
+public record BulkBookingResult(int index, boolean booked, BookingSummary booking, String error) {
+
+    public static BulkBookingResult booked(int index, BookingSummary booking) {
+        return new BulkBookingResult(index, true, booking, null);
+    }
+
+    public static BulkBookingResult rejected(int index, String error) {
+        return new BulkBookingResult(index, false, null, error);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * One coach of a train on a given date, with the seats still free in it.
+ */
+public record CoachAvailabilityDTO(String code,
+                                   @JsonProperty("class") String seatClass,
+                                   int seatCount,
+                                   int availableSeats,
+                                   long price,
+                                   List<String> freeSeats) {
+}
@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Seats of one class of a train. When reading a train it carries the live count for the
+ * requested date; when an admin saves a train, {@code capacity} (or, as the admin form sends
+ * it, {@code availableSeats}) sizes the class.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatAvailabilityDTO {
+    @JsonProperty("class")
+    private String seatClass;
+    private String className;
+    private Integer capacity;
+    private Integer availableSeats;
+    private Long price;
+}
@@ -3,6 +3,7 @@ package com.example.demo.dto;
 import lombok.Data;
 
 import java.time.LocalTime;
+import java.util.List;
 @Data
 public class TrainDTO {
 	 private Long id;
@@ -14,4 +15,6 @@ public class TrainDTO {
 	    private LocalTime departureTime;
 	    private long seatsAvailable;
 	    private long price;
+	    // Per class; filled in for a single train on a given date, and read when an admin saves the layout
+	    private List<SeatAvailabilityDTO> seatAvailability;
 }
@@ -0,0 +1,32 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.WaitlistEntry;
+import com.example.demo.model.WaitlistStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A waitlist entry as its owner sees it. {@code position} counts the entries still ahead of it
+ * (0 means it is next) and is null once it has left the queue; {@code bookingId} is set when
+ * seats were allocated, and that booking has to be paid like any other.
+ */
+public record WaitlistEntryDTO(Long id,
+                               Long trainId,
+                               LocalDate travelDate,
+                               String seatClass,
+                               int seatCount,
+                               int priority,
+                               String passengerName,
+                               WaitlistStatus status,
+                               Long position,
+                               Long bookingId,
+                               LocalDateTime createdAt,
+                               LocalDateTime allocatedAt) {
+
+    public static WaitlistEntryDTO from(WaitlistEntry entry, Long position) {
+        return new WaitlistEntryDTO(entry.getId(), entry.getTrainId(), entry.getTravelDate(),
+                entry.getSeatClass().getCode(), entry.getSeatCount(), entry.getPriority(), entry.getPassengerName(),
+                entry.getStatus(), position, entry.getBookingId(), entry.getCreatedAt(), entry.getAllocatedAt());
+    }
+}
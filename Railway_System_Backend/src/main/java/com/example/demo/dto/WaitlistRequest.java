@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+/**
+ * Asks for seats in a class of a full train. {@code priority} is only honoured for admins,
+ * e.g. for quota passengers; everyone else queues at priority 0.
+ */
+public record WaitlistRequest(@NotNull Long trainId,
+                              @NotNull LocalDate travelDate,
+                              @NotBlank String seatClass,
+                              @Min(1) @Max(6) int seatCount,
+                              @NotBlank String passengerName,
+                              @NotBlank @Email String email,
+                              Integer priority) {
+}
@@ -0,0 +1,86 @@
+package com.example.demo.id;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out ids in blocks of {@code rail.id.block-size}, reserved from the
+ * {@code id_generator} table (see V9), whose {@code next_val} is the first id no node has
+ * reserved yet. A node only goes to the database once per block.
+ * <p>
+ * Blocks are reserved over a small connection pool of their own. A block usually runs out
+ * in the middle of a transaction, and taking the next one from the main pool could wait
+ * forever when every connection there belongs to a transaction waiting for that very block.
+ */
+@Component
+public class IdBlocks {
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${rail.id.block-size:50}")
+    private int blockSize;
+    @Value("${rail.id.pool-size:2}")
+    private int poolSize;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+
+    @PostConstruct
+    void start() {
+        dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("id-blocks");
+        dataSource.setMaximumPoolSize(poolSize);
+        jdbc = new JdbcTemplate(dataSource);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @PreDestroy
+    void stop() {
+        dataSource.close();
+    }
+
+    public long next(String name) {
+        return blocks.computeIfAbsent(name, Block::new).next();
+    }
+
+    private long reserve(String name) {
+        return tx.execute(status -> {
+            long value = jdbc.queryForObject("SELECT next_val FROM id_generator WHERE sequence_name = ? FOR UPDATE",
+                    Long.class, name);
+            jdbc.update("UPDATE id_generator SET next_val = ? WHERE sequence_name = ?", value + blockSize, name);
+            return value;
+        });
+    }
+
+    private final class Block {
+        private final String name;
+        private long next;
+        private long limit;
+
+        Block(String name) {
+            this.name = name;
+        }
+
+        synchronized long next() {
+            if (next == limit) {
+                next = reserve(name);
+                limit = next + blockSize;
+            }
+            return next++;
+        }
+    }
+}
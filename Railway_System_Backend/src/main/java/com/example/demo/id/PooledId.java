@@ -0,0 +1,23 @@
+package com.example.demo.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Gives the entity ids drawn from {@link IdBlocks}, so Hibernate knows them before the
+ * insert and can send inserts of the entity in JDBC batches (it cannot with AUTO_INCREMENT).
+ */
+@IdGeneratorType(PooledIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface PooledId {
+
+    // The id_generator row the ids come from
+    String value();
+}
@@ -0,0 +1,31 @@
+package com.example.demo.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.lang.reflect.Member;
+
+/**
+ * Created by Hibernate, through the Spring bean container, for every {@link PooledId} attribute.
+ */
+public class PooledIdGenerator implements IdentifierGenerator, AnnotationBasedGenerator<PooledId> {
+
+    private final IdBlocks idBlocks;
+    private String name;
+
+    public PooledIdGenerator(IdBlocks idBlocks) {
+        this.idBlocks = idBlocks;
+    }
+
+    @Override
+    public void initialize(PooledId config, Member member, GeneratorCreationContext context) {
+        this.name = config.value();
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return idBlocks.next(name);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.model;
 
+import com.example.demo.id.PooledId;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -12,12 +13,12 @@ import lombok.NoArgsConstructor;
 public class BookedSeat {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("booked_seat")
     private Long id;
 
     private String seatNumber;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booking_id")
     @JsonIgnore // Prevents infinite loops in JSON response
     private Booking booking;
@@ -1,4 +1,6 @@
 package com.example.demo.model;
+import com.example.demo.id.PooledId;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import java.util.List;
@@ -6,9 +8,15 @@ import java.util.ArrayList;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.OneToMany;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_booking_train_date_state", columnList = "train_id, travel_date, state"),
+        @Index(name = "idx_booking_user_state", columnList = "user_id, state"),
+        @Index(name = "idx_booking_hold_expires_at", columnList = "hold_expires_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,39 +25,55 @@ import java.time.LocalDateTime;
 
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Known before the insert, so inserts can be batched
+    @PooledId("booking")
     private Long id;
-    @Column
-    private boolean paid;
+    // Changed only through the conditional updates in BookingRepository once the booking exists
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BookingState state;
+
     public boolean isPaid() {
-        return paid;
+        return state == BookingState.PAID;
     }
 
-    public void setPaid(boolean paid) {
-        this.paid = paid;
+    public boolean isCanceled() {
+        return state != null && !state.isActive();
     }
 
     @Column
     private String email;
 
-    @ManyToOne
+    // Usually an unloaded reference by id; left out of equals/hashCode/toString so it stays that way
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private User user;
  
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "train_id", nullable = false)
     private Train train;
     
     
-    @Column(nullable = false)
-    private boolean canceled = false;
     @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<BookedSeat> seats = new ArrayList<>();
 
-    public boolean isCanceled() { return canceled; }
-    public void setCanceled(boolean canceled) { this.canceled = canceled; }
     private String passengerName;
         private LocalDateTime bookingDate;
+
+    // The day of travel; bookingDate carries the same day but cannot be indexed by date
+    @Column(name = "travel_date", nullable = false)
+    private LocalDate travelDate;
+
+    // Until payment the seats are only held; past this moment the booking is canceled. Null once paid.
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
+
+    // SHA-256 of the rendered ticket PDF in the ticket store, once it has been produced
+    @JsonIgnore
+    @Column(name = "ticket_digest", length = 64)
+    private String ticketDigest;
       
 
    
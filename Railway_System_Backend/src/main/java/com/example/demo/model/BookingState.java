@@ -0,0 +1,19 @@
+package com.example.demo.model;
+
+/**
+ * Where a booking is in its life. A new booking is HELD until it is paid, canceled or its
+ * hold runs out (EXPIRED); a PAID booking can still be CANCELED. Each transition is one
+ * conditional update in {@link com.example.demo.repository.BookingRepository}, so of two
+ * racing transitions exactly one wins.
+ */
+public enum BookingState {
+    HELD,
+    PAID,
+    CANCELED,
+    EXPIRED;
+
+    // Holds its seats
+    public boolean isActive() {
+        return this == HELD || this == PAID;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/*
+ * One coach of a train's seat layout. Its seats are numbered "<code>-1" to "<code>-<seatCount>",
+ * e.g. S1-1 ... S1-72. Trains without coaches keep free-form seat numbers and a single
+ * general class sized by Train.seatsAvailable.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_coach_train_code", columnNames = {"train_id", "code"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Coach {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "train_id", nullable = false)
+    private Long trainId;
+
+    @Column(nullable = false, length = 10)
+    private String code;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "seat_class", nullable = false)
+    private SeatClass seatClass;
+
+    @Column(name = "seat_count", nullable = false)
+    private int seatCount;
+
+    // Fare for a seat in this coach
+    @Column(nullable = false)
+    private long price;
+
+    // Order of the coach in the train
+    @Column(name = "position_no", nullable = false)
+    private int positionNo;
+
+    public String seatLabel(int seat) {
+        return code + "-" + seat;
+    }
+}
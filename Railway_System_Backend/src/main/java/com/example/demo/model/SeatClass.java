@@ -0,0 +1,50 @@
+package com.example.demo.model;
+
+import java.util.Arrays;
+
+/**
+ * Travel classes. {@code code} is what the timetable and the clients call the class; coaches of
+ * a class are named {@code coachPrefix} plus a running number (S1, S2, B1, ...).
+ */
+public enum SeatClass {
+    AC1("1A", "AC First Class", "H", 24),
+    AC2("2A", "AC 2 Tier", "A", 46),
+    AC3("3A", "AC 3 Tier", "B", 64),
+    SLEEPER("SL", "Sleeper Class", "S", 72),
+    GENERAL("GEN", "General", "D", 90);
+
+    private final String code;
+    private final String displayName;
+    private final String coachPrefix;
+    private final int seatsPerCoach;
+
+    SeatClass(String code, String displayName, String coachPrefix, int seatsPerCoach) {
+        this.code = code;
+        this.displayName = displayName;
+        this.coachPrefix = coachPrefix;
+        this.seatsPerCoach = seatsPerCoach;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getCoachPrefix() {
+        return coachPrefix;
+    }
+
+    public int getSeatsPerCoach() {
+        return seatsPerCoach;
+    }
+
+    public static SeatClass fromCode(String code) {
+        return Arrays.stream(values())
+                .filter(c -> c.code.equalsIgnoreCase(code) || c.name().equalsIgnoreCase(code))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown seat class: " + code));
+    }
+}
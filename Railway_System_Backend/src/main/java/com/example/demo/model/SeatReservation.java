@@ -0,0 +1,42 @@
+package com.example.demo.model;
+
+import com.example.demo.id.PooledId;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/*
+ * One row per seat held by an active booking. The unique key on (train, travel date, seat)
+ * is what stops two bookings - even from two different nodes - from selling the same seat.
+ * Rows are deleted when the booking is canceled so the seat can be sold again.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_seat_reservation_train_date_seat",
+        columnNames = {"train_id", "travel_date", "seat_number"}),
+        indexes = {
+                @Index(name = "idx_seat_reservation_travel_date", columnList = "travel_date"),
+                @Index(name = "idx_seat_reservation_booking", columnList = "booking_id")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeatReservation {
+
+    @Id
+    @PooledId("seat_reservation")
+    private Long id;
+
+    @Column(name = "train_id", nullable = false)
+    private Long trainId;
+
+    @Column(name = "travel_date", nullable = false)
+    private LocalDate travelDate;
+
+    @Column(name = "seat_number", nullable = false)
+    private String seatNumber;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+}
@@ -0,0 +1,44 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/*
+ * Outbox row for a paid booking whose ticket still has to be rendered and mailed.
+ * It is written in the same transaction that marks the booking paid, so a ticket
+ * survives a restart even if the in-memory pipeline had not picked it up yet.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_ticket_fulfilment_status_due", columnList = "status, next_attempt_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TicketFulfilment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false, unique = true)
+    private Long bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private FulfilmentStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // When the row may next be picked up; also used as a lease while a worker owns it
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,66 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/*
+ * A request for seats in a class of a train on a date that was full when asked. Waiting
+ * entries are served highest priority first, then first come first served; when seats come
+ * free the allocator books them for the entry as an ordinary unpaid booking.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_waitlist_queue",
+        columnList = "train_id, travel_date, seat_class, status, priority, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "train_id", nullable = false)
+    private Long trainId;
+
+    @Column(name = "travel_date", nullable = false)
+    private LocalDate travelDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "seat_class", nullable = false)
+    private SeatClass seatClass;
+
+    @Column(name = "seat_count", nullable = false)
+    private int seatCount;
+
+    // Higher is served first; entries of equal priority in the order they joined
+    @Column(nullable = false)
+    private int priority;
+
+    @Column(name = "passenger_name", nullable = false)
+    private String passengerName;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WaitlistStatus status;
+
+    // The booking made for the entry once it was allocated
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "allocated_at")
+    private LocalDateTime allocatedAt;
+}
@@ -0,0 +1,8 @@
+package com.example.demo.model;
+
+public enum WaitlistStatus {
+    WAITING,
+    ALLOCATED,
+    WITHDRAWN,
+    EXPIRED
+}
@@ -1,33 +1,117 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Booking;
-import com.example.demo.model.Train;
+import com.example.demo.model.BookingState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingSearchRepository {
 
-    // --- DELETE the old existsBy... method and REPLACE it with this one ---
-    @Query("SELECT COUNT(s) > 0 FROM Booking b JOIN b.seats s WHERE b.train = :train AND b.canceled = false AND s.seatNumber IN :seatNumbers AND FUNCTION('DATE', b.bookingDate) = FUNCTION('DATE', :bookingDate)")
-    boolean existsActiveBookingForSeatsOnDate(
-            @Param("train") Train train,
-            @Param("seatNumbers") List<String> seatNumbers,
-            @Param("bookingDate") LocalDateTime bookingDate
-    );
+    // Everything the ticket needs in one query, so it can be rendered outside any session
+    @Query("SELECT DISTINCT b FROM Booking b JOIN FETCH b.train LEFT JOIN FETCH b.seats WHERE b.id = :id")
+    Optional<Booking> findForTicket(@Param("id") Long id);
 
-    /* --- Queries that ignore the canceled bookings --- */
-    List<Booking> findByUserUsernameAndCanceledFalse(String username);
-    List<Booking> findByUser_IdAndCanceledFalse(Long userId);
-    Optional<Booking> findByIdAndCanceledFalse(Long id);
+    // A user's active bookings with everything their summaries show, in one query that never joins the users
+    @Query("SELECT DISTINCT b FROM Booking b JOIN FETCH b.train LEFT JOIN FETCH b.seats "
+            + "WHERE b.user.id = :userId AND b.state IN (HELD, PAID) ORDER BY b.id DESC")
+    List<Booking> findActiveForOwner(@Param("userId") Long userId);
+
+    // What a state change needs to know about a booking, without loading it
+    @Query("SELECT b.id AS id, b.state AS state, b.user.id AS userId, t.id AS trainId, "
+            + "b.travelDate AS travelDate, t.price AS fare FROM Booking b JOIN b.train t WHERE b.id = :id")
+    Optional<BookingRef> findRef(@Param("id") Long id);
+
+    // The current state, with the row locked until the transaction ends. Unlike a plain read,
+    // which under REPEATABLE READ keeps returning the transaction's snapshot, this sees the last commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.state FROM Booking b WHERE b.id = :id")
+    Optional<BookingState> lockState(@Param("id") Long id);
+
+    // Loads the seats of bookings already in the persistence context in one query
+    @Query("SELECT DISTINCT b FROM Booking b LEFT JOIN FETCH b.seats WHERE b.id IN :ids")
+    List<Booking> fetchSeats(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.ticketDigest FROM Booking b WHERE b.id = :id AND b.ticketDigest IS NOT NULL")
+    Optional<String> findTicketDigest(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Booking b SET b.ticketDigest = :digest WHERE b.id = :id")
+    int updateTicketDigest(@Param("id") Long id, @Param("digest") String digest);
+
+    /* --- Seat holds --- */
+
+    // Unpaid bookings and when their hold runs out, for rescheduling at startup
+    @Query("SELECT b.id AS id, b.holdExpiresAt AS holdExpiresAt FROM Booking b "
+            + "WHERE b.state = HELD")
+    List<HoldRef> findActiveHolds();
+
+    @Query("SELECT b.id FROM Booking b WHERE b.state = HELD AND b.holdExpiresAt <= :now")
+    List<Long> findExpiredHoldIds(@Param("now") LocalDateTime now, Pageable page);
+
+    /* --- State transitions: each returns 1 if it won, 0 if the booking was not in the expected state --- */
+
+    // HELD -> EXPIRED, once the hold is past its deadline
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.state = EXPIRED, b.holdExpiresAt = null "
+            + "WHERE b.id = :id AND b.state = HELD AND b.holdExpiresAt <= :now")
+    int expireHold(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // HELD -> PAID, while the hold is still live
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.state = PAID, b.holdExpiresAt = null "
+            + "WHERE b.id = :id AND b.state = HELD AND b.holdExpiresAt > :now")
+    int confirmHold(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // HELD or PAID -> CANCELED, from the state the caller last saw
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.state = CANCELED, b.holdExpiresAt = null WHERE b.id = :id AND b.state = :from")
+    int cancel(@Param("id") Long id, @Param("from") BookingState from);
+
+    interface BookingRef {
+        Long getId();
+        BookingState getState();
+        Long getUserId();
+        Long getTrainId();
+        LocalDate getTravelDate();
+        long getFare();
+    }
+
+    interface HoldRef {
+        Long getId();
+        LocalDateTime getHoldExpiresAt();
+    }
+
+    /* --- Dashboard stats --- */
+
+    // Every booking counted once, by train, travel date and state; the revenue sums the fares of each group
+    @Query("SELECT t.id AS trainId, b.travelDate AS travelDate, b.state AS state, "
+            + "COUNT(b) AS bookings, SUM(t.price) AS revenue FROM Booking b JOIN b.train t "
+            + "GROUP BY t.id, b.travelDate, b.state")
+    List<StatsRow> countByTrainDayAndState();
+
+    interface StatsRow {
+        Long getTrainId();
+        LocalDate getTravelDate();
+        BookingState getState();
+        long getBookings();
+        long getRevenue();
+    }
 
     /* --- Convenience methods that include ALL bookings --- */
-    List<Booking> findByUserUsername(String username);
     List<Booking> findByUser_Id(Long userId);
 }
\ No newline at end of file
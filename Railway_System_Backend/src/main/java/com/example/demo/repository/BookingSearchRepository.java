@@ -0,0 +1,27 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.BookingExportRow;
+import com.example.demo.dto.BookingFilter;
+import com.example.demo.model.Booking;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Admin booking queries whose WHERE clause depends on which filters are set.
+ * Both walk bookings newest first (by id), so a page boundary is just an id.
+ */
+public interface BookingSearchRepository {
+
+    /**
+     * Up to {@code limit} bookings with an id below {@code beforeId} (all when null),
+     * with their train and user fetched in the same query.
+     */
+    List<Booking> findPage(BookingFilter filter, Long beforeId, int limit);
+
+    /**
+     * Streams the export rows from a database cursor. Must be consumed inside a transaction
+     * and closed afterwards.
+     */
+    Stream<BookingExportRow> streamExportRows(BookingFilter filter, int fetchSize);
+}
@@ -0,0 +1,78 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.BookingExportRow;
+import com.example.demo.dto.BookingFilter;
+import com.example.demo.model.Booking;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+class BookingSearchRepositoryImpl implements BookingSearchRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Booking> findPage(BookingFilter filter, Long beforeId, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder jpql = new StringBuilder(
+                "SELECT b FROM Booking b JOIN FETCH b.train t JOIN FETCH b.user u WHERE 1 = 1");
+        appendFilter(jpql, params, filter);
+        if (beforeId != null) {
+            jpql.append(" AND b.id < :beforeId");
+            params.put("beforeId", beforeId);
+        }
+        jpql.append(" ORDER BY b.id DESC");
+
+        TypedQuery<Booking> query = em.createQuery(jpql.toString(), Booking.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Stream<BookingExportRow> streamExportRows(BookingFilter filter, int fetchSize) {
+        Map<String, Object> params = new HashMap<>();
+        // A projection, not entities: nothing accumulates in the persistence context
+        StringBuilder jpql = new StringBuilder("SELECT new com.example.demo.dto.BookingExportRow("
+                + "b.id, u.username, t.id, t.trainNumber, t.trainName, b.travelDate, b.bookingDate,"
+                + " b.passengerName, b.email, b.state, s.seatNumber)"
+                + " FROM Booking b JOIN b.train t JOIN b.user u LEFT JOIN b.seats s WHERE 1 = 1");
+        appendFilter(jpql, params, filter);
+        jpql.append(" ORDER BY b.id DESC, s.seatNumber");
+
+        TypedQuery<BookingExportRow> query = em.createQuery(jpql.toString(), BookingExportRow.class);
+        params.forEach(query::setParameter);
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return query.getResultStream();
+    }
+
+    private static void appendFilter(StringBuilder jpql, Map<String, Object> params, BookingFilter filter) {
+        if (filter.trainId() != null) {
+            jpql.append(" AND b.train.id = :trainId");
+            params.put("trainId", filter.trainId());
+        }
+        if (filter.from() != null) {
+            jpql.append(" AND b.travelDate >= :from");
+            params.put("from", filter.from());
+        }
+        if (filter.to() != null) {
+            jpql.append(" AND b.travelDate <= :to");
+            params.put("to", filter.to());
+        }
+        if (filter.status() != null) {
+            switch (filter.status()) {
+                case ACTIVE -> jpql.append(" AND b.state IN (HELD, PAID)");
+                case PAID -> jpql.append(" AND b.state = PAID");
+                case UNPAID -> jpql.append(" AND b.state = HELD");
+                case CANCELED -> jpql.append(" AND b.state IN (CANCELED, EXPIRED)");
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Coach;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface CoachRepository extends JpaRepository<Coach, Long> {
+
+    List<Coach> findByTrainIdOrderByPositionNo(Long trainId);
+
+    @Modifying
+    @Query("DELETE FROM Coach c WHERE c.trainId = :trainId")
+    int deleteByTrainId(@Param("trainId") Long trainId);
+}
@@ -0,0 +1,33 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.SeatReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface SeatReservationRepository extends JpaRepository<SeatReservation, Long> {
+
+    // Both lookups are served by the (train_id, travel_date, seat_number) unique key or the travel_date index
+    @Query("SELECT r.seatNumber FROM SeatReservation r WHERE r.trainId = :trainId AND r.travelDate = :travelDate")
+    List<String> findSeatNumbers(@Param("trainId") Long trainId, @Param("travelDate") LocalDate travelDate);
+
+    List<SeatReservation> findByTravelDateGreaterThanEqual(LocalDate from);
+
+    List<SeatReservation> findByBookingIdIn(Collection<Long> bookingIds);
+
+    @Query("SELECT r.seatNumber FROM SeatReservation r WHERE r.bookingId = :bookingId")
+    List<String> findSeatNumbersByBookingId(@Param("bookingId") Long bookingId);
+
+    @Modifying
+    @Query("DELETE FROM SeatReservation r WHERE r.bookingId IN :bookingIds")
+    int deleteByBookingIdIn(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Modifying
+    @Query("DELETE FROM SeatReservation r WHERE r.bookingId = :bookingId")
+    int deleteByBookingId(@Param("bookingId") Long bookingId);
+}
@@ -0,0 +1,37 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.FulfilmentStatus;
+import com.example.demo.model.TicketFulfilment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TicketFulfilmentRepository extends JpaRepository<TicketFulfilment, Long> {
+
+    boolean existsByBookingId(Long bookingId);
+
+    @Query("SELECT f FROM TicketFulfilment f WHERE f.status IN :statuses AND f.nextAttemptAt <= :now ORDER BY f.nextAttemptAt")
+    List<TicketFulfilment> findDue(@Param("statuses") Collection<FulfilmentStatus> statuses,
+                                   @Param("now") LocalDateTime now,
+                                   Pageable page);
+
+    long countByStatusIn(Collection<FulfilmentStatus> statuses);
+
+    // Takes ownership of a row by pushing its due time out; only one worker (or node) can win.
+    // Runs on its own, as it is also called right after the payment's transaction has committed.
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE TicketFulfilment f SET f.nextAttemptAt = :leaseUntil WHERE f.id = :id AND f.nextAttemptAt = :expected AND f.status = :status")
+    int claim(@Param("id") Long id,
+              @Param("status") FulfilmentStatus status,
+              @Param("expected") LocalDateTime expected,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+}
@@ -0,0 +1,64 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.SeatClass;
+import com.example.demo.model.WaitlistEntry;
+import com.example.demo.model.WaitlistStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // The head of one queue, in the order it is served; runs on the idx_waitlist_queue index
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.trainId = :trainId AND w.travelDate = :travelDate "
+            + "AND w.seatClass = :seatClass AND w.status = 'WAITING' ORDER BY w.priority DESC, w.id")
+    List<WaitlistEntry> findWaiting(@Param("trainId") Long trainId,
+                                    @Param("travelDate") LocalDate travelDate,
+                                    @Param("seatClass") SeatClass seatClass,
+                                    Pageable page);
+
+    @Query("SELECT COUNT(w) > 0 FROM WaitlistEntry w WHERE w.trainId = :trainId AND w.travelDate = :travelDate "
+            + "AND w.status = 'WAITING'")
+    boolean anyWaiting(@Param("trainId") Long trainId, @Param("travelDate") LocalDate travelDate);
+
+    // Entries ahead of the given one in its queue
+    @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.trainId = :trainId AND w.travelDate = :travelDate "
+            + "AND w.seatClass = :seatClass AND w.status = 'WAITING' "
+            + "AND (w.priority > :priority OR (w.priority = :priority AND w.id < :id))")
+    long countAhead(@Param("trainId") Long trainId,
+                    @Param("travelDate") LocalDate travelDate,
+                    @Param("seatClass") SeatClass seatClass,
+                    @Param("priority") int priority,
+                    @Param("id") Long id);
+
+    @Query("SELECT DISTINCT w.trainId AS trainId, w.travelDate AS travelDate FROM WaitlistEntry w "
+            + "WHERE w.status = 'WAITING' AND w.travelDate >= :from")
+    List<TrainDay> findWaitingTrainDays(@Param("from") LocalDate from);
+
+    List<WaitlistEntry> findByUserIdOrderByIdDesc(Long userId);
+
+    // Claims a waiting entry for allocation; only one allocator (or node) can win it
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = 'ALLOCATED', w.bookingId = :bookingId, w.allocatedAt = :now "
+            + "WHERE w.id = :id AND w.status = 'WAITING'")
+    int markAllocated(@Param("id") Long id, @Param("bookingId") Long bookingId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = :status WHERE w.id = :id AND w.status = 'WAITING'")
+    int closeWaiting(@Param("id") Long id, @Param("status") WaitlistStatus status);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'EXPIRED' WHERE w.status = 'WAITING' AND w.travelDate < :today")
+    int expirePast(@Param("today") LocalDate today);
+
+    interface TrainDay {
+        Long getTrainId();
+        LocalDate getTravelDate();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.security;
+
+import java.security.Principal;
+
+/**
+ * The caller of a request as read from their token. The id is null for tokens issued before
+ * it was added to the claims; {@link PrincipalCache} finds it by username for those.
+ */
+public record AuthenticatedUser(Long id, String username, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
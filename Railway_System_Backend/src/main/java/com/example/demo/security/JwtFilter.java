@@ -1,6 +1,8 @@
 package com.example.demo.security;
 import java.util.Collections;
 import java.util.List;
+
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -35,16 +37,19 @@ public class JwtFilter extends OncePerRequestFilter {
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String jwt = authHeader.substring(7);
-            if (jwtUtil.validateToken(jwt)) {
-                String username = jwtUtil.extractUsername(jwt);
-                String role = jwtUtil.extractRole(jwt);
+            Claims claims = jwtUtil.parseClaims(jwt);
+            if (claims != null) {
+                String username = claims.getSubject();
+                String role = claims.get("role", String.class);
+                // Absent from tokens issued before it was added
+                Long userId = claims.get("uid", Long.class);
 
                 // Add role as granted authority
                 List<SimpleGrantedAuthority> authorities =
                         Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role));
 
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(username, null, authorities);
+                        new UsernamePasswordAuthenticationToken(new AuthenticatedUser(userId, username, role), null, authorities);
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
@@ -1,11 +1,20 @@
 package com.example.demo.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
@@ -13,10 +22,41 @@ public class JwtUtil {
     private final long EXPIRATION_TIME = 86400000; // 1 day in ms
 
     private final Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+    // Parsers are immutable and thread-safe, so one is shared by every request
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
 
-    public String generateToken(String username, String role) {
+    // Claims of tokens whose signature was already verified, keyed by SHA-256 of the token.
+    // Each entry expires together with its token; null when caching is turned off (size 0).
+    private final Cache<String, Claims> verified;
+
+    public JwtUtil(@Value("${rail.jwt.cache-size:10000}") long cacheSize) {
+        this.verified = cacheSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(millisLeft, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // The user id rides along so requests can use it without looking the user up
+    public String generateToken(Long userId, String username, String role) {
         return Jwts.builder()
                 .setSubject(username)
+                .claim("uid", userId)
                 .claim("role", role)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
@@ -24,24 +64,54 @@ public class JwtUtil {
                 .compact();
     }
 
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
+    /**
+     * Verifies the token once and returns its claims, or null if it is invalid or expired.
+     * Tokens seen before are answered from the cache without another signature check.
+     */
+    public Claims parseClaims(String token) {
+        if (verified == null) {
+            return verify(token);
+        }
+        String cacheKey = hash(token);
+        Claims claims = verified.getIfPresent(cacheKey);
+        if (claims != null) {
+            return claims;
         }
+        claims = verify(token);
+        if (claims != null && claims.getExpiration() != null) {
+            verified.put(cacheKey, claims);
+        }
+        return claims;
+    }
+
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
     }
 
     public String extractUsername(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token)
-                .getBody().getSubject();
+        Claims claims = parseClaims(token);
+        return claims == null ? null : claims.getSubject();
     }
 
     public String extractRole(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token)
-                .getBody().get("role", String.class);
+        Claims claims = parseClaims(token);
+        return claims == null ? null : claims.get("role", String.class);
+    }
+
+    private Claims verify(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,49 @@
+package com.example.demo.security;
+
+import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Turns the caller of a request into their user id without reading the users table. Tokens
+ * carry the id in their claims; for older tokens, and for callers known only by username,
+ * the id is looked up once and kept in a small cache. Usernames are never renamed or reused,
+ * so an entry can only go stale if its user is deleted, and the time to live bounds that.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepo;
+    private final Cache<String, Long> idsByUsername;
+
+    public PrincipalCache(UserRepository userRepo,
+                          @Value("${rail.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${rail.principal-cache.ttl:PT1H}") Duration ttl) {
+        this.userRepo = userRepo;
+        this.idsByUsername = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Long userId(Authentication auth) {
+        if (auth.getPrincipal() instanceof AuthenticatedUser user && user.id() != null) {
+            return user.id();
+        }
+        return idOf(auth.getName());
+    }
+
+    // Unknown usernames are not cached, so a user registered a moment later is found
+    public Long idOf(String username) {
+        Long id = idsByUsername.get(username, name -> userRepo.findIdByUsername(name).orElse(null));
+        if (id == null) {
+            throw new RuntimeException("User not found");
+        }
+        return id;
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AvailabilityUpdate;
+import com.example.demo.service.SeatInventoryService.InventoryKey;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes seat availability of a (train, travel date) to everyone watching it over
+ * server-sent events, once per committed booking or cancellation.
+ * <p>
+ * Each update is built and serialized once per (train, date) and shared by all its
+ * subscribers. A subscriber holds at most one unsent update: a newer one replaces it, so a
+ * slow connection only ever receives the latest state and never buffers a backlog. Updates
+ * carry the full per-class counts rather than a diff, which is what makes dropping the
+ * stale ones safe.
+ * <p>
+ * Writes to the client block, so they run on a bounded pool of writers and nothing else ever
+ * waits for one. A client whose write has not finished within
+ * {@code rail.availability.send-timeout} is dropped (it can reconnect), and so is one that
+ * finds every writer busy and the queue full. The stuck write itself ends when the servlet
+ * container's write timeout ({@code server.tomcat.connection-timeout}) fails it.
+ */
+@Service
+public class AvailabilityStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityStreamService.class);
+    private static final String HEARTBEAT = "";
+
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rail.availability.sender-threads:4}")
+    private int senderThreads;
+    @Value("${rail.availability.writer-threads:16}")
+    private int writerThreads;
+    @Value("${rail.availability.write-queue:10000}")
+    private int writeQueue;
+    @Value("${rail.availability.max-subscribers:10000}")
+    private int maxSubscribers;
+    @Value("${rail.availability.stream-timeout:PT30M}")
+    private Duration streamTimeout;
+    @Value("${rail.availability.send-timeout:PT10S}")
+    private Duration sendTimeout;
+
+    private final Map<InventoryKey, Topic> topics = new ConcurrentHashMap<>();
+    // (train, date)s with a change not yet broadcast; a burst of bookings is sent as one update
+    private final Set<InventoryKey> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // Build and fan out updates; never write to a client
+    private ExecutorService senders;
+    private ThreadPoolExecutor writers;
+
+    private Counter sent;
+    private Counter coalesced;
+    private Counter dropped;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "availability-sender-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger writerCounter = new AtomicInteger();
+        writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(writeQueue), r -> {
+            Thread t = new Thread(r, "availability-writer-" + writerCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("rail.availability.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+        sent = meterRegistry.counter("rail.availability.updates", "outcome", "sent");
+        coalesced = meterRegistry.counter("rail.availability.updates", "outcome", "coalesced");
+        dropped = meterRegistry.counter("rail.availability.slow-subscribers");
+        seatInventory.onChange(this::onSeatsChanged);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        senders.shutdown();
+        senders.awaitTermination(5, TimeUnit.SECONDS);
+        writers.shutdown();
+        writers.awaitTermination(5, TimeUnit.SECONDS);
+        topics.values().forEach(topic -> topic.subscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    /**
+     * Opens a stream for the (train, travel date), starting with its current availability.
+     * Returns null when this node already serves as many streams as it is allowed to.
+     */
+    public SseEmitter subscribe(Long trainId, LocalDate travelDate) {
+        return subscribe(new InventoryKey(trainId, travelDate), new SseEmitter(streamTimeout.toMillis()));
+    }
+
+    // Takes the emitter to stream to, so tests can stand in for the client
+    SseEmitter subscribe(InventoryKey key, SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(key, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        Topic topic = topics.compute(key, (k, existing) -> {
+            Topic t = existing != null ? existing : new Topic();
+            t.subscribers.add(subscriber);
+            return t;
+        });
+        subscriber.offer(update(key, topic));
+        return emitter;
+    }
+
+    /*
+     * Keeps idle connections open through proxies and finds the ones whose client went away.
+     * Also re-reads watched seats that were last read a while ago, as bookings made on other
+     * nodes only reach this one through the database; a change found that way is pushed out
+     * like any other.
+     */
+    @Scheduled(fixedDelayString = "${rail.availability.heartbeat:PT25S}")
+    public void heartbeat() {
+        for (Topic topic : topics.values()) {
+            for (Subscriber subscriber : topic.subscribers) {
+                subscriber.offerHeartbeat();
+            }
+        }
+        for (InventoryKey key : topics.keySet()) {
+            try {
+                seatInventory.refreshIfStale(key.trainId(), key.travelDate());
+            } catch (RuntimeException e) {
+                log.warn("Could not refresh seats of train {} on {}", key.trainId(), key.travelDate(), e);
+            }
+        }
+    }
+
+    // Lets go of clients stuck in a write; only unsubscribes, as completing would wait on the stuck write
+    @Scheduled(fixedDelayString = "${rail.availability.stall-check-interval:PT1S}")
+    public void dropStalled() {
+        long now = System.nanoTime();
+        for (Topic topic : topics.values()) {
+            for (Subscriber subscriber : topic.subscribers) {
+                long since = subscriber.writingSince;
+                if (since != 0 && now - since > sendTimeout.toNanos()) {
+                    log.debug("Dropping availability stream of train {} on {}: client stopped reading",
+                            subscriber.key.trainId(), subscriber.key.travelDate());
+                    dropped.increment();
+                    subscriber.abandoned = true;
+                    unsubscribe(subscriber);
+                }
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void onSeatsChanged(Long trainId, LocalDate travelDate) {
+        if (travelDate == null) {
+            topics.keySet().stream().filter(key -> key.trainId() == trainId).forEach(this::markDirty);
+        } else {
+            markDirty(new InventoryKey(trainId, travelDate));
+        }
+    }
+
+    private void markDirty(InventoryKey key) {
+        if (topics.containsKey(key) && dirty.add(key)) {
+            senders.execute(() -> broadcast(key));
+        }
+    }
+
+    private void broadcast(InventoryKey key) {
+        // Cleared before reading the counts, so a change landing meanwhile schedules another round
+        dirty.remove(key);
+        Topic topic = topics.get(key);
+        if (topic == null) {
+            return;
+        }
+        String update = update(key, topic);
+        if (update == null) {
+            return;
+        }
+        for (Subscriber subscriber : topic.subscribers) {
+            subscriber.offer(update);
+        }
+    }
+
+    private String update(InventoryKey key, Topic topic) {
+        try {
+            return objectMapper.writeValueAsString(new AvailabilityUpdate(key.trainId(), key.travelDate(),
+                    topic.version.incrementAndGet(), seatInventory.classAvailability(key.trainId(), key.travelDate())));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Could not build availability update for train {} on {}", key.trainId(), key.travelDate(), e);
+            return null;
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        topics.computeIfPresent(subscriber.key, (k, topic) -> {
+            topic.subscribers.remove(subscriber);
+            return topic.subscribers.isEmpty() ? null : topic;
+        });
+    }
+
+    private static final class Topic {
+        final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+        final AtomicLong version = new AtomicLong();
+    }
+
+    private final class Subscriber {
+        final InventoryKey key;
+        final SseEmitter emitter;
+        final AtomicBoolean closed = new AtomicBoolean();
+        // The one update waiting to be sent; a newer one replaces it
+        private final AtomicReference<String> pending = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // When the write in progress started, or 0 between writes
+        volatile long writingSince;
+        // Dropped while stuck in a write; the stream is ended by the writer once the write returns
+        volatile boolean abandoned;
+
+        Subscriber(InventoryKey key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+
+        void offer(String update) {
+            if (update == null) {
+                return;
+            }
+            String replaced = pending.getAndSet(update);
+            if (replaced != null && replaced != HEARTBEAT) {
+                coalesced.increment();
+            }
+            schedule();
+        }
+
+        // Never displaces a real update
+        void offerHeartbeat() {
+            if (pending.compareAndSet(null, HEARTBEAT)) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Every writer is busy and the queue is full; no write of this client is in progress
+                    dropped.increment();
+                    unsubscribe(this);
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+
+        // At most one drain runs per subscriber, so its events go out in order
+        private void drain() {
+            while (true) {
+                String next = pending.getAndSet(null);
+                if (next == null) {
+                    scheduled.set(false);
+                    // Something may have been offered after the read above but before the flag was cleared
+                    if (pending.get() == null || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                if (closed.get()) {
+                    continue;
+                }
+                try {
+                    send(next);
+                    if (abandoned) {
+                        emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // The client is gone, the container timed the write out, or the stream already ended
+                    unsubscribe(this);
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+
+        private void send(String next) throws IOException {
+            writingSince = System.nanoTime();
+            try {
+                if (next == HEARTBEAT) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } else {
+                    emitter.send(SseEmitter.event().name("availability").data(next));
+                    sent.increment();
+                }
+            } finally {
+                writingSince = 0;
+            }
+        }
+    }
+}
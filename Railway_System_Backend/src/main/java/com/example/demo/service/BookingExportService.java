@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BookingExportRow;
+import com.example.demo.dto.BookingFilter;
+import com.example.demo.dto.BookingStatus;
+import com.example.demo.repository.BookingRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes bookings matching a filter as CSV or newline-delimited JSON, straight from a
+ * database cursor to the response. Memory use does not depend on how many bookings match.
+ */
+@Service
+public class BookingExportService {
+
+    private static final String CSV_HEADER =
+            "id,username,trainId,trainNumber,trainName,travelDate,bookingDate,passengerName,email,status,seats";
+
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${rail.export.fetch-size:500}")
+    private int fetchSize;
+
+    public void writeCsv(BookingFilter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        export(filter, line -> {
+            writer.write(String.join(",",
+                    String.valueOf(line.id()),
+                    csv(line.username()),
+                    String.valueOf(line.trainId()),
+                    String.valueOf(line.trainNumber()),
+                    csv(line.trainName()),
+                    String.valueOf(line.travelDate()),
+                    line.bookingDate() == null ? "" : line.bookingDate().toString(),
+                    csv(line.passengerName()),
+                    csv(line.email()),
+                    line.status(),
+                    csv(String.join(" ", line.seats()))));
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    public void writeNdjson(BookingFilter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        export(filter, line -> {
+            writer.write(objectMapper.writeValueAsString(line));
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    private void export(BookingFilter filter, LineWriter lineWriter) throws IOException {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            tx.executeWithoutResult(status -> {
+                try (Stream<BookingExportRow> rows = bookingRepo.streamExportRows(filter, fetchSize)) {
+                    Iterator<BookingExportRow> it = rows.iterator();
+                    // Rows arrive grouped by booking; fold each group's seats into one line
+                    ExportLine line = null;
+                    while (it.hasNext()) {
+                        BookingExportRow row = it.next();
+                        if (line == null || !line.id().equals(row.id())) {
+                            if (line != null) {
+                                lineWriter.write(line);
+                            }
+                            line = ExportLine.of(row);
+                        }
+                        if (row.seatNumber() != null) {
+                            line.seats().add(row.seatNumber());
+                        }
+                    }
+                    if (line != null) {
+                        lineWriter.write(line);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface LineWriter {
+        void write(ExportLine line) throws IOException;
+    }
+
+    record ExportLine(Long id, String username, Long trainId, long trainNumber, String trainName,
+                      LocalDate travelDate, LocalDateTime bookingDate, String passengerName, String email,
+                      String status, List<String> seats) {
+
+        static ExportLine of(BookingExportRow row) {
+            String status = BookingStatus.of(row.state()).name();
+            return new ExportLine(row.id(), row.username(), row.trainId(), row.trainNumber(), row.trainName(),
+                    row.travelDate(), row.bookingDate(), row.passengerName(), row.email(), status, new ArrayList<>());
+        }
+    }
+}
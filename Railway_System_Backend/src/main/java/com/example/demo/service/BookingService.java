@@ -1,16 +1,32 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BookingDetail;
+import com.example.demo.dto.BookingFilter;
+import com.example.demo.dto.BookingPage;
+import com.example.demo.dto.BookingStateChange;
+import com.example.demo.dto.BookingSummary;
 import com.example.demo.model.BookedSeat;
 import com.example.demo.model.Booking;
+import com.example.demo.model.BookingState;
+import com.example.demo.model.SeatReservation;
 import com.example.demo.model.Train;
 import com.example.demo.model.User;
 import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.BookingRepository.BookingRef;
+import com.example.demo.repository.SeatReservationRepository;
 import com.example.demo.repository.TrainRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class BookingService {
@@ -21,60 +37,159 @@ public class BookingService {
     private TrainRepository trainRepo;
     @Autowired
     private UserRepository userRepo;
+    @Autowired
+    private SeatReservationRepository seatReservationRepo;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private SeatHoldService seatHolds;
+    @Autowired
+    private BookingStatsService bookingStats;
+    @Autowired
+    private PrincipalCache principals;
 
-    // --- THIS IS THE CORRECTED METHOD ---
+    @Transactional
     public Booking bookTicket(Booking bookingRequest, List<String> seatNumbers, String username) {
-        // Fetch User and Train
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return bookTicket(bookingRequest, seatNumbers, principals.idOf(username));
+    }
+
+    // The user id comes from the caller's token, so the user is referenced without being read
+    @Transactional
+    public Booking bookTicket(Booking bookingRequest, List<String> seatNumbers, Long userId) {
+        return bookTicket(bookingRequest, seatNumbers, userId, seatHolds.holdUntil());
+    }
+
+    // As above, with the seats held until the given time rather than for the usual hold window
+    @Transactional
+    public Booking bookTicket(Booking bookingRequest, List<String> seatNumbers, Long userId, LocalDateTime holdUntil) {
+        User user = userRepo.getReferenceById(userId);
         Train train = trainRepo.findById(bookingRequest.getTrain().getId())
                 .orElseThrow(() -> new RuntimeException("Train not found"));
 
-        // --- NEW, EFFICIENT CHECK ---
-        // This one query checks all seats at once for any active bookings on that day.
-        boolean seatsAreAlreadyBooked = bookingRepo.existsActiveBookingForSeatsOnDate(
-            train, seatNumbers, bookingRequest.getBookingDate()
-        );
-        if (seatsAreAlreadyBooked) {
+        Set<String> normalizedSeats = validate(bookingRequest, seatNumbers);
+        LocalDate travelDate = bookingRequest.getBookingDate().toLocalDate();
+
+        // Claim the seats in memory first; this throws if any of them is already taken
+        // and gives them back if anything below makes the transaction roll back
+        seatInventory.reserveForTransaction(train.getId(), travelDate, seatNumbers);
+
+        Booking saved = bookingRepo.save(newBooking(user, train, bookingRequest, seatNumbers, holdUntil));
+
+        // The unique (train, travel date, seat) key is the final word, even across nodes
+        try {
+            seatReservationRepo.saveAllAndFlush(reservationsFor(saved, normalizedSeats));
+        } catch (DataIntegrityViolationException e) {
             throw new IllegalStateException("One or more of the selected seats are already booked for this date!");
         }
-        // --- END OF NEW CHECK ---
+        seatHolds.track(saved.getId(), saved.getHoldExpiresAt());
+        bookingStats.booked(saved);
+        return saved;
+    }
+    
+    /**
+     * Checks the request and returns its seats in normalized form, each listed once.
+     */
+    static Set<String> validate(Booking bookingRequest, List<String> seatNumbers) {
+        if (bookingRequest.getBookingDate() == null) {
+            throw new IllegalArgumentException("Booking date is required");
+        }
+        if (seatNumbers == null || seatNumbers.isEmpty()) {
+            throw new IllegalArgumentException("At least one seat number is required");
+        }
+        Set<String> normalizedSeats = new LinkedHashSet<>();
+        for (String seatNumber : seatNumbers) {
+            if (!normalizedSeats.add(SeatInventoryService.normalizeSeat(seatNumber))) {
+                throw new IllegalArgumentException("Seat " + seatNumber + " is listed more than once");
+            }
+        }
+        return normalizedSeats;
+    }
 
-        // Create the main booking record
+    // A new, unpaid booking whose seats are held until holdUntil
+    Booking newBooking(User user, Train train, Booking bookingRequest, List<String> seatNumbers,
+                       LocalDateTime holdUntil) {
         Booking newBooking = new Booking();
         newBooking.setUser(user);
         newBooking.setTrain(train);
         newBooking.setPassengerName(bookingRequest.getPassengerName());
         newBooking.setEmail(bookingRequest.getEmail());
         newBooking.setBookingDate(bookingRequest.getBookingDate());
-        newBooking.setCanceled(false);
-        newBooking.setPaid(false);
-
-        // Create and add each BookedSeat to the booking
+        newBooking.setTravelDate(bookingRequest.getBookingDate().toLocalDate());
+        newBooking.setState(BookingState.HELD);
+        newBooking.setHoldExpiresAt(holdUntil);
         for (String seatNumber : seatNumbers) {
             newBooking.getSeats().add(new BookedSeat(seatNumber, newBooking));
         }
+        return newBooking;
+    }
 
-        return bookingRepo.save(newBooking);
+    static List<SeatReservation> reservationsFor(Booking booking, Set<String> normalizedSeats) {
+        return normalizedSeats.stream()
+                .map(seat -> new SeatReservation(null, booking.getTrain().getId(), booking.getTravelDate(), seat, booking.getId()))
+                .toList();
+    }
+
+    /**
+     * Cancels a held or paid booking without loading it: a read of what the change needs, a
+     * locking read of its current state, then an update from that state. The lock holds off a
+     * payment or expiry until this commits, so the update cannot miss.
+     */
+    @Transactional
+    public BookingStateChange cancelTicket(Long id, String requester, boolean isAdmin) {
+        return cancelTicket(id, principals.idOf(requester), isAdmin);
     }
-    
-    public Booking cancelTicket(Long id, String requester, boolean isAdmin) {
-        Booking booking = bookingRepo.findByIdAndCanceledFalse(id)
-                .orElseThrow(() -> new IllegalArgumentException("Booking not found or already canceled"));
 
-        if (!isAdmin && !booking.getUser().getUsername().equals(requester)) {
+    @Transactional
+    public BookingStateChange cancelTicket(Long id, Long requesterId, boolean isAdmin) {
+        BookingRef booking = activeRef(id);
+        if (!isAdmin && !booking.getUserId().equals(requesterId)) {
             throw new IllegalStateException("You do not own this booking");
         }
 
-        booking.setCanceled(true);
-        return bookingRepo.save(booking);
+        // A payment or expiry may have got there since the read above
+        BookingState from = bookingRepo.lockState(id)
+                .filter(BookingState::isActive)
+                .orElseThrow(() -> new IllegalArgumentException("Booking not found or already canceled"));
+        if (bookingRepo.cancel(id, from) == 0) {
+            throw new IllegalStateException("Booking " + id + " changed while it was locked");
+        }
+        seatHolds.forget(id);
+        bookingStats.canceled(booking, from);
+
+        List<String> seatNumbers = seatReservationRepo.findSeatNumbersByBookingId(id);
+        seatReservationRepo.deleteByBookingId(id);
+        seatInventory.releaseAfterCommit(booking.getTrainId(), booking.getTravelDate(), seatNumbers);
+        return BookingStateChange.of(id, BookingState.CANCELED);
+    }
+
+    private BookingRef activeRef(Long id) {
+        return bookingRepo.findRef(id)
+                .filter(booking -> booking.getState().isActive())
+                .orElseThrow(() -> new IllegalArgumentException("Booking not found or already canceled"));
     }
 
-    public List<Booking> getActiveBookingsForUsername(String username) {
-        return bookingRepo.findByUserUsernameAndCanceledFalse(username);
+    @Transactional(readOnly = true)
+    public List<BookingSummary> getActiveBookingsForUser(Long userId) {
+        return bookingRepo.findActiveForOwner(userId).stream()
+                .map(BookingSummary::from)
+                .toList();
     }
 
-    public List<Booking> getAllBookings() {
-        return bookingRepo.findAll();
+    /**
+     * One page of bookings for the admin screens, newest first. Pass the returned cursor
+     * back to continue after the last booking of this page.
+     */
+    @Transactional(readOnly = true)
+    public BookingPage<BookingDetail> findBookingsForAdmin(BookingFilter filter, Long cursor, int size) {
+        List<Booking> bookings = bookingRepo.findPage(filter, cursor, size + 1);
+        boolean hasMore = bookings.size() > size;
+        if (hasMore) {
+            bookings = bookings.subList(0, size);
+        }
+        if (!bookings.isEmpty()) {
+            bookingRepo.fetchSeats(bookings.stream().map(Booking::getId).toList());
+        }
+        String nextCursor = hasMore ? String.valueOf(bookings.get(bookings.size() - 1).getId()) : null;
+        return new BookingPage<>(bookings.stream().map(BookingDetail::from).toList(), nextCursor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BookingStats;
+import com.example.demo.dto.BookingStatus;
+import com.example.demo.model.Booking;
+import com.example.demo.model.BookingState;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.BookingRepository.BookingRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Booking counts and revenue for the admin dashboard, overall, per travel date and per train.
+ * <p>
+ * The counters live in memory and are kept up to date by the booking, payment, cancellation
+ * and hold expiry code as each of their transactions commits, so reading them never touches
+ * the bookings table. They are rebuilt from the database with a single grouped query when the
+ * node starts and every {@code rail.stats.rebuild-interval} after that. The rebuild brings in
+ * changes made by other nodes and squares away any update that raced the previous rebuild.
+ */
+@Service
+public class BookingStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingStatsService.class);
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    // Replaced as a whole by each rebuild
+    private volatile Aggregates current = new Aggregates();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${rail.stats.rebuild-interval:PT15M}",
+            initialDelayString = "${rail.stats.rebuild-interval:PT15M}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        Aggregates rebuilt = new Aggregates();
+        var rows = bookingRepo.countByTrainDayAndState();
+        for (BookingRepository.StatsRow row : rows) {
+            BookingStatus status = BookingStatus.of(row.getState());
+            rebuilt.add(row.getTrainId(), row.getTravelDate(), status, row.getBookings(),
+                    status == BookingStatus.PAID ? row.getRevenue() : 0);
+        }
+        current = rebuilt;
+        log.debug("Booking stats rebuilt from {} groups in {} ms", rows.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public BookingStats totals() {
+        return current.total.snapshot();
+    }
+
+    // Every travel date in the range, both ends included; days without bookings are all zero
+    public NavigableMap<LocalDate, BookingStats> daily(LocalDate from, LocalDate to) {
+        Map<LocalDate, Tally> byDay = current.byDay;
+        NavigableMap<LocalDate, BookingStats> series = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Tally tally = byDay.get(day);
+            series.put(day, tally == null ? BookingStats.EMPTY : tally.snapshot());
+        }
+        return series;
+    }
+
+    public NavigableMap<Long, BookingStats> byTrain() {
+        NavigableMap<Long, BookingStats> trains = new TreeMap<>();
+        current.byTrain.forEach((trainId, tally) -> trains.put(trainId, tally.snapshot()));
+        return trains;
+    }
+
+    /* --- Updates, each applied once the current transaction commits --- */
+
+    public void booked(Booking booking) {
+        long trainId = booking.getTrain().getId();
+        LocalDate day = booking.getTravelDate();
+        afterCommit(() -> current.add(trainId, day, BookingStatus.UNPAID, 1, 0));
+    }
+
+    public void paid(BookingRef booking) {
+        long trainId = booking.getTrainId();
+        LocalDate day = booking.getTravelDate();
+        long fare = booking.getFare();
+        afterCommit(() -> {
+            Aggregates aggregates = current;
+            aggregates.add(trainId, day, BookingStatus.UNPAID, -1, 0);
+            aggregates.add(trainId, day, BookingStatus.PAID, 1, fare);
+        });
+    }
+
+    // The booking and the state it was canceled from, which may be newer than the ref's
+    public void canceled(BookingRef booking, BookingState from) {
+        long trainId = booking.getTrainId();
+        LocalDate day = booking.getTravelDate();
+        boolean wasPaid = from == BookingState.PAID;
+        long fare = wasPaid ? booking.getFare() : 0;
+        afterCommit(() -> {
+            Aggregates aggregates = current;
+            aggregates.add(trainId, day, wasPaid ? BookingStatus.PAID : BookingStatus.UNPAID, -1, -fare);
+            aggregates.add(trainId, day, BookingStatus.CANCELED, 1, 0);
+        });
+    }
+
+    // An unpaid hold ran out
+    public void expired(long trainId, LocalDate day) {
+        afterCommit(() -> {
+            Aggregates aggregates = current;
+            aggregates.add(trainId, day, BookingStatus.UNPAID, -1, 0);
+            aggregates.add(trainId, day, BookingStatus.CANCELED, 1, 0);
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Aggregates {
+        final Tally total = new Tally();
+        final Map<LocalDate, Tally> byDay = new ConcurrentHashMap<>();
+        final Map<Long, Tally> byTrain = new ConcurrentHashMap<>();
+
+        void add(long trainId, LocalDate day, BookingStatus status, long count, long revenue) {
+            total.add(status, count, revenue);
+            byDay.computeIfAbsent(day, d -> new Tally()).add(status, count, revenue);
+            byTrain.computeIfAbsent(trainId, t -> new Tally()).add(status, count, revenue);
+        }
+    }
+
+    private static final class Tally {
+        final LongAdder paid = new LongAdder();
+        final LongAdder unpaid = new LongAdder();
+        final LongAdder canceled = new LongAdder();
+        final LongAdder revenue = new LongAdder();
+
+        void add(BookingStatus status, long count, long revenueDelta) {
+            switch (status) {
+                case PAID -> paid.add(count);
+                case UNPAID -> unpaid.add(count);
+                case CANCELED -> canceled.add(count);
+                default -> throw new IllegalArgumentException("Not a booking state: " + status);
+            }
+            revenue.add(revenueDelta);
+        }
+
+        BookingStats snapshot() {
+            long p = paid.sum();
+            long u = unpaid.sum();
+            long c = canceled.sum();
+            return new BookingStats(p + u + c, p, u, c, revenue.sum());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BookingRequestDTO;
+import com.example.demo.dto.BookingSummary;
+import com.example.demo.dto.BulkBookingResult;
+import com.example.demo.model.Booking;
+import com.example.demo.model.SeatReservation;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.SeatReservationRepository;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.SeatInventoryService.InventoryKey;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Books many passenger groups in one request, as travel agents do. Every train is looked
+ * up once (the user is only referenced by id), the seats of all bookings for the same
+ * train and date are claimed in one pass over the inventory, and the rows go in as JDBC
+ * batches (booking, seat and reservation ids come from pooled generators, so Hibernate
+ * can batch them).
+ * <p>
+ * Every item succeeds or fails on its own. Items that are invalid or whose seats are taken
+ * are rejected up front; the rest commit together. Should the database still refuse one of
+ * their seats - sold by another node after the in-memory check - the batch is rolled back
+ * and those items are booked one at a time instead, so only the loser is rejected.
+ */
+@Service
+public class BulkBookingService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkBookingService.class);
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private SeatReservationRepository seatReservationRepo;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private SeatHoldService seatHolds;
+    @Autowired
+    private BookingStatsService bookingStats;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${rail.booking.bulk.max-items:500}")
+    private int maxItems;
+
+    private TransactionTemplate tx;
+
+    @PostConstruct
+    void start() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    public int maxItems() {
+        return maxItems;
+    }
+
+    public List<BulkBookingResult> bookAll(List<BookingRequestDTO> requests, Long userId) {
+        BulkBookingResult[] results = new BulkBookingResult[requests.size()];
+        try {
+            tx.executeWithoutResult(status -> bookTogether(requests, userId, results));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Bulk booking lost a seat to another node, booking its items one by one", e);
+            for (int i = 0; i < results.length; i++) {
+                // Items without a result were accepted and rolled back with the batch
+                if (results[i] == null) {
+                    results[i] = bookAlone(i, requests.get(i), userId);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void bookTogether(List<BookingRequestDTO> requests, Long userId, BulkBookingResult[] results) {
+        User user = userRepo.getReferenceById(userId);
+        Set<Long> trainIds = requests.stream()
+                .map(BulkBookingService::trainIdOf)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Train> trains = trainRepo.findAllById(trainIds).stream()
+                .collect(Collectors.toMap(Train::getId, Function.identity()));
+
+        // Valid items by train and travel date, in request order
+        Map<InventoryKey, List<Integer>> groups = new LinkedHashMap<>();
+        List<Set<String>> normalizedSeats = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequestDTO request = requests.get(i);
+            normalizedSeats.add(null);
+            try {
+                Train train = trains.get(trainIdOf(request));
+                if (train == null) {
+                    throw new IllegalArgumentException("Train not found");
+                }
+                normalizedSeats.set(i, BookingService.validate(request.getBookingDetails(), request.getSeatNumbers()));
+                groups.computeIfAbsent(new InventoryKey(train.getId(),
+                        request.getBookingDetails().getBookingDate().toLocalDate()), k -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = BulkBookingResult.rejected(i, e.getMessage());
+            }
+        }
+
+        List<Integer> accepted = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        // Every booking of the request is held for the same window
+        LocalDateTime holdUntil = seatHolds.holdUntil();
+        groups.forEach((key, items) -> {
+            List<List<String>> seats = items.stream().map(i -> requests.get(i).getSeatNumbers()).toList();
+            List<String> outcome = seatInventory.reserveEachForTransaction(key.trainId(), key.travelDate(), seats);
+            for (int n = 0; n < items.size(); n++) {
+                int i = items.get(n);
+                if (outcome.get(n) != null) {
+                    results[i] = BulkBookingResult.rejected(i, outcome.get(n));
+                    continue;
+                }
+                BookingRequestDTO request = requests.get(i);
+                accepted.add(i);
+                bookings.add(bookingService.newBooking(user, trains.get(key.trainId()),
+                        request.getBookingDetails(), request.getSeatNumbers(), holdUntil));
+            }
+        });
+        if (bookings.isEmpty()) {
+            return;
+        }
+
+        bookingRepo.saveAll(bookings);
+        List<SeatReservation> reservations = new ArrayList<>();
+        for (int n = 0; n < bookings.size(); n++) {
+            reservations.addAll(BookingService.reservationsFor(bookings.get(n), normalizedSeats.get(accepted.get(n))));
+        }
+        // The unique (train, travel date, seat) key still has the final word; a violation rolls everything back
+        seatReservationRepo.saveAllAndFlush(reservations);
+
+        for (int n = 0; n < bookings.size(); n++) {
+            Booking saved = bookings.get(n);
+            int i = accepted.get(n);
+            seatHolds.track(saved.getId(), saved.getHoldExpiresAt());
+            bookingStats.booked(saved);
+            results[i] = BulkBookingResult.booked(i, BookingSummary.from(saved));
+        }
+    }
+
+    private BulkBookingResult bookAlone(int index, BookingRequestDTO request, Long userId) {
+        try {
+            Booking saved = bookingService.bookTicket(request.getBookingDetails(), request.getSeatNumbers(), userId);
+            return BulkBookingResult.booked(index, BookingSummary.from(saved));
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return BulkBookingResult.rejected(index, e.getMessage());
+        }
+    }
+
+    private static Long trainIdOf(BookingRequestDTO request) {
+        Booking details = request.getBookingDetails();
+        return details == null || details.getTrain() == null ? null : details.getTrain().getId();
+    }
+}
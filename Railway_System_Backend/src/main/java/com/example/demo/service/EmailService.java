@@ -1,22 +1,122 @@
 package com.example.demo.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Sends mail asynchronously in batches.
+ * <p>
+ * Messages are queued (bounded; a full queue rejects straight away) and picked up by a fixed
+ * number of sender threads - the limit on concurrent SMTP connections. Each sender drains up
+ * to {@code batchSize} messages and hands them to the mail server over a single connection.
+ * A circuit breaker stops hammering a mail server that keeps failing: while it is open,
+ * messages fail immediately and the caller retries later.
+ */
 @Service
 public class EmailService {
 
+    private static final Logger log = LoggerFactory.getLogger(EmailService.class);
+
     @Autowired
     private JavaMailSender mailSender;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rail.mail.senders:2}")
+    private int senders;
+    @Value("${rail.mail.batch-size:20}")
+    private int batchSize;
+    @Value("${rail.mail.queue-capacity:500}")
+    private int queueCapacity;
+    @Value("${rail.mail.linger:PT0.2S}")
+    private Duration linger;
+    @Value("${rail.mail.breaker.failure-threshold:5}")
+    private int failureThreshold;
+    @Value("${rail.mail.breaker.open-for:PT30S}")
+    private Duration openFor;
+
+    private BlockingQueue<PendingMail> queue;
+    private ExecutorService senderThreads;
+    private CircuitBreaker breaker;
+    private volatile boolean running;
+
+    private Timer sentTimer;
+    private Timer failedTimer;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        breaker = new CircuitBreaker(failureThreshold, openFor.toNanos());
+
+        sentTimer = Timer.builder("rail.mail.send.latency").tag("outcome", "sent").register(meterRegistry);
+        failedTimer = Timer.builder("rail.mail.send.latency").tag("outcome", "failed").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("rail.mail.batch.size").register(meterRegistry);
+        Gauge.builder("rail.mail.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("rail.mail.circuit.open", breaker, b -> b.isOpen() ? 1 : 0).register(meterRegistry);
 
-    public void sendBookingEmail(String toEmail, String subject, String body, String attachmentPath) throws MessagingException {
+        running = true;
+        AtomicInteger counter = new AtomicInteger();
+        senderThreads = Executors.newFixedThreadPool(senders, r -> {
+            Thread t = new Thread(r, "mail-sender-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < senders; i++) {
+            senderThreads.execute(this::sendLoop);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        senderThreads.shutdown();
+        senderThreads.awaitTermination(10, TimeUnit.SECONDS);
+        PendingMail left;
+        while ((left = queue.poll()) != null) {
+            left.result.completeExceptionally(new IllegalStateException("Mail service shut down"));
+        }
+    }
+
+    /**
+     * Queues the mail and returns straight away. The future completes once the mail server
+     * accepted the message, or exceptionally if it could not be sent; a
+     * {@link RejectedExecutionException} means the queue was full and nothing was attempted.
+     */
+    public CompletableFuture<Void> sendBookingEmail(String toEmail, String subject, String body,
+                                                    String attachmentName, InputStreamSource attachment)
+            throws MessagingException, IOException {
         MimeMessage message = mailSender.createMimeMessage();
 
         MimeMessageHelper helper = new MimeMessageHelper(message, true);
@@ -25,9 +125,167 @@ public class EmailService {
         helper.setSubject(subject);
         helper.setText(body);
 
-        FileSystemResource file = new FileSystemResource(new File(attachmentPath));
-        helper.addAttachment(file.getFilename(), file);
+        // Read the attachment once; a retried batch reuses these bytes
+        byte[] bytes;
+        try (var in = attachment.getInputStream()) {
+            bytes = in.readAllBytes();
+        }
+        helper.addAttachment(attachmentName, new ByteArrayResource(bytes), "application/pdf");
+
+        return enqueue(message);
+    }
+
+    /**
+     * Queues a plain text mail, like {@link #sendBookingEmail} but without an attachment.
+     */
+    public CompletableFuture<Void> sendNotice(String toEmail, String subject, String body) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message);
+        helper.setTo(toEmail);
+        helper.setSubject(subject);
+        helper.setText(body);
+        return enqueue(message);
+    }
+
+    private CompletableFuture<Void> enqueue(MimeMessage message) {
+        PendingMail mail = new PendingMail(message, System.nanoTime());
+        if (!queue.offer(mail)) {
+            mail.result.completeExceptionally(new RejectedExecutionException("Mail queue is full"));
+        }
+        return mail.result;
+    }
+
+    private void sendLoop() {
+        while (running) {
+            try {
+                PendingMail first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingMail> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long lingerUntil = System.nanoTime() + linger.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long left = lingerUntil - System.nanoTime();
+                    if (batch.size() >= batchSize || left <= 0) {
+                        break;
+                    }
+                    PendingMail next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Mail sender loop failed", e);
+            }
+        }
+    }
+
+    private void send(List<PendingMail> batch) {
+        if (!breaker.allowRequest()) {
+            batch.forEach(mail -> complete(mail, new MailCircuitOpenException()));
+            return;
+        }
+        batchSizes.record(batch.size());
+
+        MimeMessage[] messages = batch.stream().map(PendingMail::message).toArray(MimeMessage[]::new);
+        try {
+            // JavaMailSender sends an array of messages over one connection
+            mailSender.send(messages);
+            breaker.onSuccess();
+            batch.forEach(mail -> complete(mail, null));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            // A failure of every message means the server (not a recipient) is the problem
+            if (failed.isEmpty() || failed.size() == batch.size()) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            for (PendingMail mail : batch) {
+                Exception cause = failed.isEmpty() ? e : failed.get(mail.message());
+                complete(mail, cause);
+            }
+        } catch (MailException e) {
+            breaker.onFailure();
+            batch.forEach(mail -> complete(mail, e));
+        }
+    }
+
+    private void complete(PendingMail mail, Exception error) {
+        long elapsed = System.nanoTime() - mail.queuedAt();
+        if (error == null) {
+            sentTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            mail.result.complete(null);
+        } else {
+            failedTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            mail.result.completeExceptionally(error);
+        }
+    }
+
+    private record PendingMail(MimeMessage message, long queuedAt, CompletableFuture<Void> result) {
+        PendingMail(MimeMessage message, long queuedAt) {
+            this(message, queuedAt, new CompletableFuture<>());
+        }
+    }
+
+    public static class MailCircuitOpenException extends IllegalStateException {
+        MailCircuitOpenException() {
+            super("Mail server is failing; not sending for now");
+        }
+    }
+
+    /**
+     * Opens after {@code threshold} consecutive failures, stays open for {@code openNanos},
+     * then lets a single batch through: success closes it again, failure re-opens it.
+     */
+    static final class CircuitBreaker {
+        private final int threshold;
+        private final long openNanos;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean open;
+        private boolean trialInFlight;
+
+        CircuitBreaker(int threshold, long openNanos) {
+            this.threshold = threshold;
+            this.openNanos = openNanos;
+        }
+
+        synchronized boolean allowRequest() {
+            if (!open) {
+                return true;
+            }
+            if (!trialInFlight && System.nanoTime() - openedAt >= openNanos) {
+                trialInFlight = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            open = false;
+            trialInFlight = false;
+        }
+
+        synchronized void onFailure() {
+            consecutiveFailures++;
+            if (trialInFlight || consecutiveFailures >= threshold) {
+                open = true;
+                openedAt = System.nanoTime();
+                trialInFlight = false;
+            }
+        }
 
-        mailSender.send(message);
+        synchronized boolean isOpen() {
+            return open;
+        }
     }
 }
@@ -1,12 +1,14 @@
 package com.example.demo.service;
 
-import com.example.demo.model.Booking;
+import com.example.demo.dto.BookingStateChange;
+import com.example.demo.model.BookingState;
 import com.example.demo.repository.BookingRepository;
-import jakarta.mail.MessagingException;
+import com.example.demo.repository.BookingRepository.BookingRef;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.io.IOException;
-import java.io.FileNotFoundException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 
 @Service
 public class PaymentService {
@@ -14,30 +16,38 @@ public class PaymentService {
     @Autowired
     private BookingRepository bookingRepository;
     @Autowired
-    private PdfGeneratorService pdfService;
+    private TicketFulfilmentService fulfilmentService;
+
+    @Autowired
+    private SeatHoldService seatHolds;
     @Autowired
-    private EmailService emailService;
+    private BookingStatsService bookingStats;
+
+    @Transactional
+    public BookingStateChange simulatePayment(Long bookingId) {
 
-    public Booking simulatePayment(Long bookingId) 
-            throws IOException,FileNotFoundException, MessagingException {
-        
-        // Find the booking that needs to be paid for
-        Booking booking = bookingRepository.findById(bookingId)
+        // Only a hold that is still live can be paid for; the check and the update are one statement,
+        // so an expiry or cancellation running at the same moment cannot also win
+        boolean confirmed = bookingRepository.confirmHold(bookingId, LocalDateTime.now()) == 1;
+
+        BookingRef booking = bookingRepository.findRef(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
-        
-        // Mark the booking as paid and save it
-        booking.setPaid(true);
-        Booking savedBooking = bookingRepository.save(booking);
-
-        // --- TICKET GENERATION LOGIC IS NOW HERE ---
-        String pdfPath = pdfService.generateBookingTicket(savedBooking);
-        emailService.sendBookingEmail(
-                savedBooking.getEmail(),
-                "Your Railway Reservation Ticket",
-                "Payment successful! Please find your ticket attached.",
-                pdfPath
-        );
-
-        return savedBooking;
+        if (!confirmed) {
+            switch (booking.getState()) {
+                // Paying twice changes nothing
+                case PAID -> {
+                    return BookingStateChange.of(bookingId, BookingState.PAID);
+                }
+                case CANCELED -> throw new IllegalStateException("This booking has been canceled");
+                default -> throw new IllegalStateException("The seat hold for this booking has expired; please book again");
+            }
+        }
+        seatHolds.forget(bookingId);
+        bookingStats.paid(booking);
+
+        // The ticket PDF and email are produced in the background once this commits
+        fulfilmentService.schedule(bookingId);
+
+        return BookingStateChange.of(bookingId, BookingState.PAID);
     }
-}
\ No newline at end of file
+}
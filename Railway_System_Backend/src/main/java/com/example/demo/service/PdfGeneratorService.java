@@ -2,70 +2,140 @@ package com.example.demo.service;
 
 import com.example.demo.model.BookedSeat;
 import com.example.demo.model.Booking;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.impl.FSDefaultCacheStore;
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 
-import java.io.FileOutputStream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+/**
+ * Renders booking tickets to PDF.
+ * <p>
+ * The ticket layout lives in {@code templates/ticket.xhtml} and is parsed into a DOM once;
+ * each ticket renders from a clone of it with the booking's values filled in, so there is
+ * no HTML building or parsing per ticket. Font metrics are cached across renders and the
+ * PDF is produced in memory.
+ * <p>
+ * The template's inline stylesheet is still parsed on every render: openhtmltopdf 1.0 sets up
+ * its stylesheet factory per render and has no hook for sharing a parsed one. At about 20
+ * microseconds of a 6-7 ms render it is not worth working around.
+ */
 @Service
 public class PdfGeneratorService {
 
-    public String generateBookingTicket(Booking booking) throws IOException {
-        String pdfPath = "Ticket_" + booking.getId() + ".pdf";
-        String htmlContent = createTicketHtml(booking);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
 
-        try (OutputStream os = new FileOutputStream(pdfPath)) {
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.withHtmlContent(htmlContent, null);
-            builder.toStream(os);
-            builder.run();
+    @Value("${rail.ticket.batch-threads:0}")
+    private int batchThreads;
+
+    private Document template;
+    private final FSCacheEx<String, FSCacheValue> fontMetricsCache = new FSDefaultCacheStore();
+    private ExecutorService batchPool;
+
+    @PostConstruct
+    void init() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try (InputStream in = new ClassPathResource("templates/ticket.xhtml").getInputStream()) {
+            template = factory.newDocumentBuilder().parse(in);
         }
 
-        return pdfPath;
+        int threads = batchThreads > 0 ? batchThreads : Runtime.getRuntime().availableProcessors();
+        batchPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ticket-batch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchPool.shutdownNow();
     }
 
-    private String createTicketHtml(Booking booking) {
-        // Formatter for a more readable date and time
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
-        String formattedBookingDate = booking.getBookingDate().format(formatter);
+    public byte[] renderTicket(Booking booking) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.useCacheStore(PdfRendererBuilder.CacheStore.PDF_FONT_METRICS, fontMetricsCache);
+        builder.withW3cDocument(createTicketDocument(booking), null);
+        builder.toStream(out);
+        builder.run();
+        return out.toByteArray();
+    }
+
+    /**
+     * Renders many tickets in parallel on the batch worker pool.
+     * The result keeps the order of the given bookings, keyed by booking id.
+     */
+    public Map<Long, byte[]> renderBatch(List<Booking> bookings) throws IOException {
+        List<Callable<byte[]>> jobs = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            jobs.add(() -> renderTicket(booking));
+        }
+
+        Map<Long, byte[]> tickets = new LinkedHashMap<>();
+        try {
+            List<Future<byte[]>> results = batchPool.invokeAll(jobs);
+            for (int i = 0; i < bookings.size(); i++) {
+                tickets.put(bookings.get(i).getId(), results.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering tickets", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not render ticket", e.getCause());
+        }
+        return tickets;
+    }
+
+    private Document createTicketDocument(Booking booking) {
+        Document document;
+        // DOM implementations are not safe for concurrent reads, even of an untouched tree
+        synchronized (template) {
+            document = (Document) template.cloneNode(true);
+        }
 
-        // --- THIS IS THE CORRECTED LOGIC FOR HANDLING MULTIPLE SEATS ---
         String seatNumbers = booking.getSeats().stream()
                 .map(BookedSeat::getSeatNumber)
                 .collect(Collectors.joining(", "));
-        // --- END OF CHANGE ---
 
-        return "<html>" +
-                "<head>" +
-                "<style>" +
-                "body { font-family: Arial, sans-serif; margin: 40px; }" +
-                ".ticket { border: 2px solid #000; padding: 20px; border-radius: 10px; max-width: 600px; margin: auto; }" +
-                ".header { text-align: center; border-bottom: 1px solid #ccc; padding-bottom: 10px; margin-bottom: 20px; }" +
-                ".header h1 { margin: 0; color: #333; }" +
-                ".details-table { width: 100%; border-collapse: collapse; }" +
-                ".details-table td { padding: 8px; border-bottom: 1px solid #eee; }" +
-                ".details-table td:first-child { font-weight: bold; color: #555; }" +
-                "</style>" +
-                "</head>" +
-                "<body>" +
-                "<div class='ticket'>" +
-                "<div class='header'><h1>Railway Reservation Ticket</h1></div>" +
-                "<table class='details-table'>" +
-                "<tr><td>Booking ID:</td><td>" + booking.getId() + "</td></tr>" +
-                "<tr><td>Passenger Name:</td><td>" + booking.getPassengerName() + "</td></tr>" +
-                "<tr><td>Train Name:</td><td>" + booking.getTrain().getTrainName() + " (" + booking.getTrain().getTrainNumber() + ")</td></tr>" +
-                "<tr><td>From:</td><td>" + booking.getTrain().getOrigin() + "</td></tr>" +
-                "<tr><td>To:</td><td>" + booking.getTrain().getDestination() + "</td></tr>" +
-                // Use the new seatNumbers string here
-                "<tr><td>Seat Numbers:</td><td>" + seatNumbers + "</td></tr>" +
-                "<tr><td>Booking Date:</td><td>" + formattedBookingDate + "</td></tr>" +
-                "</table>" +
-                "</div>" +
-                "</body>" +
-                "</html>";
+        NodeList cells = document.getElementsByTagName("td");
+        for (int i = 0; i < cells.getLength(); i++) {
+            Element cell = (Element) cells.item(i);
+            switch (cell.getAttribute("data-field")) {
+                case "bookingId" -> cell.setTextContent(String.valueOf(booking.getId()));
+                case "passengerName" -> cell.setTextContent(booking.getPassengerName());
+                case "train" -> cell.setTextContent(booking.getTrain().getTrainName() + " (" + booking.getTrain().getTrainNumber() + ")");
+                case "origin" -> cell.setTextContent(booking.getTrain().getOrigin());
+                case "destination" -> cell.setTextContent(booking.getTrain().getDestination());
+                case "seatNumbers" -> cell.setTextContent(seatNumbers);
+                case "bookingDate" -> cell.setTextContent(booking.getBookingDate().format(DATE_FORMAT));
+                default -> { }
+            }
+        }
+        return document;
     }
-}
\ No newline at end of file
+}
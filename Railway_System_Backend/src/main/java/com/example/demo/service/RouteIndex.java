@@ -0,0 +1,248 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TrainDTO;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory timetable index for train search: origin -> destination -> trains ordered by
+ * departure time. Station keys are lower-cased and kept sorted, so a station prefix is a
+ * range scan over the keys.
+ * <p>
+ * Reads never lock. Each route holds an immutable sorted array that writers replace
+ * wholesale (copy-on-write); admins change trains rarely, searches are constant. Writers
+ * are serialized among themselves.
+ */
+@Component
+public class RouteIndex {
+
+    // Unknown departure times sort last
+    static final Comparator<TrainDTO> BY_DEPARTURE = Comparator
+            .comparing(TrainDTO::getDepartureTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(TrainDTO::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private static final TrainDTO[] EMPTY = new TrainDTO[0];
+
+    private final ConcurrentSkipListMap<String, ConcurrentSkipListMap<String, TrainDTO[]>> routes =
+            new ConcurrentSkipListMap<>();
+    // Where each train currently sits, so an update or delete can find its old route
+    private final Map<Long, TrainDTO> byId = new ConcurrentHashMap<>();
+
+    /*
+     * Replaces the whole index, at startup and periodically in case a change event was missed.
+     * Each origin is swapped in whole, so a search running meanwhile never sees a route
+     * part-filled, only some origins from before the rebuild and some from after.
+     */
+    public synchronized void rebuild(Collection<TrainDTO> trains) {
+        Map<Long, TrainDTO> ids = new HashMap<>();
+        Map<String, Map<String, List<TrainDTO>>> grouped = new HashMap<>();
+        for (TrainDTO train : trains) {
+            ids.put(train.getId(), train);
+            grouped.computeIfAbsent(key(train.getOrigin()), k -> new HashMap<>())
+                    .computeIfAbsent(key(train.getDestination()), k -> new ArrayList<>())
+                    .add(train);
+        }
+        grouped.forEach((origin, destinations) -> {
+            ConcurrentSkipListMap<String, TrainDTO[]> byDestination = new ConcurrentSkipListMap<>();
+            destinations.forEach((destination, list) -> {
+                TrainDTO[] sorted = list.toArray(EMPTY);
+                Arrays.sort(sorted, BY_DEPARTURE);
+                byDestination.put(destination, sorted);
+            });
+            routes.put(origin, byDestination);
+        });
+        routes.keySet().retainAll(grouped.keySet());
+        byId.putAll(ids);
+        byId.keySet().retainAll(ids.keySet());
+    }
+
+    /**
+     * Adds the train or replaces its previous entry, which may be on a different route.
+     * The index keeps the given object; callers must not modify it afterwards.
+     */
+    public synchronized void put(TrainDTO train) {
+        TrainDTO previous = byId.put(train.getId(), train);
+        if (previous != null) {
+            removeFromRoute(previous);
+        }
+        ConcurrentSkipListMap<String, TrainDTO[]> byDestination =
+                routes.computeIfAbsent(key(train.getOrigin()), k -> new ConcurrentSkipListMap<>());
+        String destination = key(train.getDestination());
+        TrainDTO[] current = byDestination.getOrDefault(destination, EMPTY);
+
+        int at = Arrays.binarySearch(current, train, BY_DEPARTURE);
+        int insertAt = at >= 0 ? at : -at - 1;
+        TrainDTO[] updated = new TrainDTO[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, insertAt);
+        updated[insertAt] = train;
+        System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+        byDestination.put(destination, updated);
+    }
+
+    public synchronized void remove(Long trainId) {
+        TrainDTO previous = byId.remove(trainId);
+        if (previous != null) {
+            removeFromRoute(previous);
+        }
+    }
+
+    /**
+     * Trains whose origin and destination start with the given text (ignoring case), ordered
+     * by departure time. Trains run daily, so any date from today on has the full timetable,
+     * except that today only lists trains that have not left yet. Past dates find nothing.
+     *
+     * @param date travel date, or null for the whole timetable
+     * @param size page size, or 0 for everything from {@code page * size} on
+     */
+    public List<TrainDTO> search(String from, String to, LocalDate date, int page, int size, LocalDateTime now) {
+        LocalTime departingAfter = null;
+        if (date != null) {
+            if (date.isBefore(now.toLocalDate())) {
+                return List.of();
+            }
+            if (date.isEqual(now.toLocalDate())) {
+                departingAfter = now.toLocalTime();
+            }
+        }
+
+        List<TrainDTO[]> matches = new ArrayList<>();
+        for (NavigableMap<String, TrainDTO[]> byDestination : withPrefix(routes, key(from)).values()) {
+            matches.addAll(withPrefix(byDestination, key(to)).values());
+        }
+
+        long skip = (long) page * size;
+        int limit = size > 0 ? size : Integer.MAX_VALUE;
+        List<TrainDTO> result = new ArrayList<>(Math.min(limit, 64));
+
+        if (matches.size() == 1) {
+            // The common case: one exact route, already in order
+            TrainDTO[] trains = matches.get(0);
+            for (int i = firstDepartingAfter(trains, departingAfter); i < trains.length && result.size() < limit; i++) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    result.add(trains[i]);
+                }
+            }
+            return result;
+        }
+
+        // Several routes matched a prefix: merge their sorted arrays, stopping once the page is full
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> BY_DEPARTURE.compare(a.head(), b.head()));
+        for (TrainDTO[] trains : matches) {
+            int start = firstDepartingAfter(trains, departingAfter);
+            if (start < trains.length) {
+                heads.add(new Cursor(trains, start));
+            }
+        }
+        while (!heads.isEmpty() && result.size() < limit) {
+            Cursor cursor = heads.poll();
+            if (skip > 0) {
+                skip--;
+            } else {
+                result.add(cursor.head());
+            }
+            if (++cursor.position < cursor.trains.length) {
+                heads.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private void removeFromRoute(TrainDTO train) {
+        String origin = key(train.getOrigin());
+        String destination = key(train.getDestination());
+        ConcurrentSkipListMap<String, TrainDTO[]> byDestination = routes.get(origin);
+        if (byDestination == null) {
+            return;
+        }
+        TrainDTO[] current = byDestination.get(destination);
+        if (current == null) {
+            return;
+        }
+        int at = -1;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].getId().equals(train.getId())) {
+                at = i;
+                break;
+            }
+        }
+        if (at < 0) {
+            return;
+        }
+        if (current.length == 1) {
+            byDestination.remove(destination);
+            if (byDestination.isEmpty()) {
+                routes.remove(origin);
+            }
+            return;
+        }
+        TrainDTO[] updated = new TrainDTO[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, at);
+        System.arraycopy(current, at + 1, updated, at, current.length - at - 1);
+        byDestination.put(destination, updated);
+    }
+
+    // Index of the first train leaving strictly after the given time; trains without a time sort last and stay in
+    private static int firstDepartingAfter(TrainDTO[] trains, LocalTime time) {
+        if (time == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = trains.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            LocalTime departure = trains[mid].getDepartureTime();
+            if (departure != null && !departure.isAfter(time)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static <V> NavigableMap<String, V> withPrefix(NavigableMap<String, V> map, String prefix) {
+        if (prefix.isEmpty()) {
+            return map;
+        }
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    static String key(String station) {
+        return station == null ? "" : station.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Cursor {
+        final TrainDTO[] trains;
+        int position;
+
+        Cursor(TrainDTO[] trains, int position) {
+            this.trains = trains;
+            this.position = position;
+        }
+
+        TrainDTO head() {
+            return trains[position];
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.demo.service;
+
+import com.example.demo.model.SeatReservation;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.SeatReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Seats of an unpaid booking are only held for {@code rail.hold.window}. Each hold is put on
+ * a timer wheel when it is created (or when the node starts), and when it runs out the
+ * booking becomes EXPIRED and its seats go back on sale. A periodic sweep of the database picks
+ * up holds whose node went away before they expired.
+ * <p>
+ * Expiry and payment race safely: both are conditional updates on the booking row, so
+ * exactly one of them wins.
+ */
+@Service
+public class SeatHoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatHoldService.class);
+    private static final int BATCH = 500;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private SeatReservationRepository seatReservationRepo;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private BookingStatsService bookingStats;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rail.hold.window:PT15M}")
+    private Duration holdWindow;
+    @Value("${rail.hold.tick:PT1S}")
+    private Duration tick;
+    @Value("${rail.hold.wheel-size:512}")
+    private int wheelSize;
+
+    private TimerWheel wheel;
+    private TransactionTemplate tx;
+    private Counter expiries;
+
+    @PostConstruct
+    void start() {
+        tx = new TransactionTemplate(transactionManager);
+        wheel = new TimerWheel("seat-hold-wheel", tick, wheelSize, this::expire);
+        Gauge.builder("rail.hold.active", wheel, TimerWheel::size).register(meterRegistry);
+        expiries = meterRegistry.counter("rail.hold.expired");
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        wheel.stop();
+    }
+
+    // When a hold taken now runs out
+    public LocalDateTime holdUntil() {
+        return LocalDateTime.now().plus(holdWindow);
+    }
+
+    /**
+     * Starts the expiry clock for the booking once the current transaction commits.
+     */
+    public void track(Long bookingId, LocalDateTime expiresAt) {
+        afterCommit(() -> wheel.schedule(bookingId, Duration.between(LocalDateTime.now(), expiresAt)));
+    }
+
+    /**
+     * Stops the expiry clock once the current transaction commits, e.g. after payment.
+     */
+    public void forget(Long bookingId) {
+        afterCommit(() -> wheel.cancel(bookingId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescheduleHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingRepository.HoldRef> holds = bookingRepo.findActiveHolds();
+        for (BookingRepository.HoldRef hold : holds) {
+            wheel.schedule(hold.getId(), Duration.between(now, hold.getHoldExpiresAt()));
+        }
+        log.info("Rescheduled {} seat holds", holds.size());
+    }
+
+    // Fallback for holds no node has on its wheel, such as those of a node that went down
+    @Scheduled(fixedDelayString = "${rail.hold.sweep-interval:PT1M}")
+    public void expireDue() {
+        List<Long> due;
+        do {
+            due = bookingRepo.findExpiredHoldIds(LocalDateTime.now(), PageRequest.of(0, BATCH));
+            expire(due);
+        } while (due.size() == BATCH);
+    }
+
+    private void expire(List<Long> bookingIds) {
+        for (int from = 0; from < bookingIds.size(); from += BATCH) {
+            List<Long> batch = bookingIds.subList(from, Math.min(from + BATCH, bookingIds.size()));
+            try {
+                int count = tx.execute(status -> expireBatch(batch));
+                expiries.increment(count);
+            } catch (RuntimeException e) {
+                // The sweep retries them
+                log.error("Could not expire seat holds {}", batch, e);
+            }
+        }
+    }
+
+    private int expireBatch(List<Long> bookingIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> expired = new ArrayList<>();
+        for (Long id : bookingIds) {
+            // Loses quietly to a payment that got there first
+            if (bookingRepo.expireHold(id, now) == 1) {
+                expired.add(id);
+            }
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        List<SeatReservation> seats = seatReservationRepo.findByBookingIdIn(expired);
+        seatReservationRepo.deleteByBookingIdIn(expired);
+        Map<TrainDay, List<String>> byTrainDay = seats.stream().collect(Collectors.groupingBy(
+                r -> new TrainDay(r.getTrainId(), r.getTravelDate()),
+                Collectors.mapping(SeatReservation::getSeatNumber, Collectors.toList())));
+        byTrainDay.forEach((day, seatNumbers) ->
+                seatInventory.releaseAfterCommit(day.trainId(), day.travelDate(), seatNumbers));
+        // Each booking's train and date, from the first of its seats
+        seats.stream()
+                .collect(Collectors.toMap(SeatReservation::getBookingId,
+                        r -> new TrainDay(r.getTrainId(), r.getTravelDate()), (a, b) -> a))
+                .values()
+                .forEach(day -> bookingStats.expired(day.trainId(), day.travelDate()));
+        return expired.size();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record TrainDay(Long trainId, LocalDate travelDate) {
+    }
+}
@@ -0,0 +1,901 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CoachAvailabilityDTO;
+import com.example.demo.dto.SeatAvailabilityDTO;
+import com.example.demo.model.Coach;
+import com.example.demo.model.SeatClass;
+import com.example.demo.model.SeatReservation;
+import com.example.demo.model.Train;
+import com.example.demo.repository.CoachRepository;
+import com.example.demo.repository.SeatReservationRepository;
+import com.example.demo.repository.TrainRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory seat inventory. Keeps one bitset of booked seats per (train, travel date) so
+ * availability checks and reservations never hit the database. The database stays the
+ * durable record: upcoming dates are warmed at startup and any other date is loaded the
+ * first time it is touched.
+ * <p>
+ * Next to the bitset, each (train, travel date) keeps booked counts per coach and per class,
+ * updated as seats are reserved and released, so availability reads are a few array lookups.
+ * <p>
+ * Each (train, travel date) is guarded by one of {@link #STRIPES} locks, so bookings for
+ * a hot train only contend with each other and never with unrelated trains.
+ * <p>
+ * Other nodes book and release seats too, so a copy is re-read from the database once it is
+ * older than {@code rail.seat-inventory.refresh-interval}, and straight away before a seat it
+ * marks as taken is refused. Seats this node has reserved for a transaction that has not
+ * finished yet are kept through a re-read, as the database cannot show them.
+ */
+@Service
+public class SeatInventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatInventoryService.class);
+    private static final int STRIPES = 256;
+
+    @Autowired
+    private SeatReservationRepository seatReservationRepo;
+    @Autowired
+    private CoachRepository coachRepo;
+    @Autowired
+    private TrainRepository trainRepo;
+
+    @Value("${rail.seat-inventory.refresh-interval:PT30S}")
+    private Duration refreshInterval;
+
+    // trainId -> seat layout and seat label -> bit position, shared by every travel date of that train
+    private final Map<Long, TrainLayout> layouts = new ConcurrentHashMap<>();
+    private final Map<InventoryKey, TrainDaySeats> inventory = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final List<BiConsumer<Long, LocalDate>> changeListeners = new CopyOnWriteArrayList<>();
+
+    public SeatInventoryService() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isAvailable(Long trainId, LocalDate travelDate, Collection<String> seatNumbers) {
+        TrainDaySeats seats = seatsFor(trainId, travelDate);
+        ReentrantLock lock = lockFor(trainId, travelDate);
+        lock.lock();
+        try {
+            int[] bits = seats.bitsForBooking(seatNumbers);
+            boolean available = seats.refusal(bits) == null;
+            seats.forgetUnbooked(bits);
+            return available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks every seat as booked, or none of them if any is already taken or its class is full.
+     * Seats that are not part of the train's layout are rejected.
+     */
+    public void reserve(Long trainId, LocalDate travelDate, Collection<String> seatNumbers) {
+        reserve(trainId, travelDate, seatsFor(trainId, travelDate), seatNumbers, false);
+    }
+
+    // Returns the bits of the reserved seats
+    private int[] reserve(Long trainId, LocalDate travelDate, TrainDaySeats seats, Collection<String> seatNumbers,
+                          boolean pending) {
+        try {
+            return tryReserve(trainId, travelDate, seats, seatNumbers, pending);
+        } catch (IllegalStateException refused) {
+            // Another node may have freed the seats since they were read; check before turning the booking away
+            if (!refresh(trainId, travelDate, seats)) {
+                throw refused;
+            }
+            return tryReserve(trainId, travelDate, seats, seatNumbers, pending);
+        }
+    }
+
+    private int[] tryReserve(Long trainId, LocalDate travelDate, TrainDaySeats seats, Collection<String> seatNumbers,
+                             boolean pending) {
+        ReentrantLock lock = lockFor(trainId, travelDate);
+        lock.lock();
+        try {
+            int[] bits = seats.bitsForBooking(seatNumbers);
+            String refused = seats.refusal(bits);
+            if (refused != null) {
+                seats.forgetUnbooked(bits);
+                throw new IllegalStateException(refused);
+            }
+            seats.set(bits);
+            if (pending) {
+                seats.hold(bits);
+            }
+            return bits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(Long trainId, LocalDate travelDate, Collection<String> seatNumbers) {
+        TrainDaySeats seats = seatsFor(trainId, travelDate);
+        ReentrantLock lock = lockFor(trainId, travelDate);
+        lock.lock();
+        try {
+            int[] bits = seats.bitsOf(seatNumbers);
+            seats.clear(bits);
+            seats.forgetUnbooked(bits);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserves the seats on behalf of the current transaction; they are handed back
+     * automatically if that transaction does not commit.
+     */
+    public void reserveForTransaction(Long trainId, LocalDate travelDate, Collection<String> seatNumbers) {
+        TrainDaySeats seats = seatsFor(trainId, travelDate);
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        int[] bits = reserve(trainId, travelDate, seats, seatNumbers, inTransaction);
+        if (!inTransaction) {
+            changed(trainId, travelDate);
+            return;
+        }
+        settleOnCompletion(trainId, travelDate, seats, bits);
+    }
+
+    /**
+     * Reserves the seats of several bookings on the same train and date under one lock, each
+     * booking all or nothing, on behalf of the current transaction like
+     * {@link #reserveForTransaction}. Returns for every booking, in order, null if its seats
+     * were reserved or why they were not.
+     */
+    public List<String> reserveEachForTransaction(Long trainId, LocalDate travelDate,
+                                                  List<? extends Collection<String>> bookings) {
+        TrainDaySeats seats = seatsFor(trainId, travelDate);
+        List<String> outcome = new ArrayList<>(Collections.nCopies(bookings.size(), null));
+        // Bookings neither reserved nor invalid yet
+        BitSet wanted = new BitSet();
+        wanted.set(0, bookings.size());
+
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        BitSet reserved = new BitSet();
+        boolean refused = tryReserveEach(trainId, travelDate, seats, bookings, wanted, outcome, reserved, inTransaction);
+        // Another node may have freed some of the seats since they were read; give the refused ones a second look
+        if (refused && refresh(trainId, travelDate, seats)) {
+            tryReserveEach(trainId, travelDate, seats, bookings, wanted, outcome, reserved, inTransaction);
+        }
+
+        if (reserved.isEmpty()) {
+            return outcome;
+        }
+        if (!inTransaction) {
+            changed(trainId, travelDate);
+            return outcome;
+        }
+        settleOnCompletion(trainId, travelDate, seats, reserved.stream().toArray());
+        return outcome;
+    }
+
+    // Tries every booking still wanted, dropping the ones reserved or invalid; returns whether any was refused
+    private boolean tryReserveEach(Long trainId, LocalDate travelDate, TrainDaySeats seats,
+                                   List<? extends Collection<String>> bookings, BitSet wanted,
+                                   List<String> outcome, BitSet reserved, boolean pending) {
+        boolean refused = false;
+        ReentrantLock lock = lockFor(trainId, travelDate);
+        lock.lock();
+        try {
+            for (int i = wanted.nextSetBit(0); i >= 0; i = wanted.nextSetBit(i + 1)) {
+                int[] bits;
+                try {
+                    bits = seats.bitsForBooking(bookings.get(i));
+                } catch (IllegalArgumentException e) {
+                    outcome.set(i, e.getMessage());
+                    wanted.clear(i);
+                    continue;
+                }
+                String refusal = seats.refusal(bits);
+                outcome.set(i, refusal);
+                if (refusal != null) {
+                    seats.forgetUnbooked(bits);
+                    refused = true;
+                    continue;
+                }
+                seats.set(bits);
+                if (pending) {
+                    seats.hold(bits);
+                }
+                for (int bit : bits) {
+                    reserved.set(bit);
+                }
+                wanted.clear(i);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return refused;
+    }
+
+    // Once the transaction is over its seats are either in the database or handed back
+    private void settleOnCompletion(Long trainId, LocalDate travelDate, TrainDaySeats seats, int[] bits) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                ReentrantLock lock = lockFor(trainId, travelDate);
+                lock.lock();
+                try {
+                    seats.settle(bits);
+                    if (!committed) {
+                        seats.clear(bits);
+                        seats.forgetUnbooked(bits);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (committed) {
+                    changed(trainId, travelDate);
+                }
+            }
+        });
+    }
+
+    /**
+     * Releases the seats once the current transaction commits, so a rolled back
+     * cancellation never frees a seat that is still sold.
+     */
+    public void releaseAfterCommit(Long trainId, LocalDate travelDate, Collection<String> seatNumbers) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(trainId, travelDate, seatNumbers);
+            changed(trainId, travelDate);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(trainId, travelDate, seatNumbers);
+                changed(trainId, travelDate);
+            }
+        });
+    }
+
+    /**
+     * Registers a listener told about every committed change to a (train, travel date), or
+     * with a null date when everything about the train may have changed. Listeners run on
+     * the committing thread and must return quickly.
+     */
+    public void onChange(BiConsumer<Long, LocalDate> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void changed(Long trainId, LocalDate travelDate) {
+        for (BiConsumer<Long, LocalDate> listener : changeListeners) {
+            try {
+                listener.accept(trainId, travelDate);
+            } catch (RuntimeException e) {
+                log.error("Seat change listener failed for train {} on {}", trainId, travelDate, e);
+            }
+        }
+    }
+
+    /**
+     * Re-reads the seats of the (train, travel date) if this node's copy is older than the
+     * refresh interval, telling listeners if another node changed anything meanwhile.
+     */
+    public void refreshIfStale(Long trainId, LocalDate travelDate) {
+        TrainDaySeats seats = inventory.get(new InventoryKey(trainId, travelDate));
+        if (seats != null && seats.isStale(refreshInterval)) {
+            refresh(trainId, travelDate, seats);
+        }
+    }
+
+    /*
+     * Brings the copy in line with the database, keeping seats reserved by transactions that
+     * have not finished and any seat booked or released here while the query ran. Returns
+     * whether anything changed; a refresh already under way elsewhere counts as no change.
+     */
+    private boolean refresh(Long trainId, LocalDate travelDate, TrainDaySeats seats) {
+        ReentrantLock lock = lockFor(trainId, travelDate);
+        lock.lock();
+        try {
+            if (!seats.startRefresh()) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        List<String> booked;
+        try {
+            booked = seatReservationRepo.findSeatNumbers(trainId, travelDate);
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                seats.finishRefresh(null);
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+        boolean changed;
+        lock.lock();
+        try {
+            changed = seats.finishRefresh(booked);
+        } finally {
+            lock.unlock();
+        }
+        if (changed) {
+            changed(trainId, travelDate);
+        }
+        return changed;
+    }
+
+    public int bookedCount(Long trainId, LocalDate travelDate) {
+        TrainDaySeats seats = seatsFor(trainId, travelDate);
+        ReentrantLock lock = lockFor(trainId, travelDate);
+        lock.lock();
+        try {
+            return seats.count();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Capacity, free seats and fare of each class of the train on the given date.
+     */
+    public List<SeatAvailabilityDTO> classAvailability(Long trainId, LocalDate travelDate) {
+        TrainDaySeats seats = seatsFor(trainId, travelDate);
+        TrainLayout layout = seats.layout;
+        List<SeatAvailabilityDTO> result = new ArrayList<>(layout.classes.length);
+        ReentrantLock lock = lockFor(trainId, travelDate);
+        lock.lock();
+        try {
+            for (int k = 0; k < layout.classes.length; k++) {
+                SeatClass seatClass = layout.classes[k];
+                result.add(new SeatAvailabilityDTO(seatClass.getCode(), seatClass.getDisplayName(),
+                        layout.classCapacity[k], seats.availableInClass(k), layout.classPrice[k]));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Every coach of the train on the given date with its free seats. Trains without a
+     * layout have one unnamed general coach whose seats have no fixed numbers.
+     */
+    public List<CoachAvailabilityDTO> coachAvailability(Long trainId, LocalDate travelDate) {
+        TrainDaySeats seats = seatsFor(trainId, travelDate);
+        TrainLayout layout = seats.layout;
+        List<CoachAvailabilityDTO> result = new ArrayList<>(layout.coachCodes.length);
+        ReentrantLock lock = lockFor(trainId, travelDate);
+        lock.lock();
+        try {
+            for (int c = 0; c < layout.coachCodes.length; c++) {
+                result.add(new CoachAvailabilityDTO(layout.coachCodes[c],
+                        layout.classes[layout.coachClass[c]].getCode(),
+                        layout.coachSize[c], seats.availableInCoach(c), layout.coachPrice[c],
+                        seats.freeSeats(c)));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Up to {@code count} free seats of the class on the given date, lowest coach and seat
+     * first, or an empty list if the class has fewer free seats than that. The seats are not
+     * reserved; booking them may still lose to someone faster.
+     */
+    public List<String> pickFreeSeats(Long trainId, LocalDate travelDate, SeatClass seatClass, int count) {
+        TrainDaySeats seats = seatsFor(trainId, travelDate);
+        TrainLayout layout = seats.layout;
+        int k = Arrays.asList(layout.classes).indexOf(seatClass);
+        if (k < 0) {
+            return List.of();
+        }
+        ReentrantLock lock = lockFor(trainId, travelDate);
+        lock.lock();
+        try {
+            if (seats.availableInClass(k) < count) {
+                return List.of();
+            }
+            List<String> picked = new ArrayList<>(count);
+            for (int c = 0; c < layout.coachCodes.length && picked.size() < count; c++) {
+                if (layout.coachClass[c] != k) {
+                    continue;
+                }
+                // Without a layout there are no seat numbers to pick from, so make some up in the same form
+                int limit = layout.fixed ? layout.coachSize[c] : Integer.MAX_VALUE;
+                for (int seat = 1; seat <= limit && picked.size() < count; seat++) {
+                    String label = layout.coachCodes[c] + "-" + seat;
+                    if (seats.isFree(label)) {
+                        picked.add(label);
+                    }
+                }
+            }
+            return picked;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The form seat labels are compared and stored in: trimmed and upper-cased,
+     * matching MySQL's case-insensitive default collation.
+     */
+    public static String normalizeSeat(String seatNumber) {
+        return seatNumber.trim().toUpperCase(Locale.ROOT);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDate today = LocalDate.now();
+        List<SeatReservation> rows = seatReservationRepo.findByTravelDateGreaterThanEqual(today);
+
+        Map<InventoryKey, TrainDaySeats> loaded = new ConcurrentHashMap<>();
+        for (SeatReservation row : rows) {
+            InventoryKey key = new InventoryKey(row.getTrainId(), row.getTravelDate());
+            TrainDaySeats seats = loaded.computeIfAbsent(key, k -> new TrainDaySeats(layout(k.trainId())));
+            seats.set(seats.bitsForLoaded(List.of(row.getSeatNumber())));
+        }
+        loaded.forEach(inventory::putIfAbsent);
+        log.info("Seat inventory warmed with {} seats across {} train-days", rows.size(), loaded.size());
+    }
+
+    // Past travel dates can no longer be booked, so there is no reason to keep them in memory
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictPastDates() {
+        LocalDate today = LocalDate.now();
+        inventory.keySet().removeIf(key -> key.travelDate().isBefore(today));
+    }
+
+    /**
+     * Forgets everything held for the train, e.g. after its layout changed or it was deleted;
+     * it is reloaded from the database when next used.
+     */
+    public void evictTrain(Long trainId) {
+        layouts.remove(trainId);
+        inventory.keySet().removeIf(key -> key.trainId() == trainId);
+        changed(trainId, null);
+    }
+
+    /**
+     * Re-reads the layout of every train held here and forgets the trains whose layout
+     * changed or that were deleted, in case the change event from another node was missed.
+     */
+    public void refreshLayouts() {
+        Map<Long, List<Coach>> coaches = coachRepo.findAll(Sort.by("trainId", "positionNo")).stream()
+                .collect(Collectors.groupingBy(Coach::getTrainId));
+        Map<Long, Train> trains = trainRepo.findAll().stream()
+                .collect(Collectors.toMap(Train::getId, Function.identity()));
+        for (Map.Entry<Long, TrainLayout> cached : layouts.entrySet()) {
+            Long trainId = cached.getKey();
+            Train train = trains.get(trainId);
+            if (train == null || !cached.getValue().sameShape(layoutOf(train, coaches.getOrDefault(trainId, List.of())))) {
+                log.info("Seat layout of train {} changed without notice; reloading it", trainId);
+                evictTrain(trainId);
+            }
+        }
+    }
+
+    private TrainDaySeats seatsFor(Long trainId, LocalDate travelDate) {
+        InventoryKey key = new InventoryKey(trainId, travelDate);
+        TrainDaySeats seats = inventory.get(key);
+        if (seats != null) {
+            if (seats.isStale(refreshInterval)) {
+                refresh(trainId, travelDate, seats);
+            }
+            return seats;
+        }
+
+        // Load outside the map so a slow query never blocks other keys; the first loader wins
+        TrainDaySeats fresh = new TrainDaySeats(layout(trainId));
+        List<String> booked = seatReservationRepo.findSeatNumbers(trainId, travelDate);
+        fresh.set(fresh.bitsForLoaded(booked));
+        TrainDaySeats existing = inventory.putIfAbsent(key, fresh);
+        return existing != null ? existing : fresh;
+    }
+
+    private ReentrantLock lockFor(Long trainId, LocalDate travelDate) {
+        int h = 31 * Long.hashCode(trainId) + travelDate.hashCode();
+        return locks[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private TrainLayout layout(Long trainId) {
+        TrainLayout layout = layouts.get(trainId);
+        if (layout != null) {
+            return layout;
+        }
+        List<Coach> coaches = coachRepo.findByTrainIdOrderByPositionNo(trainId);
+        Train train = coaches.isEmpty() ? trainRepo.findById(trainId).orElse(null) : null;
+        TrainLayout fresh = layoutOf(train, coaches);
+        TrainLayout existing = layouts.putIfAbsent(trainId, fresh);
+        return existing != null ? existing : fresh;
+    }
+
+    // The train is only needed, and may be null, when it has no coaches
+    private static TrainLayout layoutOf(Train train, List<Coach> coaches) {
+        if (!coaches.isEmpty()) {
+            return TrainLayout.of(coaches);
+        }
+        return TrainLayout.general(train == null ? 0 : train.getSeatsAvailable(), train == null ? 0 : train.getPrice());
+    }
+
+    record InventoryKey(long trainId, LocalDate travelDate) {
+    }
+
+    /*
+     * A train's classes and coaches, and the bit position of each seat label. With a coach
+     * layout, each coach owns a contiguous run of bits and only its seats can be booked;
+     * labels outside the layout (bookings made before it changed) get bits past the end
+     * that count towards no coach. Without one, labels are free-form and every seat belongs
+     * to a single general coach. Labels outside the layout are numbered per travel date, see
+     * TrainDaySeats, so they never outlive the booking that used them.
+     */
+    static final class TrainLayout {
+        final SeatClass[] classes;
+        final int[] classCapacity;
+        final long[] classPrice;
+        final String[] coachCodes;
+        final int[] coachClass;
+        final int[] coachStart;
+        final int[] coachSize;
+        final long[] coachPrice;
+        private final boolean fixed;
+        private final int layoutBits;
+        // Filled once here and only read afterwards
+        private final Map<String, Integer> bits = new HashMap<>();
+
+        private TrainLayout(List<Coach> coaches, boolean fixed) {
+            this.fixed = fixed;
+            Map<SeatClass, Integer> classIndex = new LinkedHashMap<>();
+            for (Coach coach : coaches) {
+                classIndex.putIfAbsent(coach.getSeatClass(), classIndex.size());
+            }
+            classes = classIndex.keySet().toArray(new SeatClass[0]);
+            classCapacity = new int[classes.length];
+            classPrice = new long[classes.length];
+
+            coachCodes = new String[coaches.size()];
+            coachClass = new int[coaches.size()];
+            coachStart = new int[coaches.size()];
+            coachSize = new int[coaches.size()];
+            coachPrice = new long[coaches.size()];
+            int bit = 0;
+            for (int c = 0; c < coaches.size(); c++) {
+                Coach coach = coaches.get(c);
+                int k = classIndex.get(coach.getSeatClass());
+                coachCodes[c] = coach.getCode();
+                coachClass[c] = k;
+                coachStart[c] = bit;
+                coachSize[c] = coach.getSeatCount();
+                coachPrice[c] = coach.getPrice();
+                classCapacity[k] += coach.getSeatCount();
+                if (classPrice[k] == 0) {
+                    classPrice[k] = coach.getPrice();
+                }
+                if (fixed) {
+                    for (int seat = 1; seat <= coach.getSeatCount(); seat++) {
+                        bits.put(normalizeSeat(coach.seatLabel(seat)), bit + seat - 1);
+                    }
+                    bit += coach.getSeatCount();
+                }
+            }
+            layoutBits = bit;
+        }
+
+        static TrainLayout of(List<Coach> coaches) {
+            return new TrainLayout(coaches, true);
+        }
+
+        static TrainLayout general(long capacity, long price) {
+            Coach coach = Coach.builder().code(SeatClass.GENERAL.getCode()).seatClass(SeatClass.GENERAL)
+                    .seatCount((int) Math.min(capacity, Integer.MAX_VALUE)).price(price).build();
+            return new TrainLayout(List.of(coach), false);
+        }
+
+        // Same classes, coaches, sizes and fares, and so the same seat labels
+        boolean sameShape(TrainLayout other) {
+            return fixed == other.fixed
+                    && Arrays.equals(classes, other.classes)
+                    && Arrays.equals(classCapacity, other.classCapacity)
+                    && Arrays.equals(classPrice, other.classPrice)
+                    && Arrays.equals(coachCodes, other.coachCodes)
+                    && Arrays.equals(coachClass, other.coachClass)
+                    && Arrays.equals(coachSize, other.coachSize)
+                    && Arrays.equals(coachPrice, other.coachPrice);
+        }
+
+        // Coach a bit belongs to, or -1 for a seat outside the layout
+        int coachOf(int bit) {
+            if (!fixed) {
+                return 0;
+            }
+            if (bit >= layoutBits) {
+                return -1;
+            }
+            int at = Arrays.binarySearch(coachStart, bit);
+            return at >= 0 ? at : -at - 2;
+        }
+    }
+
+    // Not thread-safe on its own; always accessed under the stripe lock of its key
+    static final class TrainDaySeats {
+        final TrainLayout layout;
+        private final BitSet booked = new BitSet();
+        // Reserved here by transactions that have not finished, so not in the database yet
+        private final BitSet pending = new BitSet();
+        private final int[] bookedPerCoach;
+        private final int[] bookedPerClass;
+        // Seats changed here while a refresh is reading the database, null when none is
+        private BitSet touched;
+        // Booked labels outside the layout and their bits, numbered from the end of the layout's;
+        // a bit is handed back as soon as its seat is free again
+        private final Map<String, Integer> extraBits = new HashMap<>();
+        private final Map<Integer, String> extraLabels = new HashMap<>();
+        private final BitSet extraInUse = new BitSet();
+        private volatile long loadedAt = System.nanoTime();
+
+        TrainDaySeats(TrainLayout layout) {
+            this.layout = layout;
+            this.bookedPerCoach = new int[layout.coachCodes.length];
+            this.bookedPerClass = new int[layout.classes.length];
+        }
+
+        // Read without the lock; at worst two callers both decide to refresh and one of them skips it
+        boolean isStale(Duration refreshInterval) {
+            return System.nanoTime() - loadedAt > refreshInterval.toNanos();
+        }
+
+        boolean startRefresh() {
+            if (touched != null) {
+                return false;
+            }
+            touched = new BitSet();
+            return true;
+        }
+
+        /*
+         * Takes what the database held when the refresh read it, plus the pending seats, for
+         * every seat not touched here since; null when the read failed. Returns whether
+         * anything changed.
+         */
+        boolean finishRefresh(List<String> stored) {
+            BitSet skip = touched;
+            touched = null;
+            loadedAt = System.nanoTime();
+            if (stored == null) {
+                return false;
+            }
+            BitSet truth = (BitSet) pending.clone();
+            for (int bit : bitsForLoaded(stored)) {
+                truth.set(bit);
+            }
+            boolean changed = false;
+            for (int bit = booked.nextSetBit(0); bit >= 0; bit = booked.nextSetBit(bit + 1)) {
+                if (!truth.get(bit) && !skip.get(bit)) {
+                    booked.clear(bit);
+                    count(bit, -1);
+                    changed = true;
+                }
+            }
+            for (int bit = truth.nextSetBit(0); bit >= 0; bit = truth.nextSetBit(bit + 1)) {
+                if (!booked.get(bit) && !skip.get(bit)) {
+                    booked.set(bit);
+                    count(bit, 1);
+                    changed = true;
+                }
+            }
+            forgetUnbooked(extraLabels.keySet().stream().mapToInt(Integer::intValue).toArray());
+            return changed;
+        }
+
+        // Seats not in the layout are refused with a layout, and numbered while booked without one
+        int[] bitsForBooking(Collection<String> seatNumbers) {
+            int[] bits = new int[seatNumbers.size()];
+            int n = 0;
+            for (String label : seatNumbers) {
+                int bit = bitOf(label);
+                if (bit < 0 && layout.fixed) {
+                    throw new IllegalArgumentException("Seat " + label + " does not exist on this train");
+                }
+                bits[n++] = bit < 0 ? extraBit(normalizeSeat(label)) : bit;
+            }
+            return Arrays.stream(bits).distinct().toArray();
+        }
+
+        // Seats read from the database, which may lie outside the layout if it changed since
+        int[] bitsForLoaded(Collection<String> seatNumbers) {
+            return seatNumbers.stream().mapToInt(label -> {
+                int bit = bitOf(label);
+                return bit < 0 ? extraBit(normalizeSeat(label)) : bit;
+            }).distinct().toArray();
+        }
+
+        // Only the seats known here; any other is not booked on this date
+        int[] bitsOf(Collection<String> seatNumbers) {
+            return seatNumbers.stream().mapToInt(this::bitOf).filter(bit -> bit >= 0).distinct().toArray();
+        }
+
+        // Hands back the bits of labels outside the layout that turned out not to be booked
+        void forgetUnbooked(int[] bits) {
+            for (int bit : bits) {
+                if (bit >= layout.layoutBits && !booked.get(bit) && !pending.get(bit)) {
+                    String label = extraLabels.remove(bit);
+                    if (label != null) {
+                        extraBits.remove(label);
+                        extraInUse.clear(bit - layout.layoutBits);
+                    }
+                }
+            }
+        }
+
+        private int bitOf(String label) {
+            String normalized = normalizeSeat(label);
+            Integer bit = layout.bits.get(normalized);
+            if (bit == null) {
+                bit = extraBits.get(normalized);
+            }
+            return bit == null ? -1 : bit;
+        }
+
+        private int extraBit(String label) {
+            Integer bit = extraBits.get(label);
+            if (bit != null) {
+                return bit;
+            }
+            int slot = extraInUse.nextClearBit(0);
+            extraInUse.set(slot);
+            int free = layout.layoutBits + slot;
+            extraBits.put(label, free);
+            extraLabels.put(free, label);
+            return free;
+        }
+
+        // Null if the seats can be booked, otherwise why not
+        String refusal(int[] bits) {
+            if (!isFree(bits)) {
+                return "One or more of the selected seats are already booked for this date!";
+            }
+            if (!hasRoom(bits)) {
+                return "Not enough seats left in this class for this date!";
+            }
+            return null;
+        }
+
+        void hold(int[] bits) {
+            for (int bit : bits) {
+                pending.set(bit);
+            }
+        }
+
+        // The transaction holding these seats is over; a refresh under way must not undo what it did
+        void settle(int[] bits) {
+            for (int bit : bits) {
+                pending.clear(bit);
+                touch(bit);
+            }
+        }
+
+        boolean isFree(String label) {
+            int bit = bitOf(label);
+            return bit < 0 || !booked.get(bit);
+        }
+
+        boolean isFree(int[] bits) {
+            for (int bit : bits) {
+                if (booked.get(bit)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Whether booking these (free) seats keeps every class within its capacity
+        boolean hasRoom(int[] bits) {
+            int[] wanted = new int[bookedPerClass.length];
+            for (int bit : bits) {
+                int coach = layout.coachOf(bit);
+                if (coach >= 0 && !booked.get(bit)) {
+                    wanted[layout.coachClass[coach]]++;
+                }
+            }
+            for (int k = 0; k < wanted.length; k++) {
+                if (wanted[k] > 0 && bookedPerClass[k] + wanted[k] > layout.classCapacity[k]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void set(int[] bits) {
+            for (int bit : bits) {
+                if (!booked.get(bit)) {
+                    booked.set(bit);
+                    count(bit, 1);
+                    touch(bit);
+                }
+            }
+        }
+
+        void clear(int[] bits) {
+            for (int bit : bits) {
+                if (booked.get(bit)) {
+                    booked.clear(bit);
+                    count(bit, -1);
+                    touch(bit);
+                }
+            }
+        }
+
+        int count() {
+            return booked.cardinality();
+        }
+
+        int availableInClass(int k) {
+            return Math.max(0, layout.classCapacity[k] - bookedPerClass[k]);
+        }
+
+        int availableInCoach(int c) {
+            return Math.max(0, layout.coachSize[c] - bookedPerCoach[c]);
+        }
+
+        List<String> freeSeats(int c) {
+            if (!layout.fixed) {
+                return List.of();
+            }
+            List<String> free = new ArrayList<>(availableInCoach(c));
+            int start = layout.coachStart[c];
+            for (int seat = 0; seat < layout.coachSize[c]; seat++) {
+                if (!booked.get(start + seat)) {
+                    free.add(layout.coachCodes[c] + "-" + (seat + 1));
+                }
+            }
+            return free;
+        }
+
+        private void touch(int bit) {
+            if (touched != null) {
+                touched.set(bit);
+            }
+        }
+
+        private void count(int bit, int delta) {
+            int coach = layout.coachOf(bit);
+            if (coach >= 0) {
+                bookedPerCoach[coach] += delta;
+                bookedPerClass[layout.coachClass[coach]] += delta;
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.FulfilmentStatus;
+import com.example.demo.model.TicketFulfilment;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TicketFulfilmentRepository;
+import com.example.demo.storage.StoredTicket;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders and mails tickets for paid bookings off the request thread.
+ * <p>
+ * Work flows through two bounded stages, render then email, each with its own small
+ * thread pool. A {@link TicketFulfilment} outbox row is the source of truth: when a
+ * stage queue is full the row simply stays due and the poller hands it over again once
+ * there is room, and the same poller resumes anything left behind by a restart.
+ * Failed attempts are retried with exponential backoff until {@code maxAttempts}; a full
+ * queue or an open mail circuit only postpones the row and costs no attempt.
+ */
+@Service
+public class TicketFulfilmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketFulfilmentService.class);
+    private static final Set<FulfilmentStatus> OPEN = EnumSet.of(FulfilmentStatus.PENDING, FulfilmentStatus.RENDERED);
+    // Length of the last_error column
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private TicketFulfilmentRepository fulfilmentRepo;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private TicketService ticketService;
+    @Autowired
+    private EmailService emailService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rail.fulfilment.render-threads:2}")
+    private int renderThreads;
+    @Value("${rail.fulfilment.email-threads:2}")
+    private int emailThreads;
+    @Value("${rail.fulfilment.queue-capacity:200}")
+    private int queueCapacity;
+    @Value("${rail.fulfilment.max-attempts:6}")
+    private int maxAttempts;
+    @Value("${rail.fulfilment.retry-backoff:PT30S}")
+    private Duration retryBackoff;
+    @Value("${rail.fulfilment.lease:PT5M}")
+    private Duration lease;
+
+    private ThreadPoolExecutor renderStage;
+    private ThreadPoolExecutor emailStage;
+    private Timer renderTimer;
+    private Timer emailTimer;
+    private final AtomicLong backlog = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        renderStage = stage("ticket-render", renderThreads);
+        emailStage = stage("ticket-email", emailThreads);
+
+        Gauge.builder("rail.fulfilment.queue.depth", renderStage, e -> e.getQueue().size())
+                .tag("stage", "render").register(meterRegistry);
+        Gauge.builder("rail.fulfilment.queue.depth", emailStage, e -> e.getQueue().size())
+                .tag("stage", "email").register(meterRegistry);
+        Gauge.builder("rail.fulfilment.outbox.backlog", backlog, AtomicLong::get)
+                .description("Tickets paid for but not yet mailed")
+                .register(meterRegistry);
+        renderTimer = Timer.builder("rail.fulfilment.stage.latency").tag("stage", "render").register(meterRegistry);
+        emailTimer = Timer.builder("rail.fulfilment.stage.latency").tag("stage", "email").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        renderStage.shutdown();
+        emailStage.shutdown();
+        renderStage.awaitTermination(10, TimeUnit.SECONDS);
+        emailStage.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Records that the booking's ticket must be fulfilled. Must run inside the transaction
+     * that marks the booking paid; the ticket is handed to the pipeline once it commits.
+     */
+    public void schedule(Long bookingId) {
+        if (fulfilmentRepo.existsByBookingId(bookingId)) {
+            return;
+        }
+        // Kept to the column's precision, as the claim matches the row by exactly this value
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        TicketFulfilment row = fulfilmentRepo.save(TicketFulfilment.builder()
+                .bookingId(bookingId)
+                .status(FulfilmentStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(row);
+            }
+        });
+    }
+
+    // Picks up rows that were rejected by a full stage, are due for a retry, or were orphaned by a restart
+    @Scheduled(fixedDelayString = "${rail.fulfilment.poll-interval:PT10S}")
+    public void pollOutbox() {
+        backlog.set(fulfilmentRepo.countByStatusIn(OPEN));
+        int room = renderStage.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        for (TicketFulfilment row : fulfilmentRepo.findDue(OPEN, LocalDateTime.now(), PageRequest.of(0, room))) {
+            dispatch(row);
+        }
+    }
+
+    private void dispatch(TicketFulfilment row) {
+        LocalDateTime leaseUntil = LocalDateTime.now().plus(lease);
+        if (fulfilmentRepo.claim(row.getId(), row.getStatus(), row.getNextAttemptAt(), leaseUntil) == 0) {
+            return; // someone else owns it
+        }
+        row.setNextAttemptAt(leaseUntil);
+
+        ThreadPoolExecutor target = row.getStatus() == FulfilmentStatus.RENDERED ? emailStage : renderStage;
+        Runnable work = row.getStatus() == FulfilmentStatus.RENDERED ? () -> email(row, null) : () -> render(row);
+        submit(target, row, work);
+    }
+
+    private void render(TicketFulfilment row) {
+        long start = System.nanoTime();
+        try {
+            Booking booking = bookingRepo.findForTicket(row.getBookingId())
+                    .orElseThrow(() -> new IllegalStateException("Booking " + row.getBookingId() + " no longer exists"));
+            ticketService.storeTicket(booking);
+            renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            row.setStatus(FulfilmentStatus.RENDERED);
+            fulfilmentRepo.save(row);
+            submit(emailStage, row, () -> email(row, booking));
+        } catch (Exception e) {
+            fail(row, e);
+        }
+    }
+
+    private void email(TicketFulfilment row, Booking loaded) {
+        long start = System.nanoTime();
+        try {
+            Booking booking = loaded != null ? loaded : bookingRepo.findForTicket(row.getBookingId())
+                    .orElseThrow(() -> new IllegalStateException("Booking " + row.getBookingId() + " no longer exists"));
+            // Re-renders the ticket if storage lost it since the render stage
+            StoredTicket ticket = ticketService.ticketFor(booking.getId())
+                    .orElseThrow(() -> new IllegalStateException("Booking " + booking.getId() + " is not paid"));
+            // Mail goes out in batches on the mail service's own senders; this thread only queues it
+            emailService.sendBookingEmail(
+                    booking.getEmail(),
+                    "Your Railway Reservation Ticket",
+                    "Payment successful! Please find your ticket attached.",
+                    "Ticket_" + booking.getId() + ".pdf",
+                    ticket.resource()
+            ).whenComplete((sent, error) -> {
+                if (error == null) {
+                    emailTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    row.setStatus(FulfilmentStatus.SENT);
+                    row.setLastError(null);
+                    fulfilmentRepo.save(row);
+                } else if (error instanceof RejectedExecutionException
+                        || error instanceof EmailService.MailCircuitOpenException) {
+                    // A full queue or a mail server outage says nothing about this ticket; an outage
+                    // outlasting every attempt must not fail tickets for good
+                    postpone(row);
+                } else {
+                    fail(row, error);
+                }
+            });
+        } catch (Exception e) {
+            fail(row, e);
+        }
+    }
+
+    private void submit(ThreadPoolExecutor stage, TicketFulfilment row, Runnable work) {
+        try {
+            stage.execute(work);
+        } catch (RejectedExecutionException e) {
+            postpone(row);
+        }
+    }
+
+    // Back-pressure: make the row due again without counting an attempt, and let the poller retry later
+    private void postpone(TicketFulfilment row) {
+        row.setNextAttemptAt(LocalDateTime.now().plus(retryBackoff));
+        fulfilmentRepo.save(row);
+    }
+
+    private void fail(TicketFulfilment row, Throwable e) {
+        int attempts = row.getAttempts() + 1;
+        row.setAttempts(attempts);
+        String error = String.valueOf(e.getMessage());
+        row.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        meterRegistry.counter("rail.fulfilment.failures", "status", row.getStatus().name()).increment();
+
+        if (attempts >= maxAttempts) {
+            log.error("Giving up on ticket for booking {} after {} attempts", row.getBookingId(), attempts, e);
+            row.setStatus(FulfilmentStatus.FAILED);
+        } else {
+            long factor = 1L << Math.min(attempts - 1, 10);
+            row.setNextAttemptAt(LocalDateTime.now().plus(retryBackoff.multipliedBy(factor)));
+            log.warn("Ticket for booking {} failed (attempt {}), retrying later: {}", row.getBookingId(), attempts, e.getMessage());
+        }
+        fulfilmentRepo.save(row);
+    }
+
+    private ThreadPoolExecutor stage(String name, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
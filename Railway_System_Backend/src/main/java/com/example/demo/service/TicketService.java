@@ -0,0 +1,52 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Booking;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.storage.StoredTicket;
+import com.example.demo.storage.TicketStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Looks up a booking's ticket in the {@link TicketStore}, rendering and storing it on
+ * demand when it was never produced or has been lost from storage.
+ */
+@Service
+public class TicketService {
+
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private TicketStore ticketStore;
+    @Autowired
+    private PdfGeneratorService pdfService;
+
+    public StoredTicket storeTicket(Booking booking) throws IOException {
+        String digest = ticketStore.put(pdfService.renderTicket(booking));
+        bookingRepo.updateTicketDigest(booking.getId(), digest);
+        return ticketStore.get(digest)
+                .orElseThrow(() -> new IOException("Ticket " + digest + " vanished right after it was stored"));
+    }
+
+    /**
+     * The ticket of a paid booking; empty if the booking does not exist or is not paid yet.
+     */
+    public Optional<StoredTicket> ticketFor(Long bookingId) throws IOException {
+        String digest = bookingRepo.findTicketDigest(bookingId).orElse(null);
+        if (digest != null) {
+            Optional<StoredTicket> stored = ticketStore.get(digest);
+            if (stored.isPresent()) {
+                return stored;
+            }
+        }
+
+        Optional<Booking> booking = bookingRepo.findForTicket(bookingId).filter(Booking::isPaid);
+        if (booking.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(storeTicket(booking.get()));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel for a large number of id deadlines, such as seat holds. Scheduling and
+ * cancelling are O(1) and never block; one thread advances the wheel a tick at a time and
+ * hands the ids that came due to the callback in one batch per tick. Deadlines are rounded
+ * up to whole ticks.
+ * <p>
+ * Buckets are only touched by the wheel thread: new deadlines wait in a lock-free queue
+ * until the next tick, and cancelled ones are dropped lazily when their bucket comes round.
+ */
+class TimerWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(TimerWheel.class);
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Queue<Entry>> buckets;
+    private final Queue<Entry> incoming = new ConcurrentLinkedQueue<>();
+    // The live entry of each id; anything else found in a bucket has been cancelled or replaced
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final Consumer<List<Long>> onExpired;
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * @param wheelSize buckets in the wheel, rounded up to a power of two; deadlines further
+     *                  out than a full turn simply go round more than once
+     */
+    TimerWheel(String name, Duration tickDuration, int wheelSize, Consumer<List<Long>> onExpired) {
+        this.tickNanos = tickDuration.toNanos();
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.onExpired = onExpired;
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Fires the id after the delay, replacing any deadline it already had. A delay that has
+     * already passed fires on the next tick.
+     */
+    void schedule(long id, Duration delay) {
+        long deadline = (System.nanoTime() - startNanos + Math.max(0, delay.toNanos()) + tickNanos - 1) / tickNanos;
+        Entry entry = new Entry(id, deadline);
+        byId.put(id, entry);
+        incoming.add(entry);
+    }
+
+    void cancel(long id) {
+        byId.remove(id);
+    }
+
+    // Ids waiting to fire
+    int size() {
+        return byId.size();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                long due = (System.nanoTime() - startNanos) / tickNanos;
+                if (tick > due) {
+                    TimeUnit.NANOSECONDS.sleep(tick * tickNanos - (System.nanoTime() - startNanos));
+                    continue;
+                }
+                // Catch up tick by tick should the callback have taken longer than a tick
+                List<Long> expired = new ArrayList<>();
+                while (tick <= due) {
+                    transferIncoming();
+                    expire(buckets.get((int) (tick & mask)), expired);
+                    tick++;
+                }
+                if (!expired.isEmpty()) {
+                    onExpired.accept(expired);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // The ids are lost from the wheel; whoever schedules them keeps a slower fallback
+                log.error("Timer wheel callback failed", e);
+            }
+        }
+    }
+
+    private void transferIncoming() {
+        Entry entry;
+        while ((entry = incoming.poll()) != null) {
+            if (byId.get(entry.id) != entry) {
+                continue;
+            }
+            long at = Math.max(entry.deadline, tick);
+            buckets.get((int) (at & mask)).add(entry);
+        }
+    }
+
+    private void expire(Queue<Entry> bucket, List<Long> expired) {
+        Iterator<Entry> it = bucket.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (byId.get(entry.id) != entry) {
+                it.remove();
+            } else if (entry.deadline <= tick) {
+                it.remove();
+                if (byId.remove(entry.id, entry)) {
+                    expired.add(entry.id);
+                }
+            }
+        }
+    }
+
+    private record Entry(long id, long deadline) {
+    }
+}
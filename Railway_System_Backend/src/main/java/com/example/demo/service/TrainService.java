@@ -1,11 +1,32 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.InvalidationBus;
+import com.example.demo.dto.CoachAvailabilityDTO;
+import com.example.demo.dto.SeatAvailabilityDTO;
 import com.example.demo.dto.TrainDTO;
+import com.example.demo.model.Coach;
+import com.example.demo.model.SeatClass;
 import com.example.demo.model.Train;
+import com.example.demo.repository.CoachRepository;
 import com.example.demo.repository.TrainRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -13,10 +34,135 @@ import java.util.stream.Collectors;
 @Service
 public class TrainService {
 
+    private static final String TOPIC = "train";
+
     @Autowired
     private TrainRepository trainRepository;
+    @Autowired
+    private CoachRepository coachRepository;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private RouteIndex routeIndex;
+    @Autowired
+    private InvalidationBus invalidationBus;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rail.cache.trains.max-size:10000}")
+    private long cacheMaxSize;
+    @Value("${rail.cache.trains.ttl:PT5M}")
+    private Duration cacheTtl;
 
-    private TrainDTO toDto(Train train) {
+    // Read-through caches for the public catalogue endpoints; the TTL bounds staleness
+    // should an invalidation from another node ever be missed
+    private Cache<Long, TrainDTO> trainsById;
+    private Cache<String, List<TrainDTO>> allTrains;
+
+    @PostConstruct
+    void init() {
+        trainsById = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        allTrains = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, trainsById, "trains.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, allTrains, "trains.all");
+
+        routeIndex.rebuild(trainRepository.findAll().stream()
+                .map(TrainService::toDto)
+                .collect(Collectors.toList()));
+        invalidationBus.subscribe(TOPIC, this::onTrainChanged);
+    }
+
+    /*
+     * The route index and seat layouts have no TTL, so they are checked against the database
+     * now and then in case this node missed a change event. Serialized with the events, so a
+     * rebuild from an older read never replaces a newer change.
+     */
+    @Scheduled(fixedDelayString = "${rail.cache.invalidation.resync-interval:PT5M}",
+            initialDelayString = "${rail.cache.invalidation.resync-interval:PT5M}")
+    public synchronized void resync() {
+        routeIndex.rebuild(trainRepository.findAll().stream()
+                .map(TrainService::toDto)
+                .collect(Collectors.toList()));
+        seatInventory.refreshLayouts();
+    }
+
+    // Runs on every node, for changes made here as well as elsewhere
+    private synchronized void onTrainChanged(long id) {
+        trainsById.invalidate(id);
+        allTrains.invalidateAll();
+        // Its seat layout or capacity may have changed; the inventory reloads it on next use
+        seatInventory.evictTrain(id);
+        Optional<Train> train = trainRepository.findById(id);
+        if (train.isPresent()) {
+            routeIndex.put(toDto(train.get()));
+        } else {
+            routeIndex.remove(id);
+        }
+    }
+
+    // Tell every node once the change is visible in the database, not before
+    private void publishAfterCommit(long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidationBus.publish(TOPIC, id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidationBus.publish(TOPIC, id);
+            }
+        });
+    }
+
+    /*
+     * Replaces the train's coaches with the classes the admin sized. Each class gets as many
+     * coaches of its standard size as it needs, the last one taking the remainder. Classes
+     * without a capacity are left out; if none has one, the current layout is kept.
+     */
+    private void saveLayout(Train train, List<SeatAvailabilityDTO> classes) {
+        if (classes == null) {
+            return;
+        }
+        List<Coach> coaches = new ArrayList<>();
+        for (SeatAvailabilityDTO seats : classes) {
+            Integer capacity = seats.getCapacity() != null ? seats.getCapacity() : seats.getAvailableSeats();
+            if (capacity == null || capacity <= 0) {
+                continue;
+            }
+            SeatClass seatClass = SeatClass.fromCode(seats.getSeatClass());
+            long price = seats.getPrice() != null && seats.getPrice() > 0 ? seats.getPrice() : train.getPrice();
+            int remaining = capacity;
+            for (int n = 1; remaining > 0; n++) {
+                int size = Math.min(remaining, seatClass.getSeatsPerCoach());
+                coaches.add(Coach.builder()
+                        .trainId(train.getId())
+                        .code(seatClass.getCoachPrefix() + n)
+                        .seatClass(seatClass)
+                        .seatCount(size)
+                        .price(price)
+                        .positionNo(coaches.size() + 1)
+                        .build());
+                remaining -= size;
+            }
+        }
+        if (coaches.isEmpty()) {
+            return;
+        }
+        coachRepository.deleteByTrainId(train.getId());
+        coachRepository.saveAll(coaches);
+        // The train's headline figure is the total of its classes
+        train.setSeatsAvailable(coaches.stream().mapToLong(Coach::getSeatCount).sum());
+    }
+
+    static TrainDTO toDto(Train train) {
         TrainDTO dto = new TrainDTO();
         dto.setId(train.getId());
         dto.setTrainNumber(train.getTrainNumber());
@@ -43,31 +189,55 @@ public class TrainService {
         train.setPrice(dto.getPrice()); // Add this
         return train;
     }
+    @Transactional
     public TrainDTO addTrain(TrainDTO dto) {
         Train train = toEntity(dto);
         Train saved = trainRepository.save(train);
+        saveLayout(saved, dto.getSeatAvailability());
+        publishAfterCommit(saved.getId());
         return toDto(saved);
     }
-    public List<TrainDTO> searchTrains(String from, String to, String date) {
-        // Note: The 'date' parameter is currently unused in this logic.
-        // This finds trains by matching origin and destination.
-        return trainRepository.findByOriginAndDestination(from, to).stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+
+    /**
+     * Searches the in-memory route index; stations match case-insensitively by prefix.
+     * A size of 0 returns every match.
+     */
+    public List<TrainDTO> searchTrains(String from, String to, LocalDate date, int page, int size) {
+        return routeIndex.search(from, to, date, page, size, LocalDateTime.now());
     }
 
     public List<TrainDTO> getAllTrains() {
-        return trainRepository.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return allTrains.get("all", k -> trainRepository.findAll().stream()
+                .map(TrainService::toDto)
+                .collect(Collectors.toUnmodifiableList()));
     }
 
     public TrainDTO getTrainById(Long id) {
-        return trainRepository.findById(id)
-                .map(this::toDto)
-                .orElseThrow(() -> new IllegalArgumentException("Train not found with id: " + id));
+        // A missing train is not cached, so it shows up as soon as it is added
+        TrainDTO train = trainsById.get(id, key -> trainRepository.findById(key).map(TrainService::toDto).orElse(null));
+        if (train == null) {
+            throw new IllegalArgumentException("Train not found with id: " + id);
+        }
+        return train;
+    }
+
+    /**
+     * The train with live seat availability per class for the given travel date.
+     */
+    public TrainDTO getTrainDetails(Long id, LocalDate date) {
+        // The cached DTO is shared, so fill in a copy
+        TrainDTO details = new TrainDTO();
+        BeanUtils.copyProperties(getTrainById(id), details);
+        details.setSeatAvailability(seatInventory.classAvailability(id, date));
+        return details;
     }
 
+    public List<CoachAvailabilityDTO> getCoachAvailability(Long id, LocalDate date) {
+        getTrainById(id);
+        return seatInventory.coachAvailability(id, date);
+    }
+
+    @Transactional
     public TrainDTO updateTrain(Long id, TrainDTO dto) {
         Train existing = trainRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Train not found with id: " + id));
@@ -81,10 +251,15 @@ public class TrainService {
         existing.setSeatsAvailable(dto.getSeatsAvailable());
         existing.setPrice(dto.getPrice());
 
-        return toDto(trainRepository.save(existing));
+        saveLayout(existing, dto.getSeatAvailability());
+        Train saved = trainRepository.save(existing);
+        publishAfterCommit(saved.getId());
+        return toDto(saved);
     }
 
+    @Transactional
     public void deleteTrain(Long id) {
         trainRepository.deleteById(id);
+        publishAfterCommit(id);
     }
 }
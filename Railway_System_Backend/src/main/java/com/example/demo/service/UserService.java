@@ -1,71 +1,102 @@
 package com.example.demo.service;
+import com.example.demo.cache.InvalidationBus;
 import com.example.demo.security.JwtUtil;
 import com.example.demo.model.Role;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Logins and registrations. Hashing runs on the {@link PasswordHashingService} pool, so these
+ * methods return futures; a {@link java.util.concurrent.RejectedExecutionException} means the
+ * pool was saturated and nothing was checked or saved.
+ */
 @Service
 public class UserService {
 
+    // Published with the username whenever a user is created, so every node stops treating it as missing
+    static final String TOPIC = "users";
+
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private JwtUtil jwtUtil;
+    @Autowired
+    private PasswordHashingService passwordHashing;
+    @Autowired
+    private InvalidationBus invalidationBus;
 
-    public String loginAndGenerateToken(String username, String rawPassword) {
+    @Value("${rail.password.unknown-users.max-size:100000}")
+    private long unknownUsersMaxSize;
+    @Value("${rail.password.unknown-users.ttl:PT1M}")
+    private Duration unknownUsersTtl;
+
+    // Usernames recently looked up and not found, so a flood of logins for them skips the database
+    private Cache<String, Boolean> unknownUsers;
+
+    @PostConstruct
+    void init() {
+        unknownUsers = Caffeine.newBuilder()
+                .maximumSize(unknownUsersMaxSize)
+                .expireAfterWrite(unknownUsersTtl)
+                .build();
+        invalidationBus.subscribeKeys(TOPIC, unknownUsers::invalidate);
+    }
+
+    public CompletableFuture<String> loginAndGenerateToken(String username, String rawPassword) {
+        if (username == null || unknownUsers.getIfPresent(username) != null) {
+            throw new RuntimeException("User not found");
+        }
         Optional<User> optionalUser = userRepository.findByUsername(username);
-        if (optionalUser.isPresent()) {
-            User user = optionalUser.get();
-            if (passwordEncoder.matches(rawPassword, user.getPassword())) {
-                return jwtUtil.generateToken(user.getUsername(), user.getRole().name());
-            } else {
-                throw new RuntimeException("Invalid password");
-            }
-        } else {
+        if (optionalUser.isEmpty()) {
+            unknownUsers.put(username, Boolean.TRUE);
             throw new RuntimeException("User not found");
         }
+        User user = optionalUser.get();
+        return passwordHashing.submit(() -> {
+            if (!passwordEncoder.matches(rawPassword, user.getPassword())) {
+                throw new RuntimeException("Invalid password");
+            }
+            // Hashed at a lower cost than configured now; rehash while we have the password
+            if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+                user.setPassword(passwordEncoder.encode(rawPassword));
+                userRepository.save(user);
+            }
+            return jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole().name());
+        });
     }
 
-   
-    
-    // (Optional) If using password hashing
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    public User registerUser(String username, String rawPassword) {
-        User user = new User();
-        user.setUsername(username);
-        user.setPassword(passwordEncoder.encode(rawPassword));
-        user.setRole(Role.USER);
-        return userRepository.save(user);
-    }
-    public User login(String username, String rawPassword) {
-        Optional<User> optionalUser = userRepository.findByUsername(username);
-        if (optionalUser.isPresent()) {
-            User user = optionalUser.get();
-            if (passwordEncoder.matches(rawPassword, user.getPassword())) {
-                return user;
-            } else {
-                throw new RuntimeException("Invalid password");
-            }
-        } else {
-            throw new RuntimeException("User not found");
-        }
+    public CompletableFuture<User> registerUser(String username, String rawPassword) {
+        return create(username, rawPassword, Role.USER);
     }
 
+    public CompletableFuture<User> saveAdmin(String username, String rawPassword) {
+        return create(username, rawPassword, Role.ADMIN);
+    }
 
-    
-    public User saveAdmin(String username, String rawPassword) {
-        User admin = new User();
-        admin.setUsername(username);
-        admin.setPassword(passwordEncoder.encode(rawPassword));
-        admin.setRole(Role.ADMIN);
-        return userRepository.save(admin);
+    private CompletableFuture<User> create(String username, String rawPassword, Role role) {
+        return passwordHashing.submit(() -> {
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword(passwordEncoder.encode(rawPassword));
+            user.setRole(role);
+            User saved = userRepository.save(user);
+            invalidationBus.publish(TOPIC, saved.getUsername());
+            return saved;
+        });
     }
 
 }
@@ -0,0 +1,216 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SeatAvailabilityDTO;
+import com.example.demo.model.Booking;
+import com.example.demo.model.SeatClass;
+import com.example.demo.model.Train;
+import com.example.demo.model.WaitlistEntry;
+import com.example.demo.repository.WaitlistRepository;
+import com.example.demo.service.SeatInventoryService.InventoryKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands seats that come free to the waitlist. Every committed change to a (train, date) with
+ * people waiting queues it for one background thread, which walks each class's queue in
+ * order - priority, then first come first served - and books seats for the entries at its
+ * head, a batch at a time, until the next entry no longer fits. An entry that does not fit
+ * blocks the ones behind it, so nobody is overtaken by a smaller party.
+ * <p>
+ * Allocation can never hand out more seats than are free: each entry is booked through the
+ * ordinary booking path, which claims its seats in the inventory and in seat_reservation, and
+ * the entry is claimed with a conditional update in the same transaction. A periodic sweep
+ * covers changes made on other nodes.
+ * <p>
+ * The booking is unpaid, so its seats are held for {@code rail.waitlist.hold-window} - long
+ * enough for someone who was not expecting it - and the passenger is mailed that the seats
+ * are theirs once paid for by then. If they are not, the hold expires like any other and the
+ * seats go to the next in line.
+ */
+@Service
+public class WaitlistAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistAllocator.class);
+
+    @Autowired
+    private WaitlistRepository waitlistRepo;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private EmailService emailService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rail.waitlist.batch-size:50}")
+    private int batchSize;
+    @Value("${rail.waitlist.hold-window:PT12H}")
+    private Duration holdWindow;
+
+    private final Set<InventoryKey> dirty = ConcurrentHashMap.newKeySet();
+    private ExecutorService worker;
+    private TransactionTemplate tx;
+    private Counter allocated;
+
+    @PostConstruct
+    void start() {
+        tx = new TransactionTemplate(transactionManager);
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "waitlist-allocator");
+            t.setDaemon(true);
+            return t;
+        });
+        allocated = meterRegistry.counter("rail.waitlist.allocated");
+        seatInventory.onChange((trainId, travelDate) -> {
+            if (travelDate != null) {
+                submit(new InventoryKey(trainId, travelDate));
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        worker.shutdown();
+        worker.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Picks up seats freed on other nodes, whose changes only reach this node's inventory once
+    // it re-reads a stale copy when allocating, and expires entries for dates that have gone by
+    @Scheduled(fixedDelayString = "${rail.waitlist.sweep-interval:PT1M}")
+    public void sweep() {
+        LocalDate today = LocalDate.now();
+        tx.executeWithoutResult(status -> waitlistRepo.expirePast(today));
+        for (WaitlistRepository.TrainDay day : waitlistRepo.findWaitingTrainDays(today)) {
+            submit(new InventoryKey(day.getTrainId(), day.getTravelDate()));
+        }
+    }
+
+    private void submit(InventoryKey key) {
+        // A burst of cancellations for the same train and date is served in one pass
+        if (dirty.add(key)) {
+            worker.execute(() -> {
+                dirty.remove(key);
+                try {
+                    allocate(key);
+                } catch (RuntimeException e) {
+                    log.error("Waitlist allocation failed for train {} on {}", key.trainId(), key.travelDate(), e);
+                }
+            });
+        }
+    }
+
+    private void allocate(InventoryKey key) {
+        if (key.travelDate().isBefore(LocalDate.now()) || !waitlistRepo.anyWaiting(key.trainId(), key.travelDate())) {
+            return;
+        }
+        for (SeatAvailabilityDTO seatClass : seatInventory.classAvailability(key.trainId(), key.travelDate())) {
+            if (seatClass.getAvailableSeats() > 0) {
+                allocateClass(key, SeatClass.fromCode(seatClass.getSeatClass()));
+            }
+        }
+    }
+
+    private void allocateClass(InventoryKey key, SeatClass seatClass) {
+        while (true) {
+            List<WaitlistEntry> head = waitlistRepo.findWaiting(key.trainId(), key.travelDate(), seatClass,
+                    PageRequest.of(0, batchSize));
+            for (WaitlistEntry entry : head) {
+                if (!allocateEntry(entry)) {
+                    return;
+                }
+            }
+            if (head.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Whether the entry was served (or dropped out of the queue meanwhile); false stops the queue
+    private boolean allocateEntry(WaitlistEntry entry) {
+        List<String> seats = seatInventory.pickFreeSeats(entry.getTrainId(), entry.getTravelDate(),
+                entry.getSeatClass(), entry.getSeatCount());
+        if (seats.isEmpty()) {
+            return false;
+        }
+        try {
+            Booking served = tx.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                Booking booking = bookingService.bookTicket(request(entry), seats, entry.getUserId(),
+                        now.plus(holdWindow));
+                if (waitlistRepo.markAllocated(entry.getId(), booking.getId(), now) == 0) {
+                    // Withdrawn, or served by another node, since it was read
+                    status.setRollbackOnly();
+                    return null;
+                }
+                return booking;
+            });
+            if (served != null) {
+                allocated.increment();
+                notifyAllocated(entry, served, seats);
+            }
+            return true;
+        } catch (IllegalStateException e) {
+            // Someone booked the seats first; their booking commits a change that brings us back here
+            log.debug("Seats for waitlist entry {} were taken meanwhile: {}", entry.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void notifyAllocated(WaitlistEntry entry, Booking booking, List<String> seats) {
+        String body = String.format("Dear %s,%n%n"
+                        + "Seats have come free on train %s (%s) for %s and are now held for you: %s.%n"
+                        + "Please pay for booking %d before %s to keep them; after that they go to "
+                        + "the next passenger on the waitlist.%n",
+                entry.getPassengerName(), booking.getTrain().getTrainName(),
+                booking.getTrain().getTrainNumber(), entry.getTravelDate(), String.join(", ", seats),
+                booking.getId(), booking.getHoldExpiresAt().truncatedTo(ChronoUnit.MINUTES));
+        try {
+            emailService.sendNotice(entry.getEmail(), "Your waitlisted seats are available", body)
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            log.warn("Could not mail waitlist entry {} about booking {}: {}",
+                                    entry.getId(), booking.getId(), error.getMessage());
+                        }
+                    });
+        } catch (MessagingException e) {
+            log.warn("Could not mail waitlist entry {} about booking {}: {}", entry.getId(), booking.getId(), e.getMessage());
+        }
+    }
+
+    private static Booking request(WaitlistEntry entry) {
+        Train train = new Train();
+        train.setId(entry.getTrainId());
+        Booking booking = new Booking();
+        booking.setTrain(train);
+        booking.setPassengerName(entry.getPassengerName());
+        booking.setEmail(entry.getEmail());
+        booking.setBookingDate(entry.getTravelDate().atStartOfDay());
+        return booking;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SeatAvailabilityDTO;
+import com.example.demo.dto.WaitlistEntryDTO;
+import com.example.demo.dto.WaitlistRequest;
+import com.example.demo.model.SeatClass;
+import com.example.demo.model.WaitlistEntry;
+import com.example.demo.model.WaitlistStatus;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.WaitlistRepository;
+import com.example.demo.security.PrincipalCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class WaitlistService {
+
+    @Autowired
+    private WaitlistRepository waitlistRepo;
+    @Autowired
+    private PrincipalCache principals;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private SeatInventoryService seatInventory;
+
+    /**
+     * Queues the request. Only full classes have a waitlist; while the class still has the
+     * seats asked for, they should simply be booked.
+     */
+    @Transactional
+    public WaitlistEntryDTO join(WaitlistRequest request, String username, boolean isAdmin) {
+        Long userId = principals.idOf(username);
+        if (!trainRepo.existsById(request.trainId())) {
+            throw new IllegalArgumentException("Train not found with id: " + request.trainId());
+        }
+        if (request.travelDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Travel date is in the past");
+        }
+        SeatClass seatClass = SeatClass.fromCode(request.seatClass());
+        SeatAvailabilityDTO availability = seatInventory.classAvailability(request.trainId(), request.travelDate())
+                .stream()
+                .filter(c -> c.getSeatClass().equals(seatClass.getCode()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("This train has no " + seatClass.getDisplayName()));
+        if (availability.getAvailableSeats() >= request.seatCount()) {
+            throw new IllegalStateException("Seats are still available in this class; please book them directly");
+        }
+
+        WaitlistEntry entry = waitlistRepo.save(WaitlistEntry.builder()
+                .userId(userId)
+                .trainId(request.trainId())
+                .travelDate(request.travelDate())
+                .seatClass(seatClass)
+                .seatCount(request.seatCount())
+                .priority(isAdmin && request.priority() != null ? request.priority() : 0)
+                .passengerName(request.passengerName())
+                .email(request.email())
+                .status(WaitlistStatus.WAITING)
+                .createdAt(LocalDateTime.now())
+                .build());
+        return WaitlistEntryDTO.from(entry, positionOf(entry));
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryDTO> entriesFor(String username) {
+        return waitlistRepo.findByUserIdOrderByIdDesc(principals.idOf(username)).stream()
+                .map(entry -> WaitlistEntryDTO.from(entry, positionOf(entry)))
+                .toList();
+    }
+
+    @Transactional
+    public void withdraw(Long id, String username, boolean isAdmin) {
+        WaitlistEntry entry = waitlistRepo.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Waitlist entry not found"));
+        if (!isAdmin) {
+            if (!entry.getUserId().equals(principals.idOf(username))) {
+                throw new IllegalStateException("You do not own this waitlist entry");
+            }
+        }
+        // Fails if the allocator got to it first; the seats are then booked and can be canceled instead
+        if (waitlistRepo.closeWaiting(id, WaitlistStatus.WITHDRAWN) == 0) {
+            throw new IllegalStateException("This waitlist entry is no longer waiting");
+        }
+    }
+
+    private Long positionOf(WaitlistEntry entry) {
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            return null;
+        }
+        return waitlistRepo.countAhead(entry.getTrainId(), entry.getTravelDate(), entry.getSeatClass(),
+                entry.getPriority(), entry.getId());
+    }
+}
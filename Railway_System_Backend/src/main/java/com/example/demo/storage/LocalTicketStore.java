@@ -0,0 +1,79 @@
+package com.example.demo.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Keeps tickets on the local (or a shared, mounted) file system, sharded two levels deep by
+ * digest prefix - {@code ab/cd/abcd...pdf} - so no directory grows past 65536 entries per level.
+ */
+@Component
+@ConditionalOnProperty(name = "rail.ticket.store.type", havingValue = "local", matchIfMissing = true)
+public class LocalTicketStore implements TicketStore {
+
+    private final Path root;
+
+    public LocalTicketStore(@Value("${rail.ticket.store.path:tickets}") String root) {
+        this.root = Path.of(root).toAbsolutePath();
+    }
+
+    @Override
+    public String put(byte[] pdf) throws IOException {
+        String digest = sha256(pdf);
+        Path target = pathFor(digest);
+        if (Files.exists(target)) {
+            return digest;
+        }
+
+        Files.createDirectories(target.getParent());
+        // Write next to the target and rename, so readers never see a half-written file
+        Path temp = Files.createTempFile(target.getParent(), digest, ".tmp");
+        try {
+            Files.write(temp, pdf);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another writer stored the same content first
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return digest;
+    }
+
+    @Override
+    public Optional<StoredTicket> get(String digest) {
+        Path file = pathFor(digest);
+        try {
+            long size = Files.size(file);
+            return Optional.of(new StoredTicket(digest, size, new FileSystemResource(file), file));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Path pathFor(String digest) {
+        if (!digest.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Not a ticket digest: " + digest);
+        }
+        return root.resolve(digest.substring(0, 2)).resolve(digest.substring(2, 4)).resolve(digest + ".pdf");
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
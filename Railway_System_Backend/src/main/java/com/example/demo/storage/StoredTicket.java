@@ -0,0 +1,16 @@
+package com.example.demo.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+
+/**
+ * A ticket held by a {@link TicketStore}. {@code file} is set when the bytes live on the
+ * local file system and can be handed to the container for zero-copy transfer.
+ */
+public record StoredTicket(String digest, long size, Resource resource, Path file) {
+
+    public String etag() {
+        return "\"" + digest + "\"";
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.storage;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for ticket PDFs. A ticket is stored under the SHA-256 of its
+ * bytes, so the digest doubles as a strong ETag and identical content is stored once.
+ */
+public interface TicketStore {
+
+    /**
+     * Stores the PDF and returns its digest. Storing the same bytes twice is a no-op.
+     */
+    String put(byte[] pdf) throws IOException;
+
+    Optional<StoredTicket> get(String digest);
+}
@@ -0,0 +1,251 @@
+package com.example.demo.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes retried POSTs safe. A request with an {@code Idempotency-Key} header to one of
+ * {@code rail.idempotency.paths} runs once per user and key: a retry gets the stored
+ * response of the first run, marked with {@code Idempotent-Replayed: true}, instead of
+ * booking or paying again. A retry that arrives while the first run is still going waits
+ * for it rather than running alongside it.
+ * <p>
+ * Only successful responses are kept, for {@code rail.idempotency.ttl}; after a failure the
+ * next attempt runs normally. Reusing a key for a different request (method, path, query or
+ * body) is refused with 422. Keys are remembered per node, so a retry is only recognized on
+ * the node that served the first attempt.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rail.idempotency.paths:/api/bookings,/api/bookings/batch,/api/payment/simulate}")
+    private List<String> paths;
+    @Value("${rail.idempotency.ttl:PT24H}")
+    private Duration ttl;
+    @Value("${rail.idempotency.max-entries:100000}")
+    private long maxEntries;
+    @Value("${rail.idempotency.wait-timeout:PT30S}")
+    private Duration waitTimeout;
+
+    // user + key -> the first run of that request
+    private Cache<String, Execution> executions;
+
+    @PostConstruct
+    void start() {
+        executions = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !paths.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            ErrorResponses.write(response, HttpStatus.BAD_REQUEST, "Invalid " + HEADER + " header");
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String fingerprint = fingerprint(cachedRequest);
+        String storeKey = auth.getName() + '\n' + key;
+        while (true) {
+            Execution mine = new Execution(fingerprint);
+            Execution first = executions.asMap().putIfAbsent(storeKey, mine);
+            if (first == null) {
+                execute(cachedRequest, response, filterChain, storeKey, mine);
+                return;
+            }
+            if (!first.fingerprint().equals(fingerprint)) {
+                count("mismatch");
+                ErrorResponses.write(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        HEADER + " was already used for a different request");
+                return;
+            }
+            StoredResponse stored;
+            try {
+                stored = first.result().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                count("busy");
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                ErrorResponses.write(response, HttpStatus.CONFLICT, "A request with this " + HEADER + " is still being processed");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            } catch (ExecutionException e) {
+                throw new ServletException(e.getCause());
+            }
+            if (stored != null) {
+                count("replayed");
+                stored.writeTo(response);
+                return;
+            }
+            // The first run failed and was forgotten, so this one gets to run
+        }
+    }
+
+    private void execute(CachedBodyRequest request, HttpServletResponse response, FilterChain filterChain,
+                         String storeKey, Execution mine) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        StoredResponse stored = null;
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (HttpStatus.valueOf(wrapper.getStatus()).is2xxSuccessful()) {
+                stored = new StoredResponse(wrapper.getStatus(), wrapper.getContentType(),
+                        wrapper.getHeader(HttpHeaders.LOCATION), wrapper.getContentAsByteArray());
+            }
+            count("executed");
+        } finally {
+            if (stored == null) {
+                executions.asMap().remove(storeKey, mine);
+            }
+            // Wakes up any retry waiting for this run
+            mine.result().complete(stored);
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("rail.idempotency.requests", "outcome", outcome).increment();
+    }
+
+    private static String fingerprint(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + ' ' + request.getRequestURI() + '?' + request.getQueryString() + '\n')
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update(request.body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Execution(String fingerprint, CompletableFuture<StoredResponse> result) {
+
+        Execution(String fingerprint) {
+            this(fingerprint, new CompletableFuture<>());
+        }
+    }
+
+    private record StoredResponse(int status, String contentType, String location, byte[] body) {
+
+        void writeTo(HttpServletResponse response) throws IOException {
+            response.setStatus(status);
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            if (location != null) {
+                response.setHeader(HttpHeaders.LOCATION, location);
+            }
+            response.setHeader(REPLAYED_HEADER, "true");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    // Reads the body up front so it can be fingerprinted and still be read by the controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the routes that are expensive or attractive to abuse, each with its own token
+ * bucket per client: logins and registrations (a BCrypt hash each) per IP address, train
+ * searches per user or, for anonymous callers, per IP, and booking per user. A request
+ * finding its bucket empty is answered 429 with Retry-After.
+ * <p>
+ * Buckets live in a size-bounded cache and are dropped once idle for longer than it takes
+ * them to refill, when they would be full anyway, so a flood of distinct clients costs
+ * bounded memory. Limits are per node.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rail.rate-limit.enabled:true}")
+    private boolean enabled;
+    @Value("${rail.rate-limit.max-clients:100000}")
+    private long maxClients;
+    // Each limit is "<requests>/<period>", e.g. 10/PT1M
+    @Value("${rail.rate-limit.login:10/PT1M}")
+    private String loginLimit;
+    @Value("${rail.rate-limit.register:5/PT1M}")
+    private String registerLimit;
+    @Value("${rail.rate-limit.search:120/PT1M}")
+    private String searchLimit;
+    @Value("${rail.rate-limit.booking:60/PT1M}")
+    private String bookingLimit;
+
+    private List<Policy> policies;
+    private Cache<String, TokenBucket> buckets;
+
+    @PostConstruct
+    void start() {
+        policies = List.of(
+                Policy.of("login", HttpMethod.POST, "/api/auth/login", false, loginLimit),
+                // Also covers /api/auth/registerAdmin
+                Policy.of("register", HttpMethod.POST, "/api/auth/register", false, registerLimit),
+                Policy.of("search", HttpMethod.GET, "/api/trains/search", true, searchLimit),
+                Policy.of("booking", HttpMethod.POST, "/api/bookings", true, bookingLimit));
+        Duration longest = policies.stream().map(Policy::period).max(Duration::compareTo).orElseThrow();
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(longest)
+                .build();
+        Gauge.builder("rail.ratelimit.clients", buckets, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || policyFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Policy policy = policyFor(request);
+        String client = policy.perUser() ? userOrAddress(request) : "ip:" + request.getRemoteAddr();
+        TokenBucket bucket = buckets.get(policy.name() + '|' + client, k -> new TokenBucket(policy.capacity(), policy.period()));
+
+        long wait = bucket.tryAcquire(System.nanoTime());
+        if (wait > 0) {
+            meterRegistry.counter("rail.ratelimit.throttled", "policy", policy.name()).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1)));
+            ErrorResponses.write(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please try again later");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Policy policyFor(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        for (Policy policy : policies) {
+            if (policy.method().matches(request.getMethod()) && path.startsWith(policy.path())) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    // Behind a proxy, set server.forward-headers-strategy so the remote address is the client's
+    private static String userOrAddress(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+            return "user:" + auth.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private record Policy(String name, HttpMethod method, String path, boolean perUser, long capacity, Duration period) {
+
+        static Policy of(String name, HttpMethod method, String path, boolean perUser, String limit) {
+            String[] parts = limit.split("/", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Rate limit for " + name + " must look like 10/PT1M: " + limit);
+            }
+            return new Policy(name, method, path, perUser, Long.parseLong(parts[0].trim()), Duration.parse(parts[1].trim()));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.web;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket of {@code capacity} tokens that refills completely over {@code period}.
+ * Rather than a token count and a refill time it keeps one timestamp - the moment the bucket
+ * would be full again - so taking a token is a single compare-and-set and never locks.
+ */
+final class TokenBucket {
+
+    // Time it takes to earn back one token, and to refill the whole bucket
+    private final long interval;
+    private final long burst;
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(long capacity, Duration period) {
+        this.interval = Math.max(1, period.toNanos() / capacity);
+        this.burst = interval * capacity;
+    }
+
+    /**
+     * Takes a token if there is one. Returns 0 on success, otherwise the nanoseconds until
+     * one becomes available.
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+-- One explicit state per booking instead of the paid and canceled flags. Holds that had run out
+-- but were not yet swept become HELD, and the sweep expires them as usual. Holds expired before
+-- this migration were marked exactly like a canceled unpaid booking, so they stay CANCELED.
+ALTER TABLE booking ADD COLUMN state ENUM('HELD', 'PAID', 'CANCELED', 'EXPIRED');
+UPDATE booking SET state = CASE
+    WHEN canceled = TRUE THEN 'CANCELED'
+    WHEN paid = TRUE THEN 'PAID'
+    ELSE 'HELD'
+END;
+ALTER TABLE booking MODIFY state ENUM('HELD', 'PAID', 'CANCELED', 'EXPIRED') NOT NULL;
+
+-- The new indexes go in first: the old ones may be all that backs the train and user foreign keys
+CREATE INDEX idx_booking_train_date_state ON booking (train_id, travel_date, state);
+CREATE INDEX idx_booking_user_state ON booking (user_id, state);
+DROP INDEX idx_booking_train_date_canceled ON booking;
+DROP INDEX idx_booking_user_canceled ON booking;
+
+ALTER TABLE booking DROP COLUMN paid;
+ALTER TABLE booking DROP COLUMN canceled;
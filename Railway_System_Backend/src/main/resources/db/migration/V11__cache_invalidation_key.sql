@@ -0,0 +1,3 @@
+-- Invalidations of caches keyed by something other than an entity id, such as a username
+ALTER TABLE cache_invalidation ADD COLUMN entity_key VARCHAR(255);
+ALTER TABLE cache_invalidation MODIFY entity_id BIGINT NULL;
@@ -0,0 +1,47 @@
+-- Schema as it was created by hibernate.ddl-auto=update before migrations were introduced.
+-- Existing databases are baselined at this version and skip it.
+
+CREATE TABLE `user` (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    password VARCHAR(255) NOT NULL,
+    role ENUM('ADMIN', 'USER') NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_username UNIQUE (username)
+);
+
+CREATE TABLE train (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    arrival_time TIME(6),
+    departure_time TIME(6),
+    destination VARCHAR(255),
+    origin VARCHAR(255),
+    price BIGINT NOT NULL,
+    seats_available BIGINT NOT NULL,
+    train_name VARCHAR(255),
+    train_number BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE booking (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    booking_date DATETIME(6),
+    canceled BIT NOT NULL,
+    email VARCHAR(255),
+    paid BIT,
+    passenger_name VARCHAR(255),
+    train_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_booking_train FOREIGN KEY (train_id) REFERENCES train (id),
+    CONSTRAINT fk_booking_user FOREIGN KEY (user_id) REFERENCES `user` (id)
+);
+
+CREATE TABLE booked_seat (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    seat_number VARCHAR(255),
+    booking_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_booked_seat_booking_seat UNIQUE (booking_id, seat_number),
+    CONSTRAINT fk_booked_seat_booking FOREIGN KEY (booking_id) REFERENCES booking (id)
+);
@@ -0,0 +1,28 @@
+-- One row per sold seat, whose unique key stops a seat being sold twice. Databases that ran the
+-- release introducing it under ddl-auto already have the table.
+CREATE TABLE IF NOT EXISTS seat_reservation (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    booking_id BIGINT NOT NULL,
+    seat_number VARCHAR(255) NOT NULL,
+    train_id BIGINT NOT NULL,
+    travel_date DATE NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_seat_reservation_train_date_seat UNIQUE (train_id, travel_date, seat_number)
+);
+
+-- A real, indexable travel date instead of FUNCTION('DATE', booking_date)
+ALTER TABLE booking ADD COLUMN travel_date DATE;
+UPDATE booking SET travel_date = CAST(booking_date AS DATE) WHERE travel_date IS NULL;
+ALTER TABLE booking MODIFY travel_date DATE NOT NULL;
+
+CREATE INDEX idx_booking_train_date_canceled ON booking (train_id, travel_date, canceled);
+CREATE INDEX idx_booking_user_canceled ON booking (user_id, canceled);
+CREATE INDEX idx_seat_reservation_travel_date ON seat_reservation (travel_date);
+
+-- Seats of bookings made before seat_reservation existed. Seats that were already
+-- double-sold keep their first row; the duplicates are skipped rather than failing the migration.
+INSERT IGNORE INTO seat_reservation (train_id, travel_date, seat_number, booking_id)
+SELECT b.train_id, b.travel_date, UPPER(TRIM(s.seat_number)), b.id
+FROM booking b
+JOIN booked_seat s ON s.booking_id = b.id
+WHERE b.canceled = FALSE;
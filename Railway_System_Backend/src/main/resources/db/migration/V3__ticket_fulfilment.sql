@@ -0,0 +1,14 @@
+-- Outbox of paid bookings whose ticket still has to be rendered and mailed
+CREATE TABLE ticket_fulfilment (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    attempts INTEGER NOT NULL,
+    booking_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(1000),
+    next_attempt_at DATETIME(6) NOT NULL,
+    status ENUM('PENDING', 'RENDERED', 'SENT', 'FAILED') NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_ticket_fulfilment_booking UNIQUE (booking_id)
+);
+
+CREATE INDEX idx_ticket_fulfilment_status_due ON ticket_fulfilment (status, next_attempt_at);
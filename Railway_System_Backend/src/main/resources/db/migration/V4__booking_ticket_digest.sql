@@ -0,0 +1,2 @@
+-- Digest of the booking's ticket in the content-addressed ticket store
+ALTER TABLE booking ADD COLUMN ticket_digest VARCHAR(64);
@@ -0,0 +1,11 @@
+-- Cross-node cache invalidation events, appended by the node that changed the data and polled by the rest
+CREATE TABLE cache_invalidation (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    topic VARCHAR(50) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    origin_node VARCHAR(64) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_cache_invalidation_created ON cache_invalidation (created_at);
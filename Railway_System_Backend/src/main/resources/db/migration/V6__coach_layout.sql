@@ -0,0 +1,13 @@
+-- Seat layout: the coaches of each train, their class, size and fare
+CREATE TABLE coach (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    train_id BIGINT NOT NULL,
+    code VARCHAR(10) NOT NULL,
+    seat_class ENUM('AC1', 'AC2', 'AC3', 'SLEEPER', 'GENERAL') NOT NULL,
+    seat_count INTEGER NOT NULL,
+    price BIGINT NOT NULL,
+    position_no INTEGER NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_coach_train_code UNIQUE (train_id, code),
+    CONSTRAINT fk_coach_train FOREIGN KEY (train_id) REFERENCES train (id) ON DELETE CASCADE
+);
@@ -0,0 +1,10 @@
+-- An unpaid booking holds its seats until hold_expires_at, after which it expires
+ALTER TABLE booking ADD COLUMN hold_expires_at DATETIME(6);
+
+-- Bookings left unpaid before holds existed get one full window from the upgrade
+UPDATE booking SET hold_expires_at = TIMESTAMPADD(MINUTE, 15, CURRENT_TIMESTAMP)
+WHERE (paid IS NULL OR paid = FALSE) AND canceled = FALSE;
+
+CREATE INDEX idx_booking_hold_expires_at ON booking (hold_expires_at);
+-- Expired holds and cancellations delete their seat rows by booking
+CREATE INDEX idx_seat_reservation_booking ON seat_reservation (booking_id);
@@ -0,0 +1,21 @@
+-- Requests for seats on full trains, served by priority and then in the order they joined
+CREATE TABLE waitlist_entry (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    train_id BIGINT NOT NULL,
+    travel_date DATE NOT NULL,
+    seat_class ENUM('AC1', 'AC2', 'AC3', 'SLEEPER', 'GENERAL') NOT NULL,
+    seat_count INTEGER NOT NULL,
+    priority INTEGER NOT NULL,
+    passenger_name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    status ENUM('WAITING', 'ALLOCATED', 'WITHDRAWN', 'EXPIRED') NOT NULL,
+    booking_id BIGINT,
+    created_at DATETIME(6) NOT NULL,
+    allocated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_waitlist_entry_user FOREIGN KEY (user_id) REFERENCES `user` (id),
+    CONSTRAINT fk_waitlist_entry_train FOREIGN KEY (train_id) REFERENCES train (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_waitlist_queue ON waitlist_entry (train_id, travel_date, seat_class, status, priority, id);
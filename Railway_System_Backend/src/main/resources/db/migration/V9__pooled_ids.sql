@@ -0,0 +1,12 @@
+-- Booking, booked seat and seat reservation ids are reserved in blocks from this table
+-- instead of coming from AUTO_INCREMENT, which lets Hibernate batch their inserts.
+-- next_val is the first id not yet reserved by any node.
+CREATE TABLE id_generator (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT NOT NULL,
+    PRIMARY KEY (sequence_name)
+);
+
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'booking', COALESCE(MAX(id), 0) + 1 FROM booking;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'booked_seat', COALESCE(MAX(id), 0) + 1 FROM booked_seat;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'seat_reservation', COALESCE(MAX(id), 0) + 1 FROM seat_reservation;
@@ -0,0 +1,56 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class JdbcInvalidationBusTest {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void deliversEventsToOtherNodesOnce() {
+        JdbcInvalidationBus nodeA = new JdbcInvalidationBus(jdbc, Duration.ofHours(1));
+        JdbcInvalidationBus nodeB = new JdbcInvalidationBus(jdbc, Duration.ofHours(1));
+        List<Long> seenByA = new CopyOnWriteArrayList<>();
+        List<Long> seenByB = new CopyOnWriteArrayList<>();
+        nodeA.subscribe("train", seenByA::add);
+        nodeB.subscribe("train", seenByB::add);
+
+        nodeA.publish("train", 7);
+        nodeA.publish("booking", 8);
+        assertEquals(List.of(7L), seenByA);
+        assertTrue(seenByB.isEmpty());
+
+        nodeB.poll();
+        nodeA.poll();
+        nodeB.poll();
+        // A applied its own change when publishing; B picks it up from the table exactly once
+        assertEquals(List.of(7L), seenByA);
+        assertEquals(List.of(7L), seenByB);
+    }
+
+    @Test
+    void deliversKeyedEventsToOtherNodes() {
+        JdbcInvalidationBus nodeA = new JdbcInvalidationBus(jdbc, Duration.ofHours(1));
+        JdbcInvalidationBus nodeB = new JdbcInvalidationBus(jdbc, Duration.ofHours(1));
+        List<String> keysSeenByB = new CopyOnWriteArrayList<>();
+        List<Long> idsSeenByB = new CopyOnWriteArrayList<>();
+        nodeB.subscribeKeys("user", keysSeenByB::add);
+        nodeB.subscribe("user", idsSeenByB::add);
+
+        nodeA.publish("user", "alice");
+        nodeB.poll();
+        assertEquals(List.of("alice"), keysSeenByB);
+        assertTrue(idsSeenByB.isEmpty());
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.BookingService;
+import com.example.demo.support.QueryCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin-lister", roles = "ADMIN")
+class AdminBookingsTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private Train train;
+    private final List<Long> bookingIds = new ArrayList<>();
+    private final LocalDate travelDate = LocalDate.now().plusDays(20);
+
+    @BeforeEach
+    void createBookings() {
+        if (userRepo.findByUsername("admin-lister").isEmpty()) {
+            userRepo.save(User.builder().username("admin-lister").password("x").role(Role.USER).build());
+        }
+        train = trainRepo.save(Train.builder().trainNumber(3001).trainName("Export Express")
+                .origin("Madurai").destination("Tirunelveli")
+                .departureTime(LocalTime.of(9, 0)).arrivalTime(LocalTime.of(12, 0))
+                .seatsAvailable(50).price(200).build());
+
+        for (int i = 0; i < 5; i++) {
+            Booking request = new Booking();
+            request.setTrain(train);
+            request.setPassengerName(i == 0 ? "Doe, \"Jay\"" : "Passenger " + i);
+            request.setEmail("p" + i + "@example.com");
+            request.setBookingDate(travelDate.plusDays(i % 2).atStartOfDay());
+            Booking booking = bookingService.bookTicket(request, List.of("E" + i, "F" + i), "admin-lister");
+            bookingIds.add(booking.getId());
+        }
+        bookingService.cancelTicket(bookingIds.get(4), "admin-lister", true);
+    }
+
+    @Test
+    void pagesThroughBookingsNewestFirst() throws Exception {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode page = getJson("/api/bookings/admin?trainId=" + train.getId() + "&size=2"
+                    + (cursor == null ? "" : "&cursor=" + cursor));
+            for (JsonNode item : page.get("items")) {
+                seen.add(item.get("id").asLong());
+                assertEquals(2, item.get("seats").size());
+            }
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        List<Long> expected = new ArrayList<>(bookingIds);
+        expected.sort((a, b) -> Long.compare(b, a));
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void filtersByDateAndStatus() throws Exception {
+        JsonNode sameDay = getJson("/api/bookings/admin?trainId=" + train.getId() + "&from=" + travelDate + "&to=" + travelDate);
+        assertEquals(3, sameDay.get("items").size());
+
+        JsonNode canceled = getJson("/api/bookings/admin?trainId=" + train.getId() + "&status=CANCELED");
+        assertEquals(1, canceled.get("items").size());
+        assertEquals(bookingIds.get(4), canceled.get("items").get(0).get("id").asLong());
+
+        JsonNode unpaid = getJson("/api/bookings/admin?trainId=" + train.getId() + "&status=UNPAID");
+        assertEquals(4, unpaid.get("items").size());
+    }
+
+    @Test
+    void exportsCsv() throws Exception {
+        String csv = export("csv");
+        String[] lines = csv.split("\n");
+        assertEquals(6, lines.length);
+        assertTrue(lines[0].startsWith("id,username,trainId"));
+        assertTrue(lines[1].startsWith(bookingIds.get(4) + ",admin-lister,"));
+        assertTrue(lines[1].contains(",CANCELED,E4 F4"));
+        assertTrue(lines[5].contains(",\"Doe, \"\"Jay\"\"\","));
+    }
+
+    @Test
+    void exportsNdjson() throws Exception {
+        String[] lines = export("ndjson").split("\n");
+        assertEquals(5, lines.length);
+        JsonNode first = objectMapper.readTree(lines[4]);
+        assertEquals(bookingIds.get(0), first.get("id").asLong());
+        assertEquals("Doe, \"Jay\"", first.get("passengerName").asText());
+        assertEquals("UNPAID", first.get("status").asText());
+        assertEquals(List.of("E0", "F0"), objectMapper.convertValue(first.get("seats"), List.class));
+        assertEquals(travelDate.toString(), first.get("travelDate").asText());
+    }
+
+    @Test
+    void statsAreServedWithoutQueries() throws Exception {
+        QueryCounter.start();
+        JsonNode byTrain = getJson("/api/bookings/admin/stats/trains").get(train.getId().toString());
+        JsonNode daily = getJson("/api/bookings/admin/stats/daily?from=" + travelDate + "&to=" + travelDate.plusDays(2));
+        getJson("/api/bookings/admin/stats");
+        assertEquals(0, QueryCounter.stop());
+
+        assertEquals(5, byTrain.get("bookings").asInt());
+        assertEquals(4, byTrain.get("unpaid").asInt());
+        assertEquals(1, byTrain.get("canceled").asInt());
+        assertEquals(0, byTrain.get("revenue").asInt());
+        assertEquals(List.of(travelDate.toString(), travelDate.plusDays(1).toString(), travelDate.plusDays(2).toString()),
+                objectMapper.convertValue(daily, Map.class).keySet().stream().toList());
+        assertEquals(0, daily.get(travelDate.plusDays(2).toString()).get("bookings").asInt());
+
+        mvc.perform(get("/api/bookings/admin/stats/daily?from=" + travelDate + "&to=" + travelDate.minusDays(1)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "admin-lister", roles = "USER")
+    void listingIsAdminOnly() throws Exception {
+        mvc.perform(get("/api/bookings/admin")).andExpect(status().isForbidden());
+        mvc.perform(get("/api/bookings/admin/export")).andExpect(status().isForbidden());
+        mvc.perform(get("/api/bookings/admin/stats")).andExpect(status().isForbidden());
+    }
+
+    private JsonNode getJson(String url) throws Exception {
+        MvcResult result = mvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private String export(String format) throws Exception {
+        MvcResult started = mvc.perform(get("/api/bookings/admin/export")
+                        .param("trainId", train.getId().toString())
+                        .param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult done = mvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+        return done.getResponse().getContentAsString();
+    }
+}
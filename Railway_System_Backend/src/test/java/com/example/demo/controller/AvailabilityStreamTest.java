@@ -0,0 +1,104 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.AvailabilityStreamService;
+import com.example.demo.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AvailabilityStreamTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityStreamService availabilityStream;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(5);
+
+    @BeforeEach
+    void createUser() {
+        if (userRepo.findByUsername("watcher").isEmpty()) {
+            userRepo.save(User.builder().username("watcher").password("x").role(Role.USER).build());
+        }
+    }
+
+    @Test
+    void pushesAvailabilityWhenBookingsCommit() throws Exception {
+        Train train = trainRepo.save(Train.builder().trainNumber(4001).trainName("Watched Express")
+                .origin("Pune").destination("Nagpur")
+                .departureTime(LocalTime.of(8, 0)).arrivalTime(LocalTime.of(18, 0))
+                .seatsAvailable(40).price(300).build());
+        int before = availabilityStream.subscriberCount();
+
+        MvcResult stream = mvc.perform(get("/api/trains/details/" + train.getId() + "/availability/stream")
+                        .param("date", travelDate.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = stream.getResponse();
+        assertEquals(before + 1, availabilityStream.subscriberCount());
+
+        // Current state first
+        awaitContent(response, body -> body.contains("\"availableSeats\":40"));
+
+        Booking booking = bookingService.bookTicket(bookingFor(train), List.of("W1", "W2"), "watcher");
+        awaitContent(response, body -> body.contains("\"availableSeats\":38"));
+
+        bookingService.cancelTicket(booking.getId(), "watcher", false);
+        awaitContent(response, body -> body.lastIndexOf("\"availableSeats\":40") > body.indexOf("\"availableSeats\":38"));
+
+        // Another date of the same train is not pushed to this stream
+        Booking other = bookingFor(train);
+        other.setBookingDate(travelDate.plusDays(1).atStartOfDay());
+        bookingService.bookTicket(other, List.of("W1"), "watcher");
+        Thread.sleep(200);
+        assertFalse(response.getContentAsString().contains("\"availableSeats\":39"));
+    }
+
+    private static void awaitContent(MockHttpServletResponse response, Predicate<String> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.test(response.getContentAsString())) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Expected update not pushed; stream so far: " + response.getContentAsString());
+            }
+            Thread.sleep(20);
+        }
+        assertTrue(response.getContentAsString().contains("event:availability"));
+    }
+
+    private Booking bookingFor(Train train) {
+        Booking booking = new Booking();
+        booking.setTrain(train);
+        booking.setPassengerName("Watcher");
+        booking.setEmail("watcher@example.com");
+        booking.setBookingDate(travelDate.atStartOfDay());
+        return booking;
+    }
+}
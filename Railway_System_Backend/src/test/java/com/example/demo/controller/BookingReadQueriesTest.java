@@ -0,0 +1,108 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.BookingService;
+import com.example.demo.support.QueryCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Booking reads run a fixed number of statements however many bookings, trains and seats
+ * they return.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookingReadQueriesTest {
+
+    private static final int BOOKINGS = 4;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    @BeforeEach
+    void createBookings() {
+        if (userRepo.findByUsername("reader").isPresent()) {
+            return;
+        }
+        userRepo.save(User.builder().username("reader").password("secret-hash").role(Role.USER).build());
+        for (int i = 0; i < BOOKINGS; i++) {
+            // A different train per booking, so eager loading would show up as one query per train
+            Train train = trainRepo.save(Train.builder().trainNumber(4000 + i).trainName("Reader Express " + i)
+                    .origin("Coimbatore").destination("Ooty")
+                    .departureTime(LocalTime.of(6 + i, 0)).arrivalTime(LocalTime.of(10 + i, 0))
+                    .seatsAvailable(40).price(150).build());
+            Booking request = new Booking();
+            request.setTrain(train);
+            request.setPassengerName("Reader " + i);
+            request.setEmail("reader" + i + "@example.com");
+            request.setBookingDate(LocalDate.now().plusDays(10).atStartOfDay());
+            bookingService.bookTicket(request, List.of("R" + i, "S" + i, "T" + i), "reader");
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "reader", roles = "USER")
+    void myBookingsInOneStatement() throws Exception {
+        QueryCounter.start();
+        String body = mvc.perform(get("/api/bookings"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int statements = QueryCounter.stop();
+
+        JsonNode bookings = objectMapper.readTree(body);
+        assertEquals(BOOKINGS, bookings.size());
+        assertEquals(3, bookings.get(0).get("seats").size());
+        assertEquals("Reader Express 3", bookings.get(0).get("train").get("trainName").asText());
+        assertFalse(body.contains("secret-hash"));
+        assertFalse(bookings.get(0).has("user"));
+        assertEquals(1, statements);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void adminPageInTwoStatements() throws Exception {
+        QueryCounter.start();
+        String body = mvc.perform(get("/api/bookings/admin").param("size", "100"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int statements = QueryCounter.stop();
+
+        JsonNode items = objectMapper.readTree(body).get("items");
+        assertTrue(items.size() >= BOOKINGS);
+        for (JsonNode item : items) {
+            assertFalse(item.get("seats").isEmpty());
+            assertFalse(item.get("user").has("password"));
+        }
+        assertFalse(body.contains("secret-hash"));
+        // The page (with train and user joined) and then the seats of every booking on it
+        assertEquals(2, statements);
+    }
+}
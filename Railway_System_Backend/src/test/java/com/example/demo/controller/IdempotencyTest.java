@@ -0,0 +1,145 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.web.IdempotencyFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(16);
+    private Train train;
+
+    @BeforeEach
+    void createTrain() {
+        for (String name : List.of("retrier", "other-retrier")) {
+            if (userRepo.findByUsername(name).isEmpty()) {
+                userRepo.save(User.builder().username(name).password("x").role(Role.USER).build());
+            }
+        }
+        train = trainRepo.save(Train.builder().trainNumber(8001).trainName("Retry Express")
+                .origin("Kochi").destination("Mangalore")
+                .departureTime(LocalTime.of(8, 0)).arrivalTime(LocalTime.of(16, 0))
+                .seatsAvailable(40).price(350).build());
+    }
+
+    @Test
+    void retryGetsTheFirstResponse() throws Exception {
+        MvcResult first = book("retrier", "key-1", "K1")
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn();
+        MvcResult retry = book("retrier", "key-1", "K1")
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andReturn();
+
+        assertEquals(first.getResponse().getContentAsString(), retry.getResponse().getContentAsString());
+        assertEquals(1, bookingsOnTrain());
+
+        // The same key from another user is a different request
+        book("other-retrier", "key-1", "K2").andExpect(status().isCreated());
+        assertEquals(2, bookingsOnTrain());
+    }
+
+    @Test
+    void keyCannotBeReusedForAnotherRequest() throws Exception {
+        book("retrier", "key-2", "M1").andExpect(status().isCreated());
+        book("retrier", "key-2", "M2")
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value("Idempotency-Key was already used for a different request"));
+        assertEquals(1, bookingsOnTrain());
+    }
+
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MvcResult>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return book("retrier", "key-3", "C1").andReturn();
+            }));
+        }
+        start.countDown();
+
+        List<String> bodies = new ArrayList<>();
+        int replayed = 0;
+        for (Future<MvcResult> result : results) {
+            MvcResult done = result.get();
+            assertEquals(201, done.getResponse().getStatus());
+            bodies.add(done.getResponse().getContentAsString());
+            if (done.getResponse().getHeader(IdempotencyFilter.REPLAYED_HEADER) != null) {
+                replayed++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, bodies.stream().distinct().count());
+        assertEquals(7, replayed);
+        assertEquals(1, bookingsOnTrain());
+    }
+
+    private ResultActions book(String username, String key, String seat) throws Exception {
+        Map<String, Object> request = Map.of(
+                "bookingDetails", Map.of(
+                        "train", Map.of("id", train.getId()),
+                        "passengerName", "Retrier",
+                        "email", "retrier@example.com",
+                        "bookingDate", travelDate + "T00:00:00"),
+                "seatNumbers", List.of(seat));
+        return mvc.perform(post("/api/bookings")
+                .with(user(username).roles("USER"))
+                .header(IdempotencyFilter.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+    }
+
+    private long bookingsOnTrain() {
+        return bookingRepo.findAll().stream()
+                .filter(b -> b.getTrain().getId().equals(train.getId()))
+                .count();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.PasswordHashingService;
+import com.example.demo.service.UserService;
+import com.example.demo.support.QueryCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// One hashing thread with room for one more in the queue, so the pool is easy to fill
+@SpringBootTest(properties = {"rail.password.threads=1", "rail.password.queue-capacity=1",
+        "rail.password.bcrypt-strength=5", "rail.rate-limit.enabled=false"})
+@AutoConfigureMockMvc
+class PasswordHashingTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private PasswordHashingService passwordHashing;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepo;
+
+    @Test
+    void saturatedPoolTurnsLoginsAway() throws Exception {
+        userService.registerUser("crowded", "secret").get();
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        passwordHashing.submit(() -> {
+            running.countDown();
+            return await(release);
+        });
+        running.await(5, TimeUnit.SECONDS);
+        passwordHashing.submit(() -> await(release)); // fills the queue
+        try {
+            ExecutionException rejected = assertThrows(ExecutionException.class,
+                    () -> passwordHashing.submit(() -> "late").get());
+            assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+
+            MvcResult login = login("crowded", "secret");
+            mvc.perform(asyncDispatch(login))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+        } finally {
+            release.countDown();
+        }
+
+        // Once there is room again the same login goes through
+        mvc.perform(asyncDispatch(login("crowded", "secret")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty());
+    }
+
+    @Test
+    void weakerHashIsUpgradedOnLogin() throws Exception {
+        userRepo.save(User.builder().username("old-hash")
+                .password(new BCryptPasswordEncoder(4).encode("secret")).role(Role.USER).build());
+
+        assertNotNull(userService.loginAndGenerateToken("old-hash", "secret").get());
+
+        String rehashed = userRepo.findByUsername("old-hash").orElseThrow().getPassword();
+        assertTrue(rehashed.startsWith("$2a$05$"), rehashed);
+        assertNotNull(userService.loginAndGenerateToken("old-hash", "secret").get());
+    }
+
+    @Test
+    void unknownUsernameSkipsTheDatabaseOnceSeen() throws Exception {
+        assertThrows(RuntimeException.class, () -> userService.loginAndGenerateToken("ghost", "x"));
+
+        QueryCounter.start();
+        RuntimeException again = assertThrows(RuntimeException.class,
+                () -> userService.loginAndGenerateToken("ghost", "x"));
+        assertEquals(0, QueryCounter.stop());
+        assertEquals("User not found", again.getMessage());
+
+        assertThrows(RuntimeException.class, () -> userService.loginAndGenerateToken("phantom", "x"));
+        // Registering the name makes it known again
+        userService.registerUser("ghost", "x").get();
+        assertNotNull(userService.loginAndGenerateToken("ghost", "x").get());
+
+        // Without forgetting the other names seen missing
+        QueryCounter.start();
+        assertThrows(RuntimeException.class, () -> userService.loginAndGenerateToken("phantom", "x"));
+        assertEquals(0, QueryCounter.stop());
+    }
+
+    private MvcResult login(String username, String password) throws Exception {
+        return mvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Small limits over a long period, so nothing refills while the test runs
+@SpringBootTest(properties = {"rail.rate-limit.login=3/PT1H", "rail.rate-limit.search=2/PT1H"})
+@AutoConfigureMockMvc
+class RateLimitTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void createUser() {
+        if (userRepo.findByUsername("throttled").isEmpty()) {
+            userRepo.save(User.builder().username("throttled").password(passwordEncoder.encode("secret"))
+                    .role(Role.USER).build());
+        }
+    }
+
+    @Test
+    void loginsAreLimitedPerAddress() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            login("10.0.0.1").andExpect(status().isOk());
+        }
+        login("10.0.0.1")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.status").value(429));
+        // Another client still gets in
+        login("10.0.0.2").andExpect(status().isOk());
+    }
+
+    @Test
+    void unlimitedRoutesAreNotCounted() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mvc.perform(get("/api/trains").with(request -> {
+                request.setRemoteAddr("10.0.0.3");
+                return request;
+            })).andExpect(status().isOk());
+        }
+        search("10.0.0.3").andExpect(status().isOk());
+        search("10.0.0.3").andExpect(status().isOk());
+        search("10.0.0.3").andExpect(status().isTooManyRequests());
+    }
+
+    private ResultActions login(String address) throws Exception {
+        return mvc.perform(post("/api/auth/login")
+                .with(request -> {
+                    request.setRemoteAddr(address);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"throttled\",\"password\":\"secret\"}"));
+    }
+
+    private ResultActions search(String address) throws Exception {
+        return mvc.perform(get("/api/trains/search")
+                .param("from", "Agra").param("to", "Delhi")
+                .with(request -> {
+                    request.setRemoteAddr(address);
+                    return request;
+                }));
+    }
+}
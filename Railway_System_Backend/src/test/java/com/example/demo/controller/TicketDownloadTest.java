@@ -0,0 +1,100 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.BookingState;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "ticket-owner", roles = "USER")
+class TicketDownloadTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private Long bookingId;
+
+    @BeforeEach
+    void createPaidBooking() {
+        if (userRepo.findByUsername("ticket-owner").isEmpty()) {
+            userRepo.save(User.builder().username("ticket-owner").password("x").role(Role.USER).build());
+        }
+        Train train = trainRepo.save(Train.builder().trainNumber(2001).trainName("Ticket Mail")
+                .origin("Chennai").destination("Trichy")
+                .departureTime(LocalTime.of(7, 0)).arrivalTime(LocalTime.of(12, 0))
+                .seatsAvailable(50).price(300).build());
+
+        Booking request = new Booking();
+        request.setTrain(train);
+        request.setPassengerName("Ticket Owner");
+        request.setEmail("owner@example.com");
+        request.setBookingDate(LocalDate.now().plusDays(3).atStartOfDay());
+        Booking booking = bookingService.bookTicket(request, List.of("T1"), "ticket-owner");
+        booking.setState(BookingState.PAID);
+        bookingRepo.save(booking);
+        bookingId = booking.getId();
+    }
+
+    @Test
+    void rendersOnMissAndHonoursEtag() throws Exception {
+        MvcResult first = mvc.perform(get("/api/bookings/{id}/ticket", bookingId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(first.getResponse().getContentAsByteArray().length > 0);
+
+        mvc.perform(get("/api/bookings/{id}/ticket", bookingId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void servesByteRanges() throws Exception {
+        MvcResult range = mvc.perform(get("/api/bookings/{id}/ticket", bookingId).header(HttpHeaders.RANGE, "bytes=0-3"))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+
+        assertEquals("%PDF", range.getResponse().getContentAsString());
+    }
+
+    @Test
+    void unpaidBookingHasNoTicket() throws Exception {
+        Booking booking = bookingRepo.findById(bookingId).orElseThrow();
+        booking.setState(BookingState.HELD);
+        bookingRepo.save(booking);
+
+        mvc.perform(get("/api/bookings/{id}/ticket", bookingId))
+                .andExpect(status().isNotFound());
+    }
+}
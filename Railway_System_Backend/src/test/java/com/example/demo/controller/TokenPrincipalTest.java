@@ -0,0 +1,125 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.JwtUtil;
+import com.example.demo.support.QueryCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests authenticated by a token find the caller's user id in its claims, so booking,
+ * listing and canceling never read the users table.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TokenPrincipalTest {
+
+    private static final Pattern USER_TABLE = Pattern.compile("(?i)\\b(from|join)\\s+[`\"]?user[`\"]?\\s");
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(27);
+    private Train train;
+
+    @BeforeEach
+    void createTrain() {
+        train = trainRepo.save(Train.builder().trainNumber(9201).trainName("Token Express")
+                .origin("Nagpur").destination("Raipur")
+                .departureTime(LocalTime.of(9, 0)).arrivalTime(LocalTime.of(14, 0))
+                .seatsAvailable(40).price(200).build());
+    }
+
+    @Test
+    void bookListAndCancelWithoutReadingUsers() throws Exception {
+        String token = jwtUtil.generateToken(user("token-rider").getId(), "token-rider", "USER");
+
+        QueryCounter.start();
+        Long id = book(token, "U1").get("id").asLong();
+        JsonNode mine = objectMapper.readTree(mvc.perform(get("/api/bookings").header(HttpHeaders.AUTHORIZATION, bearer(token)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        mvc.perform(patch("/api/bookings/{id}/cancel", id).header(HttpHeaders.AUTHORIZATION, bearer(token)))
+                .andExpect(status().isOk());
+        List<String> statements = QueryCounter.stopAndList();
+
+        assertEquals(id, mine.get(0).get("id").asLong());
+        assertFalse(statements.isEmpty());
+        assertEquals(List.of(), statements.stream().filter(sql -> USER_TABLE.matcher(sql).find()).toList());
+    }
+
+    @Test
+    void tokensWithoutUserIdLookItUpOnce() throws Exception {
+        user("legacy-rider");
+        // As issued before the id was added to the claims
+        String token = jwtUtil.generateToken(null, "legacy-rider", "USER");
+
+        QueryCounter.start();
+        book(token, "U2");
+        List<String> first = QueryCounter.stopAndList();
+        QueryCounter.start();
+        book(token, "U3");
+        List<String> second = QueryCounter.stopAndList();
+
+        assertEquals(1, first.stream().filter(sql -> USER_TABLE.matcher(sql).find()).count());
+        assertEquals(0, second.stream().filter(sql -> USER_TABLE.matcher(sql).find()).count());
+    }
+
+    private User user(String name) {
+        return userRepo.findByUsername(name)
+                .orElseGet(() -> userRepo.save(User.builder().username(name).password("x").role(Role.USER).build()));
+    }
+
+    private JsonNode book(String token, String seat) throws Exception {
+        Map<String, Object> request = Map.of(
+                "bookingDetails", Map.of(
+                        "train", Map.of("id", train.getId()),
+                        "passengerName", "Token Rider",
+                        "email", "rider@example.com",
+                        "bookingDate", travelDate + "T00:00:00"),
+                "seatNumbers", List.of(seat));
+        ResultActions booked = mvc.perform(post("/api/bookings")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(token))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+        return objectMapper.readTree(booked.andReturn().getResponse().getContentAsString());
+    }
+
+    private static String bearer(String token) {
+        return "Bearer " + token;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil(100);
+
+    @Test
+    void parsesClaimsOnceAndServesRepeatsFromCache() {
+        String token = jwtUtil.generateToken(7L, "alice", "ADMIN");
+
+        Claims first = jwtUtil.parseClaims(token);
+        assertEquals("alice", first.getSubject());
+        assertEquals(7L, first.get("uid", Long.class));
+        assertEquals("ADMIN", first.get("role", String.class));
+        assertSame(first, jwtUtil.parseClaims(token));
+    }
+
+    @Test
+    void rejectsTamperedAndForeignTokens() {
+        String token = jwtUtil.generateToken(7L, "alice", "USER");
+        jwtUtil.parseClaims(token);
+
+        // A changed signature is a different cache key, so it is verified (and rejected) afresh
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertNull(jwtUtil.parseClaims(tampered));
+
+        String foreign = Jwts.builder()
+                .setSubject("mallory")
+                .claim("role", "ADMIN")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("anotherkeyanotherkeyanotherkey12".getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+        assertNull(jwtUtil.parseClaims(foreign));
+        assertNull(jwtUtil.parseClaims("not-a-token"));
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        String expired = Jwts.builder()
+                .setSubject("alice")
+                .claim("role", "USER")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor("secretkeysecretkeysecretkey123456".getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+        assertNull(jwtUtil.parseClaims(expired));
+        assertFalse(jwtUtil.validateToken(expired));
+    }
+
+    @Test
+    void worksWithCacheDisabled() {
+        JwtUtil uncached = new JwtUtil(0);
+        String token = uncached.generateToken(8L, "bob", "USER");
+        assertEquals("bob", uncached.extractUsername(token));
+        assertEquals("USER", uncached.extractRole(token));
+    }
+}
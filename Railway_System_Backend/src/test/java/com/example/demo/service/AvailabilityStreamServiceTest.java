@@ -0,0 +1,154 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Train;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.service.SeatInventoryService.InventoryKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two writers with room for one more stream in the queue, so they are easy to fill
+@SpringBootTest(properties = {
+        "rail.availability.writer-threads=2",
+        "rail.availability.write-queue=1",
+        "rail.availability.send-timeout=PT0.5S",
+        "rail.availability.stall-check-interval=PT0.1S"
+})
+class AvailabilityStreamServiceTest {
+
+    @Autowired
+    private AvailabilityStreamService availabilityStream;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private TrainRepository trainRepo;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(6);
+
+    @Test
+    void stalledClientIsDroppedWithoutHoldingUpOthers() throws Exception {
+        Train train = train(4101);
+        InventoryKey key = new InventoryKey(train.getId(), travelDate);
+        int before = availabilityStream.subscriberCount();
+
+        StalledEmitter stalled = new StalledEmitter();
+        RecordingEmitter watcher = new RecordingEmitter();
+        try {
+            availabilityStream.subscribe(key, stalled);
+            availabilityStream.subscribe(key, watcher);
+            await(() -> watcher.received("\"availableSeats\":40"));
+
+            seatInventory.reserveForTransaction(train.getId(), travelDate, List.of("Q1"));
+            await(() -> watcher.received("\"availableSeats\":39"));
+
+            // Dropped once its write has been stuck for the send timeout
+            await(() -> availabilityStream.subscriberCount() == before + 1);
+            seatInventory.reserveForTransaction(train.getId(), travelDate, List.of("Q2"));
+            await(() -> watcher.received("\"availableSeats\":38"));
+        } finally {
+            stalled.release.countDown();
+        }
+        // Its stream is ended once the stuck write returns
+        await(() -> stalled.completed);
+    }
+
+    @Test
+    void clientFindingEveryWriterBusyIsDropped() throws Exception {
+        Train train = train(4102);
+        InventoryKey key = new InventoryKey(train.getId(), travelDate);
+        StalledEmitter first = new StalledEmitter();
+        StalledEmitter second = new StalledEmitter();
+        RecordingEmitter queued = new RecordingEmitter();
+        RecordingEmitter rejected = new RecordingEmitter();
+        try {
+            // Each stuck in a write before the next comes, so both writers are taken
+            availabilityStream.subscribe(key, first);
+            await(() -> first.writing);
+            availabilityStream.subscribe(key, second);
+            await(() -> second.writing);
+            availabilityStream.subscribe(key, queued);
+            availabilityStream.subscribe(key, rejected);
+
+            assertNotNull(rejected.failure);
+            assertTrue(rejected.events.isEmpty());
+            assertNull(queued.failure);
+        } finally {
+            first.release.countDown();
+            second.release.countDown();
+        }
+        // The queued stream is served once a writer is free
+        await(() -> queued.received("\"availableSeats\":40"));
+    }
+
+    private Train train(int number) {
+        return trainRepo.save(Train.builder().trainNumber(number).trainName("Stalled Express " + number)
+                .origin("Surat").destination("Indore")
+                .departureTime(LocalTime.of(9, 0)).arrivalTime(LocalTime.of(17, 0))
+                .seatsAvailable(40).price(300).build());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met in time");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    // A client that takes nothing written to it until released
+    private static final class StalledEmitter extends SseEmitter {
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean writing;
+        volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            writing = true;
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException("Write abandoned", e);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        volatile Throwable failure;
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failure = ex;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(builder.build().stream()
+                    .map(part -> String.valueOf(part.getData()))
+                    .collect(Collectors.joining()));
+        }
+
+        boolean received(String text) {
+            return events.stream().anyMatch(event -> event.contains(text));
+        }
+    }
+}
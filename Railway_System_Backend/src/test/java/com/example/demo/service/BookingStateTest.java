@@ -0,0 +1,175 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BookingStateChange;
+import com.example.demo.dto.BookingStats;
+import com.example.demo.model.Booking;
+import com.example.demo.model.BookingState;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.QueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookingStateTest {
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private BookingStatsService bookingStats;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(26);
+    private Train train;
+
+    @BeforeEach
+    void createTrain() {
+        if (userRepo.findByUsername("switcher").isEmpty()) {
+            userRepo.save(User.builder().username("switcher").password("x").role(Role.USER).build());
+        }
+        train = trainRepo.save(Train.builder().trainNumber(9101).trainName("State Express")
+                .origin("Ranchi").destination("Patna")
+                .departureTime(LocalTime.of(5, 0)).arrivalTime(LocalTime.of(13, 0))
+                .seatsAvailable(100).price(150).build());
+    }
+
+    @Test
+    void cancelRacingPaymentAlwaysEndsCanceled() throws Exception {
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            bookings.add(book("R" + i));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> cancels = new ArrayList<>();
+        for (Booking booking : bookings) {
+            CountDownLatch start = new CountDownLatch(1);
+            pool.submit(() -> {
+                start.await();
+                // Loses to the cancellation about half the time
+                try {
+                    return paymentService.simulatePayment(booking.getId());
+                } catch (IllegalStateException e) {
+                    return null;
+                }
+            });
+            cancels.add(pool.submit(() -> {
+                start.await();
+                return bookingService.cancelTicket(booking.getId(), "switcher", false);
+            }));
+            start.countDown();
+        }
+        for (Future<?> cancel : cancels) {
+            cancel.get(); // never lost, whichever went first
+        }
+        pool.shutdown();
+
+        for (Booking booking : bookings) {
+            assertEquals(BookingState.CANCELED, bookingRepo.findById(booking.getId()).orElseThrow().getState());
+        }
+        assertTrue(seatInventory.isAvailable(train.getId(), travelDate, List.of("R0", "R19")));
+        assertEquals(new BookingStats(20, 0, 0, 20, 0),
+                bookingStats.byTrain().get(train.getId()));
+    }
+
+    // A payment committed after the cancelling transaction took its REPEATABLE READ snapshot.
+    // MySQL's locking read sees the payment and the cancel goes ahead from PAID; H2 (like
+    // PostgreSQL) refuses the lock with a retryable error instead. Either way it ends promptly
+    // with the booking in one consistent state, where re-reading the snapshot would spin.
+    @Test
+    void cancelAfterPaymentOutsideItsSnapshotEndsPromptly() throws Exception {
+        Booking booking = book("RR1");
+        TransactionTemplate repeatableRead = new TransactionTemplate(transactionManager);
+        repeatableRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        ExecutorService payer = Executors.newSingleThreadExecutor();
+
+        BookingStateChange change = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try {
+                return repeatableRead.execute(status -> {
+                    assertEquals(BookingState.HELD, bookingRepo.findRef(booking.getId()).orElseThrow().getState());
+                    try {
+                        payer.submit(() -> paymentService.simulatePayment(booking.getId())).get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return bookingService.cancelTicket(booking.getId(), "switcher", false);
+                });
+            } catch (ConcurrencyFailureException e) {
+                return null;
+            }
+        });
+        payer.shutdown();
+
+        BookingState state = bookingRepo.findById(booking.getId()).orElseThrow().getState();
+        if (change != null) {
+            assertEquals(BookingState.CANCELED, state);
+            // Counted as the paid booking it was when canceled
+            assertEquals(new BookingStats(1, 0, 0, 1, 0), bookingStats.byTrain().get(train.getId()));
+        } else {
+            assertEquals(BookingState.PAID, state);
+            assertFalse(seatInventory.isAvailable(train.getId(), travelDate, List.of("RR1")));
+        }
+    }
+
+    @Test
+    void transitionsDoNotLoadTheBooking() {
+        Booking booking = book("L1");
+
+        QueryCounter.start();
+        paymentService.simulatePayment(booking.getId());
+        int payStatements = QueryCounter.stop();
+        QueryCounter.start();
+        assertTrue(bookingService.cancelTicket(booking.getId(), "switcher", false).canceled());
+        int cancelStatements = QueryCounter.stop();
+
+        // The update and a projection of the booking; the rest is the ticket outbox row being added and claimed
+        assertTrue(payStatements <= 5, "payment ran " + payStatements + " statements");
+        // A projection of the booking, a locking read of its state, the update, and reading and
+        // deleting its seat reservations
+        assertEquals(5, cancelStatements);
+        assertThrows(IllegalStateException.class, () -> paymentService.simulatePayment(booking.getId()));
+        assertThrows(IllegalArgumentException.class, () -> bookingService.cancelTicket(booking.getId(), "switcher", false));
+    }
+
+    private Booking book(String seat) {
+        Booking request = new Booking();
+        request.setTrain(train);
+        request.setPassengerName("Switcher");
+        request.setEmail("switcher@example.com");
+        request.setBookingDate(travelDate.atStartOfDay());
+        return bookingService.bookTicket(request, List.of(seat), "switcher");
+    }
+}
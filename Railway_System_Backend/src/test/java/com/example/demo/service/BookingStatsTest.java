@@ -0,0 +1,96 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BookingStats;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Same short hold window as SeatHoldTest, so one of the bookings can run out while the test waits
+@SpringBootTest(properties = {"rail.hold.window=PT2S", "rail.hold.tick=PT0.05S"})
+class BookingStatsTest {
+
+    @Autowired
+    private BookingStatsService bookingStats;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(23);
+    private Train train;
+
+    @BeforeEach
+    void createTrain() {
+        if (userRepo.findByUsername("counted").isEmpty()) {
+            userRepo.save(User.builder().username("counted").password("x").role(Role.USER).build());
+        }
+        train = trainRepo.save(Train.builder().trainNumber(9001).trainName("Stats Express")
+                .origin("Bhopal").destination("Jabalpur")
+                .departureTime(LocalTime.of(6, 0)).arrivalTime(LocalTime.of(11, 0))
+                .seatsAvailable(20).price(400).build());
+    }
+
+    @Test
+    void countersFollowEveryChangeAndMatchARebuild() throws Exception {
+        BookingStats totalsBefore = bookingStats.totals();
+
+        Booking kept = book("S1");
+        Booking refunded = book("S2");
+        Booking dropped = book("S3");
+        book("S4"); // left to expire
+        assertThrows(IllegalStateException.class, () -> book("S1"));
+
+        paymentService.simulatePayment(kept.getId());
+        paymentService.simulatePayment(refunded.getId());
+        bookingService.cancelTicket(refunded.getId(), "counted", false);
+        bookingService.cancelTicket(dropped.getId(), "counted", false);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (forTrain().canceled() < 3) {
+            assertTrue(System.currentTimeMillis() < deadline, "hold expiry was never counted");
+            Thread.sleep(50);
+        }
+
+        BookingStats expected = new BookingStats(4, 1, 0, 3, 400);
+        assertEquals(expected, forTrain());
+        assertEquals(expected, bookingStats.daily(travelDate, travelDate).get(travelDate));
+        BookingStats totalsAfter = bookingStats.totals();
+        assertEquals(4, totalsAfter.bookings() - totalsBefore.bookings());
+        assertEquals(400, totalsAfter.revenue() - totalsBefore.revenue());
+
+        // Rebuilding from the database arrives at the same numbers
+        bookingStats.rebuild();
+        assertEquals(expected, forTrain());
+        assertEquals(expected, bookingStats.daily(travelDate, travelDate).get(travelDate));
+    }
+
+    private BookingStats forTrain() {
+        return bookingStats.byTrain().getOrDefault(train.getId(), BookingStats.EMPTY);
+    }
+
+    private Booking book(String seat) {
+        Booking request = new Booking();
+        request.setTrain(train);
+        request.setPassengerName("Counted");
+        request.setEmail("counted@example.com");
+        request.setBookingDate(travelDate.atStartOfDay());
+        return bookingService.bookTicket(request, List.of(seat), "counted");
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BookingRequestDTO;
+import com.example.demo.dto.BulkBookingResult;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Role;
+import com.example.demo.model.SeatReservation;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.SeatReservationRepository;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.QueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BulkBookingTest {
+
+    @Autowired
+    private BulkBookingService bulkBookingService;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private SeatReservationRepository seatReservationRepo;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(14);
+
+    private Long agentId;
+
+    @BeforeEach
+    void createUser() {
+        agentId = userRepo.findByUsername("agent")
+                .orElseGet(() -> userRepo.save(User.builder().username("agent").password("x").role(Role.USER).build()))
+                .getId();
+    }
+
+    @Test
+    void eachItemIsBookedOrRejectedOnItsOwn() {
+        Train first = train(7001, 10);
+        Train second = train(7002, 10);
+        Booking undated = booking(first);
+        undated.setBookingDate(null);
+
+        List<BulkBookingResult> results = bulkBookingService.bookAll(List.of(
+                request(booking(first), "A1", "A2"),
+                request(booking(first), "A2", "A3"),
+                request(booking(train(7003, 0, false)), "B1"),
+                request(undated, "C1"),
+                request(booking(second), "A1"),
+                request(booking(first), "A4", "A4")), agentId);
+
+        assertEquals(6, results.size());
+        assertTrue(results.get(0).booked());
+        assertEquals(List.of("A1", "A2"), results.get(0).booking().seats().stream()
+                .map(seat -> seat.seatNumber()).toList());
+        assertFalse(results.get(1).booked());
+        assertEquals("One or more of the selected seats are already booked for this date!", results.get(1).error());
+        assertEquals("Train not found", results.get(2).error());
+        assertEquals("Booking date is required", results.get(3).error());
+        assertTrue(results.get(4).booked());
+        assertEquals("Seat A4 is listed more than once", results.get(5).error());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).index());
+        }
+
+        // Rejected items left no seats behind
+        assertEquals(2, seatInventory.bookedCount(first.getId(), travelDate));
+        assertTrue(seatInventory.isAvailable(first.getId(), travelDate, List.of("A3", "A4")));
+        assertEquals(List.of("A1", "A2"), seatReservationRepo.findSeatNumbers(first.getId(), travelDate).stream()
+                .sorted().toList());
+    }
+
+    @Test
+    void insertsGoOutInBatches() {
+        Train train = train(7004, 200);
+        List<BookingRequestDTO> requests = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            requests.add(request(booking(train), "Q" + (2 * i), "Q" + (2 * i + 1)));
+        }
+
+        QueryCounter.start();
+        List<BulkBookingResult> results = bulkBookingService.bookAll(requests, agentId);
+        int statements = QueryCounter.stop();
+
+        assertTrue(results.stream().allMatch(BulkBookingResult::booked));
+        assertEquals(40, results.stream().map(r -> r.booking().id()).distinct().count());
+        assertEquals(80, seatInventory.bookedCount(train.getId(), travelDate));
+        // One at a time this would be 200 inserts (40 bookings, 80 seats, 80 reservations)
+        assertTrue(statements < 20, "ran " + statements + " statements");
+    }
+
+    @Test
+    void seatLostToAnotherNodeOnlyRejectsItsItem() {
+        Train train = train(7005, 10);
+        // Sold elsewhere: in the database, but not in this node's inventory
+        seatInventory.bookedCount(train.getId(), travelDate);
+        seatReservationRepo.saveAndFlush(new SeatReservation(null, train.getId(), travelDate, "Z1", -1L));
+
+        List<BulkBookingResult> results = bulkBookingService.bookAll(List.of(
+                request(booking(train), "Z2"),
+                request(booking(train), "Z1"),
+                request(booking(train), "Z3")), agentId);
+
+        assertTrue(results.get(0).booked());
+        assertFalse(results.get(1).booked());
+        assertTrue(results.get(2).booked());
+        assertEquals(List.of("Z1", "Z2", "Z3"), seatReservationRepo.findSeatNumbers(train.getId(), travelDate).stream()
+                .sorted().toList());
+        assertEquals(2, seatInventory.bookedCount(train.getId(), travelDate));
+    }
+
+    private Train train(long number, long seats) {
+        return train(number, seats, true);
+    }
+
+    private Train train(long number, long seats, boolean saved) {
+        Train train = Train.builder().trainNumber(number).trainName("Agent Express " + number)
+                .origin("Pune").destination("Nagpur")
+                .departureTime(LocalTime.of(7, 0)).arrivalTime(LocalTime.of(18, 0))
+                .seatsAvailable(seats).price(300).build();
+        if (saved) {
+            return trainRepo.save(train);
+        }
+        train.setId(-number);
+        return train;
+    }
+
+    private Booking booking(Train train) {
+        Booking booking = new Booking();
+        booking.setTrain(train);
+        booking.setPassengerName("Group");
+        booking.setEmail("group@example.com");
+        booking.setBookingDate(travelDate.atStartOfDay());
+        return booking;
+    }
+
+    private static BookingRequestDTO request(Booking booking, String... seats) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setBookingDetails(booking);
+        request.setSeatNumbers(List.of(seats));
+        return request;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// GreenMail is an in-process SMTP server on port 3025
+@SpringBootTest(properties = {
+        "spring.mail.port=3025",
+        "rail.mail.linger=PT0.1S",
+        "rail.mail.breaker.failure-threshold=2",
+        "rail.mail.breaker.open-for=PT1H"
+})
+class EmailServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private EmailService emailService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void sendsQueuedMailInBatches() throws Exception {
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            results.add(send("passenger" + i + "@example.com"));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        assertEquals(25, greenMail.getReceivedMessages().length);
+        assertTrue(meterRegistry.get("rail.mail.batch.size").summary().max() > 1,
+                "queued mail should share SMTP connections");
+        assertTrue(meterRegistry.get("rail.mail.send.latency").tag("outcome", "sent").timer().count() >= 25);
+    }
+
+    @Test
+    @DirtiesContext
+    void opensCircuitWhenServerIsDown() throws Exception {
+        greenMail.stop();
+
+        // Two failed batches open the breaker; after that mail fails without touching the network
+        for (int i = 0; i < 2; i++) {
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> send("down@example.com").get(30, TimeUnit.SECONDS));
+            assertFalse(failure.getCause() instanceof EmailService.MailCircuitOpenException);
+        }
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> send("down@example.com").get(30, TimeUnit.SECONDS));
+        assertInstanceOf(EmailService.MailCircuitOpenException.class, failure.getCause());
+    }
+
+    private CompletableFuture<Void> send(String to) throws Exception {
+        return emailService.sendBookingEmail(to, "Your Railway Reservation Ticket", "Ticket attached.",
+                "Ticket_1.pdf", new ByteArrayResource("%PDF-1.4 test".getBytes()));
+    }
+}
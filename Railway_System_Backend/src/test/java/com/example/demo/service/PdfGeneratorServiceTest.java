@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import com.example.demo.model.BookedSeat;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Train;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfGeneratorServiceTest {
+
+    private final PdfGeneratorService pdfService = new PdfGeneratorService();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pdfService.init();
+    }
+
+    @Test
+    void rendersTicketInMemory() throws Exception {
+        // Markup characters broke the old string-built HTML; the template sets them as text
+        Booking booking = booking(42L);
+        booking.setPassengerName("Passenger & Co <42>");
+
+        byte[] pdf = pdfService.renderTicket(booking);
+
+        assertTrue(pdf.length > 0);
+        assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void batchKeepsBookingOrder() throws Exception {
+        List<Booking> bookings = List.of(booking(3L), booking(1L), booking(2L));
+
+        Map<Long, byte[]> tickets = pdfService.renderBatch(bookings);
+
+        assertEquals(List.of(3L, 1L, 2L), new ArrayList<>(tickets.keySet()));
+        tickets.values().forEach(pdf -> assertTrue(pdf.length > 0));
+    }
+
+    private static Booking booking(long id) {
+        Train train = Train.builder().id(7L).trainNumber(12635).trainName("Vaigai Express")
+                .origin("Chennai").destination("Madurai")
+                .departureTime(LocalTime.of(13, 40)).arrivalTime(LocalTime.of(21, 15))
+                .seatsAvailable(100).price(450).build();
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setTrain(train);
+        booking.setPassengerName("Passenger " + id);
+        booking.setEmail("p@example.com");
+        booking.setBookingDate(LocalDateTime.of(2026, 12, 24, 0, 0));
+        booking.setSeats(new ArrayList<>(List.of(new BookedSeat("A1", booking), new BookedSeat("A2", booking))));
+        return booking;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TrainDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 12, 0);
+    private static final LocalDate TODAY = NOW.toLocalDate();
+
+    private final RouteIndex index = new RouteIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                train(1L, "Chennai", "Bangalore", "18:00"),
+                train(2L, "Chennai", "Bangalore", "06:30"),
+                train(3L, "Chennai", "Bangalore", "13:15"),
+                train(4L, "Chennai Egmore", "Madurai", "09:00"),
+                train(5L, "Delhi", "Mumbai", "10:00")));
+    }
+
+    @Test
+    void matchesStationsIgnoringCaseAndOrdersByDeparture() {
+        assertEquals(List.of(2L, 3L, 1L), ids(index.search(" chennai", "BANGALORE ", null, 0, 0, NOW)));
+    }
+
+    @Test
+    void matchesStationPrefixesAcrossRoutes() {
+        assertEquals(List.of(2L, 4L, 3L, 1L), ids(index.search("chen", "", null, 0, 0, NOW)));
+        assertEquals(List.of(4L), ids(index.search("Chennai E", "Mad", null, 0, 0, NOW)));
+        assertTrue(index.search("Kolkata", "Mumbai", null, 0, 0, NOW).isEmpty());
+    }
+
+    @Test
+    void filtersByTravelDate() {
+        assertTrue(index.search("Chennai", "Bangalore", TODAY.minusDays(1), 0, 0, NOW).isEmpty());
+        // Today only lists trains that are still to leave
+        assertEquals(List.of(3L, 1L), ids(index.search("Chennai", "Bangalore", TODAY, 0, 0, NOW)));
+        assertEquals(List.of(2L, 3L, 1L), ids(index.search("Chennai", "Bangalore", TODAY.plusDays(1), 0, 0, NOW)));
+    }
+
+    @Test
+    void paginates() {
+        assertEquals(List.of(2L, 4L), ids(index.search("Chennai", "", null, 0, 2, NOW)));
+        assertEquals(List.of(3L, 1L), ids(index.search("Chennai", "", null, 1, 2, NOW)));
+        assertTrue(index.search("Chennai", "", null, 2, 2, NOW).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("Chennai", "Bangalore", null, 1, 2, NOW)));
+    }
+
+    @Test
+    void updatesIncrementally() {
+        // Moved to another route and time
+        index.put(train(2L, "Delhi", "Mumbai", "05:00"));
+        assertEquals(List.of(3L, 1L), ids(index.search("Chennai", "Bangalore", null, 0, 0, NOW)));
+        assertEquals(List.of(2L, 5L), ids(index.search("Delhi", "Mumbai", null, 0, 0, NOW)));
+
+        index.put(train(6L, "Chennai", "Bangalore", "14:00"));
+        assertEquals(List.of(3L, 6L, 1L), ids(index.search("Chennai", "Bangalore", null, 0, 0, NOW)));
+
+        index.remove(3L);
+        index.remove(4L);
+        assertEquals(List.of(6L, 1L), ids(index.search("Chennai", "", null, 0, 0, NOW)));
+        assertEquals(4, index.size());
+    }
+
+    private static List<Long> ids(List<TrainDTO> trains) {
+        return trains.stream().map(TrainDTO::getId).toList();
+    }
+
+    private static TrainDTO train(Long id, String origin, String destination, String departure) {
+        TrainDTO dto = new TrainDTO();
+        dto.setId(id);
+        dto.setTrainNumber(10_000 + id);
+        dto.setTrainName("Express " + id);
+        dto.setOrigin(origin);
+        dto.setDestination(destination);
+        dto.setDepartureTime(LocalTime.parse(departure));
+        dto.setArrivalTime(LocalTime.parse(departure).plusHours(5));
+        dto.setSeatsAvailable(100);
+        dto.setPrice(500);
+        return dto;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CoachAvailabilityDTO;
+import com.example.demo.dto.SeatAvailabilityDTO;
+import com.example.demo.dto.TrainDTO;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Coach;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.CoachRepository;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SeatAvailabilityTest {
+
+    @Autowired
+    private TrainService trainService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private CoachRepository coachRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(3);
+
+    @BeforeEach
+    void createUser() {
+        if (userRepo.findByUsername("traveller").isEmpty()) {
+            userRepo.save(User.builder().username("traveller").password("x").role(Role.USER).build());
+        }
+    }
+
+    @Test
+    void buildsCoachesFromClassCapacities() throws Exception {
+        // As the admin form sends it: blank fields for the classes it leaves out
+        TrainDTO dto = objectMapper.readValue("""
+                {"trainNumber": 2001, "trainName": "Layout Express", "origin": "Kochi", "destination": "Goa",
+                 "price": 400, "seatsAvailable": 10,
+                 "seatAvailability": [
+                   {"class": "SL", "className": "Sleeper Class", "price": "350", "availableSeats": "100"},
+                   {"class": "3A", "className": "AC 3 Tier", "price": "900", "availableSeats": "64"},
+                   {"class": "2A", "className": "AC 2 Tier", "price": "", "availableSeats": ""}
+                 ]}""", TrainDTO.class);
+        TrainDTO added = trainService.addTrain(dto);
+
+        assertEquals(164, added.getSeatsAvailable());
+        assertEquals(List.of("S1", "S2", "B1"), coachRepo.findByTrainIdOrderByPositionNo(added.getId()).stream()
+                .map(Coach::getCode).toList());
+        assertEquals(List.of(72, 28, 64), trainService.getCoachAvailability(added.getId(), travelDate).stream()
+                .map(CoachAvailabilityDTO::seatCount).toList());
+
+        List<SeatAvailabilityDTO> classes = trainService.getTrainDetails(added.getId(), travelDate).getSeatAvailability();
+        assertEquals(List.of("SL", "3A"), classes.stream().map(SeatAvailabilityDTO::getSeatClass).toList());
+        assertEquals(100, classes.get(0).getAvailableSeats());
+        assertEquals(350L, classes.get(0).getPrice());
+    }
+
+    @Test
+    void bookingsAndCancellationsMoveTheCounts() {
+        TrainDTO added = trainService.addTrain(train(2002, classes("SL", 2, "1A", 24)));
+
+        Booking booking = bookingService.bookTicket(request(added.getId()), List.of("S1-1", "h1-5"), "traveller");
+        assertEquals(List.of(1, 23), available(added.getId(), travelDate));
+        // Other dates are untouched
+        assertEquals(List.of(2, 24), available(added.getId(), travelDate.plusDays(1)));
+
+        CoachAvailabilityDTO sleeper = trainService.getCoachAvailability(added.getId(), travelDate).get(0);
+        assertEquals(List.of("S1-2"), sleeper.freeSeats());
+
+        bookingService.cancelTicket(booking.getId(), "traveller", false);
+        assertEquals(List.of(2, 24), available(added.getId(), travelDate));
+    }
+
+    @Test
+    void rejectsSeatsOutsideTheLayout() {
+        TrainDTO added = trainService.addTrain(train(2003, classes("SL", 2)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.bookTicket(request(added.getId()), List.of("S1-3"), "traveller"));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.bookTicket(request(added.getId()), List.of("A7"), "traveller"));
+        assertEquals(List.of(2), available(added.getId(), travelDate));
+    }
+
+    @Test
+    void trainsWithoutLayoutHaveOneGeneralClass() {
+        TrainDTO dto = train(2004, null);
+        dto.setSeatsAvailable(2);
+        TrainDTO added = trainService.addTrain(dto);
+
+        bookingService.bookTicket(request(added.getId()), List.of("17"), "traveller");
+        SeatAvailabilityDTO general = trainService.getTrainDetails(added.getId(), travelDate).getSeatAvailability().get(0);
+        assertEquals("GEN", general.getSeatClass());
+        assertEquals(2, general.getCapacity());
+        assertEquals(1, general.getAvailableSeats());
+
+        bookingService.bookTicket(request(added.getId()), List.of("18"), "traveller");
+        // Free-form seat numbers, but never more than the train's capacity
+        assertThrows(IllegalStateException.class,
+                () -> bookingService.bookTicket(request(added.getId()), List.of("19"), "traveller"));
+    }
+
+    @Test
+    void changingTheLayoutResizesTheClasses() {
+        TrainDTO added = trainService.addTrain(train(2005, classes("3A", 10)));
+        bookingService.bookTicket(request(added.getId()), List.of("B1-10"), "traveller");
+
+        trainService.updateTrain(added.getId(), train(2005, classes("3A", 5, "SL", 4)));
+
+        // The old booking now sits outside the layout and holds no seat in it
+        assertEquals(List.of(5, 4), available(added.getId(), travelDate));
+        bookingService.bookTicket(request(added.getId()), List.of("B1-5"), "traveller");
+        assertEquals(List.of(4, 4), available(added.getId(), travelDate));
+    }
+
+    @Test
+    void freeFormSeatsHoldABitOnlyWhileBooked() {
+        SeatInventoryService.TrainDaySeats seats =
+                new SeatInventoryService.TrainDaySeats(SeatInventoryService.TrainLayout.general(2, 100));
+        int[] booked = seats.bitsForBooking(List.of("X1", "X2"));
+        seats.set(booked);
+
+        // Turned away as the train is full, so the label is forgotten and its bit reused
+        int[] refused = seats.bitsForBooking(List.of("Y1"));
+        assertNotNull(seats.refusal(refused));
+        seats.forgetUnbooked(refused);
+        assertEquals(0, seats.bitsOf(List.of("Y1")).length);
+        assertArrayEquals(refused, seats.bitsForBooking(List.of("Z1")));
+
+        seats.clear(booked);
+        seats.forgetUnbooked(booked);
+        assertEquals(0, seats.bitsOf(List.of("X1", "X2")).length);
+    }
+
+    private List<Integer> available(Long trainId, LocalDate date) {
+        return trainService.getTrainDetails(trainId, date).getSeatAvailability().stream()
+                .map(SeatAvailabilityDTO::getAvailableSeats)
+                .toList();
+    }
+
+    private static List<SeatAvailabilityDTO> classes(Object... codeAndCapacity) {
+        List<SeatAvailabilityDTO> classes = new ArrayList<>();
+        for (int i = 0; i < codeAndCapacity.length; i += 2) {
+            classes.add(new SeatAvailabilityDTO((String) codeAndCapacity[i], null, (Integer) codeAndCapacity[i + 1], null, null));
+        }
+        return classes;
+    }
+
+    private Booking request(Long trainId) {
+        Train train = new Train();
+        train.setId(trainId);
+        Booking booking = new Booking();
+        booking.setTrain(train);
+        booking.setPassengerName("Seat Counter");
+        booking.setEmail("seats@example.com");
+        booking.setBookingDate(travelDate.atStartOfDay());
+        return booking;
+    }
+
+    private static TrainDTO train(long number, List<SeatAvailabilityDTO> classes) {
+        TrainDTO dto = new TrainDTO();
+        dto.setTrainNumber(number);
+        dto.setTrainName("Layout Express " + number);
+        dto.setOrigin("Kochi");
+        dto.setDestination("Mangalore");
+        dto.setDepartureTime(LocalTime.of(7, 0));
+        dto.setArrivalTime(LocalTime.of(15, 0));
+        dto.setSeatsAvailable(100);
+        dto.setPrice(450);
+        dto.setSeatAvailability(classes);
+        return dto;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BookingStateChange;
+import com.example.demo.model.Booking;
+import com.example.demo.model.BookingState;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A short window so holds run out on the timer wheel while the test waits
+@SpringBootTest(properties = {"rail.hold.window=PT2S", "rail.hold.tick=PT0.05S"})
+class SeatHoldTest {
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private SeatHoldService seatHolds;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(9);
+    private Train train;
+
+    @BeforeEach
+    void createTrain() {
+        if (userRepo.findByUsername("holder").isEmpty()) {
+            userRepo.save(User.builder().username("holder").password("x").role(Role.USER).build());
+        }
+        train = trainRepo.save(Train.builder().trainNumber(5001).trainName("Hold Express")
+                .origin("Surat").destination("Indore")
+                .departureTime(LocalTime.of(10, 0)).arrivalTime(LocalTime.of(19, 0))
+                .seatsAvailable(20).price(250).build());
+    }
+
+    @Test
+    void unpaidHoldRunsOutAndFreesItsSeats() throws Exception {
+        Booking booking = bookingService.bookTicket(request(), List.of("H1", "H2"), "holder");
+        assertNotNull(booking.getHoldExpiresAt());
+        assertFalse(seatInventory.isAvailable(train.getId(), travelDate, List.of("H1")));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!bookingRepo.findById(booking.getId()).orElseThrow().isCanceled()) {
+            assertTrue(System.currentTimeMillis() < deadline, "hold never expired");
+            Thread.sleep(50);
+        }
+        // The seats go back to the inventory just after the expiry commits
+        while (!seatInventory.isAvailable(train.getId(), travelDate, List.of("H1", "H2"))) {
+            assertTrue(System.currentTimeMillis() < deadline, "seats of the expired hold were never freed");
+            Thread.sleep(10);
+        }
+        assertThrows(IllegalStateException.class, () -> paymentService.simulatePayment(booking.getId()));
+        // The seats can be sold again
+        assertNotNull(bookingService.bookTicket(request(), List.of("H1"), "holder").getId());
+    }
+
+    @Test
+    void paymentConvertsTheHold() throws Exception {
+        Booking booking = bookingService.bookTicket(request(), List.of("P1"), "holder");
+
+        BookingStateChange paid = paymentService.simulatePayment(booking.getId());
+        assertTrue(paid.paid());
+        assertEquals(BookingState.PAID, paid.state());
+        assertNull(bookingRepo.findById(booking.getId()).orElseThrow().getHoldExpiresAt());
+        // Paying again is harmless
+        assertTrue(paymentService.simulatePayment(booking.getId()).paid());
+
+        Thread.sleep(2500);
+        assertFalse(bookingRepo.findById(booking.getId()).orElseThrow().isCanceled());
+        assertFalse(seatInventory.isAvailable(train.getId(), travelDate, List.of("P1")));
+    }
+
+    @Test
+    void sweepExpiresHoldsNoTimerKnowsAbout() {
+        Booking booking = bookingService.bookTicket(request(), List.of("S1"), "holder");
+        // As if another node took the hold and went down
+        Booking stored = bookingRepo.findById(booking.getId()).orElseThrow();
+        stored.setHoldExpiresAt(LocalDateTime.now().minusMinutes(1));
+        bookingRepo.save(stored);
+
+        seatHolds.expireDue();
+
+        assertEquals(BookingState.EXPIRED, bookingRepo.findById(booking.getId()).orElseThrow().getState());
+        assertTrue(seatInventory.isAvailable(train.getId(), travelDate, List.of("S1")));
+    }
+
+    private Booking request() {
+        Booking booking = new Booking();
+        booking.setTrain(train);
+        booking.setPassengerName("Holder");
+        booking.setEmail("holder@example.com");
+        booking.setBookingDate(travelDate.atStartOfDay());
+        return booking;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.demo.service;
+
+import com.example.demo.model.BookedSeat;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Role;
+import com.example.demo.model.SeatReservation;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.SeatReservationRepository;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SeatReservationConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 40;
+    private static final int SEATS = 30;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private SeatReservationRepository seatReservationRepo;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private TransactionTemplate tx;
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(7);
+
+    @BeforeEach
+    void createUser() {
+        if (userRepo.findByUsername("stress").isEmpty()) {
+            userRepo.save(User.builder().username("stress").password("x").role(Role.USER).build());
+        }
+    }
+
+    @Test
+    void concurrentBookingsNeverDoubleSellASeat() throws Exception {
+        Train hot = newTrain(1001);
+        Train quiet = newTrain(1002);
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger unexpected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            // A quarter of the threads book the quiet train to show it is not held up by the hot one
+            Train train = t % 4 == 0 ? quiet : hot;
+            pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    List<String> seats = new ArrayList<>();
+                    int wanted = 1 + random.nextInt(3);
+                    while (seats.size() < wanted) {
+                        String seat = "S" + (1 + random.nextInt(SEATS));
+                        if (!seats.contains(seat)) {
+                            seats.add(seat);
+                        }
+                    }
+                    try {
+                        bookingService.bookTicket(request(train), seats, "stress");
+                        booked.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        unexpected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertEquals(0, unexpected.get());
+        assertTrue(booked.get() > 0);
+        assertTrue(rejected.get() > 0, "the hot train should have run out of seats");
+        assertNoSeatSoldTwice(hot);
+        assertNoSeatSoldTwice(quiet);
+    }
+
+    @Test
+    void databaseRejectsSeatTakenByAnotherNode() {
+        Train train = newTrain(1003);
+        // Load the (train, date) into memory before the other node sells the seat
+        assertTrue(seatInventory.isAvailable(train.getId(), travelDate, List.of("A1")));
+
+        Booking other = bookingService.bookTicket(request(train), List.of("B1"), "stress");
+        seatReservationRepo.save(new SeatReservation(null, train.getId(), travelDate, "A1", other.getId()));
+
+        assertThrows(IllegalStateException.class,
+                () -> bookingService.bookTicket(request(train), List.of("A1", "A2"), "stress"));
+        // The failed attempt must not leave A2 marked as sold in memory
+        assertTrue(seatInventory.isAvailable(train.getId(), travelDate, List.of("A2")));
+    }
+
+    @Test
+    void canceledSeatsCanBeBookedAgain() {
+        Train train = newTrain(1004);
+        Booking first = bookingService.bookTicket(request(train), List.of("C1"), "stress");
+        assertThrows(IllegalStateException.class,
+                () -> bookingService.bookTicket(request(train), List.of("c1 "), "stress"));
+
+        bookingService.cancelTicket(first.getId(), "stress", false);
+
+        assertNotNull(bookingService.bookTicket(request(train), List.of("C1"), "stress").getId());
+    }
+
+    @Test
+    void seatFreedOnAnotherNodeCanBeBookedHere() {
+        Train train = newTrain(1005);
+        Booking first = bookingService.bookTicket(request(train), List.of("D1"), "stress");
+        // A second node sharing the database, which reads D1 as sold before this node cancels it
+        SeatInventoryService otherNode = beanFactory.createBean(SeatInventoryService.class);
+        assertFalse(otherNode.isAvailable(train.getId(), travelDate, List.of("D1")));
+
+        bookingService.cancelTicket(first.getId(), "stress", false);
+
+        tx.executeWithoutResult(status -> {
+            otherNode.reserveForTransaction(train.getId(), travelDate, List.of("D1"));
+            seatReservationRepo.save(new SeatReservation(null, train.getId(), travelDate, "D1", first.getId()));
+        });
+        assertFalse(otherNode.isAvailable(train.getId(), travelDate, List.of("D1")));
+    }
+
+    @Test
+    void staleCopyPicksUpSeatsFreedOnAnotherNode() {
+        Train train = newTrain(1006);
+        Booking first = bookingService.bookTicket(request(train), List.of("E1", "E2"), "stress");
+        SeatInventoryService otherNode = beanFactory.createBean(SeatInventoryService.class);
+        assertEquals(SEATS - 2, otherNode.classAvailability(train.getId(), travelDate).get(0).getAvailableSeats());
+        List<LocalDate> changes = new ArrayList<>();
+        otherNode.onChange((trainId, date) -> changes.add(date));
+
+        bookingService.cancelTicket(first.getId(), "stress", false);
+        ReflectionTestUtils.setField(otherNode, "refreshInterval", Duration.ZERO);
+        otherNode.refreshIfStale(train.getId(), travelDate);
+
+        assertEquals(List.of(travelDate), changes);
+        assertEquals(SEATS, otherNode.classAvailability(train.getId(), travelDate).get(0).getAvailableSeats());
+    }
+
+    private void assertNoSeatSoldTwice(Train train) {
+        List<String> soldSeats = tx.execute(status -> bookingRepo.findAll().stream()
+                .filter(b -> !b.isCanceled() && b.getTrain().getId().equals(train.getId()))
+                .flatMap(b -> b.getSeats().stream())
+                .map(BookedSeat::getSeatNumber)
+                .map(SeatInventoryService::normalizeSeat)
+                .toList());
+
+        Set<String> distinct = new HashSet<>(soldSeats);
+        assertEquals(distinct.size(), soldSeats.size(), "a seat was sold to more than one booking");
+        assertEquals(soldSeats.size(), seatInventory.bookedCount(train.getId(), travelDate));
+        long reservationRows = seatReservationRepo.findAll().stream()
+                .filter(r -> r.getTrainId().equals(train.getId()))
+                .count();
+        assertEquals(soldSeats.size(), reservationRows);
+    }
+
+    private Booking request(Train train) {
+        Booking booking = new Booking();
+        booking.setTrain(train);
+        booking.setPassengerName("Stress Tester");
+        booking.setEmail("stress@example.com");
+        booking.setBookingDate(travelDate.atStartOfDay());
+        return booking;
+    }
+
+    private Train newTrain(long number) {
+        return trainRepo.save(Train.builder()
+                .trainNumber(number)
+                .trainName("Stress Express " + number)
+                .origin("Chennai")
+                .destination("Madurai")
+                .departureTime(LocalTime.of(6, 0))
+                .arrivalTime(LocalTime.of(13, 0))
+                .seatsAvailable(SEATS)
+                .price(500)
+                .build());
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Booking;
+import com.example.demo.model.BookingState;
+import com.example.demo.model.FulfilmentStatus;
+import com.example.demo.model.Role;
+import com.example.demo.model.TicketFulfilment;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.TicketFulfilmentRepository;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// GreenMail is an in-process SMTP server on port 3025; the poller only runs when a test calls it
+@SpringBootTest(properties = {
+        "spring.mail.port=3025",
+        "rail.mail.linger=PT0.01S",
+        "rail.mail.breaker.failure-threshold=3",
+        "rail.mail.breaker.open-for=PT1H",
+        "rail.fulfilment.max-attempts=2",
+        "rail.fulfilment.poll-interval=PT1H"
+})
+class TicketFulfilmentServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private TicketFulfilmentService fulfilment;
+    @Autowired
+    private TicketFulfilmentRepository fulfilmentRepo;
+    @Autowired
+    private EmailService emailService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private TransactionTemplate tx;
+
+    private Train train;
+    private int seat;
+
+    @BeforeEach
+    void createTrain() {
+        if (userRepo.findByUsername("ticket-mail").isEmpty()) {
+            userRepo.save(User.builder().username("ticket-mail").password("x").role(Role.USER).build());
+        }
+        train = trainRepo.save(Train.builder().trainNumber(2101).trainName("Outbox Mail")
+                .origin("Chennai").destination("Salem")
+                .departureTime(LocalTime.of(8, 0)).arrivalTime(LocalTime.of(12, 0))
+                .seatsAvailable(50).price(300).build());
+    }
+
+    @Test
+    void mailsTicketOncePaymentCommits() throws Exception {
+        Booking booking = paidBooking("paid@fulfilment.test");
+        tx.executeWithoutResult(status -> fulfilment.schedule(booking.getId()));
+
+        TicketFulfilment row = awaitRow(booking, r -> r.getStatus() == FulfilmentStatus.SENT);
+        assertEquals(0, row.getAttempts());
+        assertEquals(1, greenMail.getReceivedMessagesForDomain("paid@fulfilment.test").length);
+    }
+
+    @Test
+    void retriesFailedMailThenGivesUp() throws Exception {
+        greenMail.stop();
+        Booking booking = paidBooking("down@fulfilment.test");
+        tx.executeWithoutResult(status -> fulfilment.schedule(booking.getId()));
+
+        TicketFulfilment row = awaitRow(booking, r -> r.getAttempts() == 1);
+        // The ticket was rendered, so the retry only has to mail it
+        assertEquals(FulfilmentStatus.RENDERED, row.getStatus());
+        assertNotNull(row.getLastError());
+        assertTrue(row.getNextAttemptAt().isAfter(LocalDateTime.now()));
+
+        makeDue(row);
+        fulfilment.pollOutbox();
+        row = awaitRow(booking, r -> r.getAttempts() == 2);
+        assertEquals(FulfilmentStatus.FAILED, row.getStatus());
+    }
+
+    @Test
+    @DirtiesContext
+    void postponesWithoutSpendingAttemptsWhileMailCircuitIsOpen() throws Exception {
+        greenMail.stop();
+        openMailCircuit();
+        Booking booking = paidBooking("outage@fulfilment.test");
+        tx.executeWithoutResult(status -> fulfilment.schedule(booking.getId()));
+
+        // However long the outage, the row stays due for another try
+        for (int i = 0; i < 3; i++) {
+            TicketFulfilment row = awaitRow(booking, r -> r.getStatus() == FulfilmentStatus.RENDERED
+                    && r.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(5)));
+            assertEquals(0, row.getAttempts());
+            makeDue(row);
+            fulfilment.pollOutbox();
+        }
+    }
+
+    @Test
+    void picksUpRowsLeftBehindByRestart() throws Exception {
+        Booking booking = paidBooking("restart@fulfilment.test");
+        // Scheduled by a node that went down before handing it to the pipeline
+        LocalDateTime past = LocalDateTime.now().minusMinutes(10);
+        fulfilmentRepo.save(TicketFulfilment.builder().bookingId(booking.getId())
+                .status(FulfilmentStatus.PENDING).attempts(0).nextAttemptAt(past).createdAt(past).build());
+
+        fulfilment.pollOutbox();
+
+        awaitRow(booking, r -> r.getStatus() == FulfilmentStatus.SENT);
+        assertEquals(1, greenMail.getReceivedMessagesForDomain("restart@fulfilment.test").length);
+    }
+
+    private void openMailCircuit() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            try {
+                emailService.sendBookingEmail("nobody@fulfilment.test", "Probe", "Probe", "Probe.pdf",
+                        new ByteArrayResource("%PDF-1.4 test".getBytes())).get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof EmailService.MailCircuitOpenException) {
+                    return;
+                }
+            }
+        }
+        fail("mail circuit never opened");
+    }
+
+    private void makeDue(TicketFulfilment row) {
+        row.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        fulfilmentRepo.save(row);
+    }
+
+    private TicketFulfilment awaitRow(Booking booking, Predicate<TicketFulfilment> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) {
+            TicketFulfilment row = fulfilmentRepo.findAll().stream()
+                    .filter(r -> r.getBookingId().equals(booking.getId()))
+                    .findFirst().orElse(null);
+            if (row != null && condition.test(row)) {
+                return row;
+            }
+            if (System.nanoTime() > deadline) {
+                fail("ticket for booking " + booking.getId() + " never reached the expected state: " + row);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private Booking paidBooking(String email) {
+        Booking request = new Booking();
+        request.setTrain(train);
+        request.setPassengerName("Mail Tester");
+        request.setEmail(email);
+        request.setBookingDate(LocalDate.now().plusDays(4).atStartOfDay());
+        Booking booking = bookingService.bookTicket(request, List.of("F" + ++seat), "ticket-mail");
+        booking.setState(BookingState.PAID);
+        return bookingRepo.save(booking);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    private final List<Long> fired = new CopyOnWriteArrayList<>();
+    // A small wheel, so deadlines go round it several times
+    private final TimerWheel wheel = new TimerWheel("test-wheel", Duration.ofMillis(10), 8, fired::addAll);
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        wheel.stop();
+    }
+
+    @Test
+    void firesInDeadlineOrderAcrossTurns() throws Exception {
+        wheel.schedule(3, Duration.ofMillis(300));
+        wheel.schedule(1, Duration.ofMillis(20));
+        wheel.schedule(2, Duration.ofMillis(150));
+        wheel.schedule(4, Duration.ofMillis(-50));
+
+        awaitFired(4);
+        assertEquals(List.of(4L, 1L, 2L, 3L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledAndReplacedDeadlinesDoNotFire() throws Exception {
+        wheel.schedule(1, Duration.ofMillis(50));
+        wheel.schedule(2, Duration.ofMillis(50));
+        wheel.schedule(3, Duration.ofMillis(50));
+        wheel.cancel(2);
+        wheel.schedule(3, Duration.ofMillis(250));
+
+        awaitFired(1);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(List.of(1L), fired);
+        awaitFired(2);
+        assertEquals(List.of(1L, 3L), fired);
+    }
+
+    @Test
+    void handlesManyConcurrentDeadlines() throws Exception {
+        int threads = 8;
+        int perThread = 25_000;
+        ConcurrentLinkedQueue<Thread> workers = new ConcurrentLinkedQueue<>();
+        for (int t = 0; t < threads; t++) {
+            long base = (long) t * perThread;
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    wheel.schedule(base + i, Duration.ofMillis(i % 200));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        awaitFired(threads * perThread);
+        assertEquals(threads * perThread, fired.stream().distinct().count());
+    }
+
+    private void awaitFired(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (fired.size() < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "only " + fired.size() + " of " + count + " fired");
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+}
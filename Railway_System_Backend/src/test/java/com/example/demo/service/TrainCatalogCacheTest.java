@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.InvalidationBus;
+import com.example.demo.dto.TrainDTO;
+import com.example.demo.model.Train;
+import com.example.demo.repository.TrainRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TrainCatalogCacheTest {
+
+    @Autowired
+    private TrainService trainService;
+    @Autowired
+    private TrainRepository trainRepo;
+    @Autowired
+    private InvalidationBus invalidationBus;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void servesRepeatReadsFromCache() {
+        TrainDTO added = trainService.addTrain(train("Cached Express", "Salem", "Erode"));
+        double hitsBefore = gets("trains.byId", "hit");
+
+        trainService.getTrainById(added.getId());
+        trainService.getTrainById(added.getId());
+
+        assertEquals(hitsBefore + 1, gets("trains.byId", "hit"));
+    }
+
+    @Test
+    void writesInvalidateCachedEntriesAndSearch() {
+        TrainDTO added = trainService.addTrain(train("Changing Express", "Trichy", "Karur"));
+        assertEquals("Changing Express", trainService.getTrainById(added.getId()).getTrainName());
+        assertTrue(trainService.getAllTrains().stream().anyMatch(t -> t.getId().equals(added.getId())));
+
+        TrainDTO changed = train("Renamed Express", "Trichy", "Dindigul");
+        trainService.updateTrain(added.getId(), changed);
+        assertEquals("Renamed Express", trainService.getTrainById(added.getId()).getTrainName());
+        assertTrue(trainService.searchTrains("Trichy", "Karur", null, 0, 0).isEmpty());
+        assertEquals(1, trainService.searchTrains("trichy", "dindigul", null, 0, 0).size());
+
+        trainService.deleteTrain(added.getId());
+        assertThrows(IllegalArgumentException.class, () -> trainService.getTrainById(added.getId()));
+        assertTrue(trainService.getAllTrains().stream().noneMatch(t -> t.getId().equals(added.getId())));
+        assertTrue(trainService.searchTrains("Trichy", "", null, 0, 0).isEmpty());
+    }
+
+    @Test
+    void appliesInvalidationsFromOtherNodes() {
+        TrainDTO added = trainService.addTrain(train("Remote Express", "Vellore", "Hosur"));
+        trainService.getTrainById(added.getId());
+
+        // Another node changes the row directly and broadcasts the change
+        Train row = trainRepo.findById(added.getId()).orElseThrow();
+        row.setPrice(999);
+        trainRepo.save(row);
+        assertEquals(500, trainService.getTrainById(added.getId()).getPrice());
+
+        invalidationBus.publish("train", added.getId());
+        assertEquals(999, trainService.getTrainById(added.getId()).getPrice());
+        assertEquals(999, trainService.searchTrains("Vellore", "Hosur", null, 0, 0).get(0).getPrice());
+    }
+
+    @Test
+    void resyncRecoversFromMissedInvalidations() {
+        TrainDTO added = trainService.addTrain(train("Missed Express", "Nagercoil", "Tenkasi"));
+        assertEquals(50, trainService.getCoachAvailability(added.getId(), LocalDate.now().plusDays(1)).get(0).availableSeats());
+
+        // Another node changes the row and its layout, but this node never hears of it
+        Train row = trainRepo.findById(added.getId()).orElseThrow();
+        row.setDestination("Kollam");
+        row.setSeatsAvailable(20);
+        trainRepo.save(row);
+        assertEquals(1, trainService.searchTrains("Nagercoil", "Tenkasi", null, 0, 0).size());
+
+        trainService.resync();
+        assertTrue(trainService.searchTrains("Nagercoil", "Tenkasi", null, 0, 0).isEmpty());
+        assertEquals(1, trainService.searchTrains("Nagercoil", "Kollam", null, 0, 0).size());
+        assertEquals(20, trainService.getCoachAvailability(added.getId(), LocalDate.now().plusDays(1)).get(0).availableSeats());
+    }
+
+    private double gets(String cache, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+
+    private static TrainDTO train(String name, String origin, String destination) {
+        TrainDTO dto = new TrainDTO();
+        dto.setTrainNumber(System.nanoTime() % 100_000);
+        dto.setTrainName(name);
+        dto.setOrigin(origin);
+        dto.setDestination(destination);
+        dto.setDepartureTime(LocalTime.of(8, 0));
+        dto.setArrivalTime(LocalTime.of(11, 0));
+        dto.setSeatsAvailable(50);
+        dto.setPrice(500);
+        return dto;
+    }
+}
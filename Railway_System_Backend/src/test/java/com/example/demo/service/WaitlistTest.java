@@ -0,0 +1,230 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SeatAvailabilityDTO;
+import com.example.demo.dto.TrainDTO;
+import com.example.demo.dto.WaitlistEntryDTO;
+import com.example.demo.dto.WaitlistRequest;
+import com.example.demo.model.Booking;
+import com.example.demo.model.BookingState;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.model.WaitlistStatus;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.SeatReservationRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.WaitlistRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Allocation mails the passenger; GreenMail is an in-process SMTP server on port 3025
+@SpringBootTest(properties = {"spring.mail.port=3025", "rail.mail.linger=PT0.01S"})
+class WaitlistTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private TrainService trainService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private WaitlistService waitlistService;
+    @Autowired
+    private SeatInventoryService seatInventory;
+    @Autowired
+    private WaitlistRepository waitlistRepo;
+    @Autowired
+    private SeatReservationRepository seatReservationRepo;
+    @Autowired
+    private BookingRepository bookingRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(12);
+
+    @BeforeEach
+    void createUsers() {
+        for (String name : List.of("booker", "waiter", "vip-desk")) {
+            if (userRepo.findByUsername(name).isEmpty()) {
+                userRepo.save(User.builder().username(name).password("x").role(Role.USER).build());
+            }
+        }
+    }
+
+    @Test
+    void servesPriorityThenArrivalOrder() throws Exception {
+        Long trainId = sleeperTrain(6001, 2);
+        Booking first = book(trainId, "S1-1");
+        book(trainId, "S1-2");
+
+        WaitlistEntryDTO early = waitlistService.join(request(trainId, 1, null), "waiter", false);
+        // Priority from a regular user is ignored
+        WaitlistEntryDTO ignored = waitlistService.join(request(trainId, 1, 9), "waiter", false);
+        WaitlistEntryDTO quota = waitlistService.join(request(trainId, 1, 5), "vip-desk", true);
+        assertEquals(0, ignored.priority());
+        assertEquals(0, quota.position());
+        assertEquals(2, waitlistService.entriesFor("waiter").stream()
+                .filter(e -> e.id().equals(ignored.id())).findFirst().orElseThrow().position());
+
+        bookingService.cancelTicket(first.getId(), "booker", false);
+
+        await(() -> status(quota.id()) == WaitlistStatus.ALLOCATED);
+        assertNotNull(waitlistRepo.findById(quota.id()).orElseThrow().getBookingId());
+        assertEquals(WaitlistStatus.WAITING, status(early.id()));
+        assertEquals(0, waitlistService.entriesFor("waiter").stream()
+                .filter(e -> e.id().equals(early.id())).findFirst().orElseThrow().position());
+    }
+
+    @Test
+    void largerPartyAtTheHeadIsNotOvertaken() throws Exception {
+        Long trainId = sleeperTrain(6002, 2);
+        Booking first = book(trainId, "S1-1");
+        book(trainId, "S1-2");
+
+        WaitlistEntryDTO pair = waitlistService.join(request(trainId, 2, null), "waiter", false);
+        WaitlistEntryDTO single = waitlistService.join(request(trainId, 1, null), "waiter", false);
+
+        bookingService.cancelTicket(first.getId(), "booker", false);
+        Thread.sleep(300);
+        assertEquals(WaitlistStatus.WAITING, status(pair.id()));
+        assertEquals(WaitlistStatus.WAITING, status(single.id()));
+    }
+
+    @Test
+    void concurrentCancellationsNeverOverAllocate() throws Exception {
+        int seats = 12;
+        Long trainId = sleeperTrain(6003, seats);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 1; i <= seats; i++) {
+            bookings.add(book(trainId, "S1-" + i));
+        }
+        List<Long> entries = new ArrayList<>();
+        for (int i = 0; i < seats * 2; i++) {
+            entries.add(waitlistService.join(request(trainId, 1, null), "waiter", false).id());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        CountDownLatch start = new CountDownLatch(1);
+        for (Booking booking : bookings) {
+            pool.submit(() -> {
+                start.await();
+                return bookingService.cancelTicket(booking.getId(), "booker", false);
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+        await(() -> entries.stream().filter(id -> status(id) == WaitlistStatus.ALLOCATED).count() == seats);
+        Thread.sleep(300);
+        // Exactly the freed seats were handed out, to the first in line
+        assertEquals(entries.subList(0, seats), entries.stream().filter(id -> status(id) == WaitlistStatus.ALLOCATED).toList());
+        assertEquals(seats, seatInventory.bookedCount(trainId, travelDate));
+        assertEquals(seats, seatReservationRepo.findAll().stream()
+                .filter(r -> r.getTrainId().equals(trainId) && r.getTravelDate().equals(travelDate)).count());
+    }
+
+    @Test
+    void withdrawnEntriesAreSkipped() throws Exception {
+        Long trainId = sleeperTrain(6004, 2);
+        Booking only = book(trainId, "S1-1");
+        // Free seats are booked directly, not waited for
+        assertThrows(IllegalStateException.class,
+                () -> waitlistService.join(request(trainId, 1, null), "waiter", false));
+        book(trainId, "S1-2");
+
+        WaitlistEntryDTO gone = waitlistService.join(request(trainId, 1, null), "waiter", false);
+        WaitlistEntryDTO next = waitlistService.join(request(trainId, 1, null), "waiter", false);
+        assertThrows(IllegalStateException.class, () -> waitlistService.withdraw(gone.id(), "booker", false));
+        waitlistService.withdraw(gone.id(), "waiter", false);
+
+        bookingService.cancelTicket(only.getId(), "booker", false);
+        await(() -> status(next.id()) == WaitlistStatus.ALLOCATED);
+        assertEquals(WaitlistStatus.WITHDRAWN, status(gone.id()));
+    }
+
+    @Test
+    void allocationIsHeldForTheWaitlistWindowAndMailed() throws Exception {
+        Long trainId = sleeperTrain(6005, 1);
+        Booking only = book(trainId, "S1-1");
+        WaitlistEntryDTO entry = waitlistService.join(request(trainId, 1, null), "waiter", false);
+        LocalDateTime freedAt = LocalDateTime.now();
+
+        bookingService.cancelTicket(only.getId(), "booker", false);
+        await(() -> status(entry.id()) == WaitlistStatus.ALLOCATED);
+
+        Long bookingId = waitlistRepo.findById(entry.id()).orElseThrow().getBookingId();
+        Booking allocated = bookingRepo.findById(bookingId).orElseThrow();
+        assertEquals(BookingState.HELD, allocated.getState());
+        // Not the 15 minutes of a booking the passenger made themselves
+        assertTrue(allocated.getHoldExpiresAt().isAfter(freedAt.plusHours(11)));
+        await(() -> Arrays.stream(greenMail.getReceivedMessages())
+                .anyMatch(mail -> GreenMailUtil.getBody(mail).contains("booking " + bookingId)));
+        MimeMessage mail = Arrays.stream(greenMail.getReceivedMessages())
+                .filter(m -> GreenMailUtil.getBody(m).contains("booking " + bookingId)).findFirst().orElseThrow();
+        assertEquals("wait@example.com", mail.getAllRecipients()[0].toString());
+        assertTrue(GreenMailUtil.getBody(mail).contains("S1-1"));
+    }
+
+    private WaitlistStatus status(Long entryId) {
+        return waitlistRepo.findById(entryId).orElseThrow().getStatus();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(20);
+        }
+    }
+
+    private Long sleeperTrain(long number, int seats) {
+        TrainDTO dto = new TrainDTO();
+        dto.setTrainNumber(number);
+        dto.setTrainName("Waitlist Express " + number);
+        dto.setOrigin("Bhopal");
+        dto.setDestination("Jaipur");
+        dto.setDepartureTime(LocalTime.of(20, 0));
+        dto.setArrivalTime(LocalTime.of(6, 0));
+        dto.setPrice(600);
+        dto.setSeatAvailability(List.of(new SeatAvailabilityDTO("SL", null, seats, null, null)));
+        return trainService.addTrain(dto).getId();
+    }
+
+    private Booking book(Long trainId, String seat) {
+        Train train = new Train();
+        train.setId(trainId);
+        Booking booking = new Booking();
+        booking.setTrain(train);
+        booking.setPassengerName("Booker");
+        booking.setEmail("booker@example.com");
+        booking.setBookingDate(travelDate.atStartOfDay());
+        return bookingService.bookTicket(booking, List.of(seat), "booker");
+    }
+
+    private WaitlistRequest request(Long trainId, int seats, Integer priority) {
+        return new WaitlistRequest(trainId, travelDate, "SL", seats, "Waiting Passenger", "wait@example.com", priority);
+    }
+}
@@ -0,0 +1,74 @@
+#!/usr/bin/env python3
+"""Compares two JMH JSON result files and flags benchmarks that got slower.
+
+    python3 scripts/compare_results.py baseline.json current.json [--threshold 10]
+
+A benchmark regressed when its score moved the wrong way (down for throughput, up for
+time per operation) by more than the threshold percentage AND by more than the two
+runs' error margins combined, so run-to-run noise alone does not trip it. Exits with 1
+if anything regressed, so it can gate a build.
+"""
+import argparse
+import json
+import sys
+
+HIGHER_IS_BETTER = {"thrpt"}
+
+
+def load(path):
+    with open(path) as f:
+        results = json.load(f)
+    by_key = {}
+    for result in results:
+        params = ",".join(f"{k}={v}" for k, v in sorted((result.get("params") or {}).items()))
+        key = result["benchmark"] + (f"({params})" if params else "")
+        by_key[key] = result
+    return by_key
+
+
+def error_of(metric):
+    error = metric.get("scoreError")
+    return 0.0 if error in (None, "NaN") else float(error)
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=10.0, help="allowed slowdown in percent (default 10)")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+    regressions = 0
+
+    print(f"{'benchmark':<70} {'mode':>6} {'baseline':>14} {'current':>14} {'change':>9}")
+    for key in sorted(baseline.keys() | current.keys()):
+        if key not in current:
+            print(f"{key:<70} {'':>6} {'':>14} {'missing':>14}")
+            continue
+        if key not in baseline:
+            print(f"{key:<70} {'':>6} {'new':>14}")
+            continue
+        mode = current[key]["mode"]
+        before, after = baseline[key]["primaryMetric"], current[key]["primaryMetric"]
+        if before["scoreUnit"] != after["scoreUnit"]:
+            print(f"{key:<70} {mode:>6} units changed ({before['scoreUnit']} -> {after['scoreUnit']}), not compared")
+            continue
+        old, new = before["score"], after["score"]
+        change = (new - old) / old * 100 if old else 0.0
+        worse = -change if mode in HIGHER_IS_BETTER else change
+        beyond_noise = abs(new - old) > error_of(before) + error_of(after)
+        regressed = worse > args.threshold and beyond_noise
+        regressions += regressed
+        flag = "  REGRESSION" if regressed else ""
+        print(f"{key:<70} {mode:>6} {old:>14.3f} {new:>14.3f} {change:>+8.1f}%{flag}")
+
+    if regressions:
+        print(f"\n{regressions} benchmark(s) regressed by more than {args.threshold:g}%")
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
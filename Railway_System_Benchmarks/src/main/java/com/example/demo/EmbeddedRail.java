@@ -0,0 +1,22 @@
+package com.example.demo;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the whole application on an in-memory H2 database, for benchmarks that measure
+ * code paths going through its services and repositories. Every benchmark fork is a fresh
+ * JVM, so each starts (and seeds) its own copy.
+ */
+public final class EmbeddedRail {
+
+    private EmbeddedRail() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(RailApplication.class)
+                .profiles("bench")
+                .logStartupInfo(false)
+                .run();
+    }
+}
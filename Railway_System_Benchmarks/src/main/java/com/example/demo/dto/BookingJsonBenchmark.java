@@ -0,0 +1,101 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.BookedSeat;
+import com.example.demo.model.Booking;
+import com.example.demo.model.BookingState;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing bookings as JSON the way the booking endpoints do: the summary a user's list is
+ * made of (one, and a list of 50), the admin detail, and the entity itself as the
+ * endpoints returned it before the DTOs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingJsonBenchmark {
+
+    private static final int LIST_SIZE = 50;
+
+    private ObjectMapper mapper;
+    private Booking booking;
+    private List<Booking> bookings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Configured as Spring Boot configures the application's mapper
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        User user = User.builder().id(3L).username("alice").password("hash").role(Role.USER).build();
+        Train train = Train.builder().id(7L).trainNumber(12635).trainName("Vaigai Express")
+                .origin("Chennai").destination("Madurai")
+                .departureTime(LocalTime.of(13, 40)).arrivalTime(LocalTime.of(21, 15))
+                .seatsAvailable(100).price(450).build();
+        bookings = new ArrayList<>(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            bookings.add(booking(i, user, train));
+        }
+        booking = bookings.get(0);
+    }
+
+    @Benchmark
+    public byte[] summary() throws Exception {
+        return mapper.writeValueAsBytes(BookingSummary.from(booking));
+    }
+
+    @Benchmark
+    public byte[] summaryList() throws Exception {
+        return mapper.writeValueAsBytes(bookings.stream().map(BookingSummary::from).toList());
+    }
+
+    @Benchmark
+    public byte[] detail() throws Exception {
+        return mapper.writeValueAsBytes(BookingDetail.from(booking));
+    }
+
+    @Benchmark
+    public byte[] entity() throws Exception {
+        return mapper.writeValueAsBytes(booking);
+    }
+
+    private static Booking booking(long id, User user, Train train) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setState(BookingState.HELD);
+        booking.setUser(user);
+        booking.setTrain(train);
+        booking.setPassengerName("Passenger " + id);
+        booking.setEmail("p@example.com");
+        booking.setBookingDate(LocalDateTime.of(2026, 12, 24, 0, 0));
+        booking.setTravelDate(booking.getBookingDate().toLocalDate());
+        booking.setHoldExpiresAt(LocalDateTime.of(2026, 12, 20, 10, 15));
+        booking.setSeats(new ArrayList<>(List.of(new BookedSeat("A1", booking), new BookedSeat("A2", booking))));
+        return booking;
+    }
+}
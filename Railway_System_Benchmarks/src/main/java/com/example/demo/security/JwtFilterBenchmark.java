@@ -0,0 +1,92 @@
+package com.example.demo.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link JwtFilter} for an authenticated request.
+ * <p>
+ * {@code legacyTripleParse} is what the filter used to do (a fresh parser and a full
+ * signature check for each of validate, username and role); {@code filterCold} verifies
+ * once per request with the cache disabled and {@code filterCached} is the steady state
+ * for a returning client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final Key KEY = Keys.hmacShaKeyFor("secretkeysecretkeysecretkey123456".getBytes());
+    private static final FilterChain NO_OP = (request, response) -> { };
+
+    private String token;
+    private JwtFilter cachedFilter;
+    private JwtFilter coldFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtUtil cached = new JwtUtil(10_000);
+        JwtUtil cold = new JwtUtil(0);
+        token = cached.generateToken(1L, "alice", "USER");
+
+        cachedFilter = new JwtFilter();
+        ReflectionTestUtils.setField(cachedFilter, "jwtUtil", cached);
+        coldFilter = new JwtFilter();
+        ReflectionTestUtils.setField(coldFilter, "jwtUtil", cold);
+
+        request = new MockHttpServletRequest("GET", "/api/bookings/user");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object legacyTripleParse() {
+        Jwts.parserBuilder().setSigningKey(KEY).build().parseClaimsJws(token);
+        String username = Jwts.parserBuilder().setSigningKey(KEY).build()
+                .parseClaimsJws(token).getBody().getSubject();
+        String role = Jwts.parserBuilder().setSigningKey(KEY).build()
+                .parseClaimsJws(token).getBody().get("role", String.class);
+        return username + role;
+    }
+
+    @Benchmark
+    public Object filterCold() throws Exception {
+        return run(coldFilter);
+    }
+
+    @Benchmark
+    public Object filterCached() throws Exception {
+        return run(cachedFilter);
+    }
+
+    private Object run(JwtFilter filter) throws Exception {
+        filter.doFilter(request, response, NO_OP);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issuing a token at login, and checking one on every request: {@code validateCold} is a
+ * full signature check, {@code validateCached} a token whose claims were verified before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil cached;
+    private JwtUtil cold;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cached = new JwtUtil(10_000);
+        cold = new JwtUtil(0);
+        token = cached.generateToken(1L, "alice", "USER");
+        cached.parseClaims(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return cold.generateToken(1L, "alice", "USER");
+    }
+
+    @Benchmark
+    public Object validateCold() {
+        return cold.parseClaims(token);
+    }
+
+    @Benchmark
+    public Object validateCached() {
+        return cached.parseClaims(token);
+    }
+}
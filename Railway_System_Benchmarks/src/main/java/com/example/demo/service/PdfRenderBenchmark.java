@@ -0,0 +1,123 @@
+package com.example.demo.service;
+
+import com.example.demo.model.BookedSeat;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Train;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Tickets per second for the old string-concatenating, file-writing renderer against the
+ * template renderer, one ticket at a time and in batch mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PdfRenderBenchmark {
+
+    private static final int BATCH = 50;
+
+    private final PdfGeneratorService pdfService = new PdfGeneratorService();
+    private Booking booking;
+    private List<Booking> batch;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        pdfService.init();
+        booking = booking(1);
+        batch = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(booking(i));
+        }
+        dir = Files.createTempDirectory("tickets");
+    }
+
+    @Benchmark
+    public Object legacy() throws Exception {
+        return legacyRender(booking, dir);
+    }
+
+    @Benchmark
+    public byte[] template() throws Exception {
+        return pdfService.renderTicket(booking);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Object templateBatch() throws Exception {
+        return pdfService.renderBatch(batch);
+    }
+
+    // The renderer as it was before the template: a fresh HTML string and builder per ticket, written to disk
+    private static Path legacyRender(Booking booking, Path dir) throws Exception {
+        String seatNumbers = booking.getSeats().stream().map(BookedSeat::getSeatNumber).collect(Collectors.joining(", "));
+        String html = "<html><head><style>" +
+                "body { font-family: Arial, sans-serif; margin: 40px; }" +
+                ".ticket { border: 2px solid #000; padding: 20px; border-radius: 10px; max-width: 600px; margin: auto; }" +
+                ".header { text-align: center; border-bottom: 1px solid #ccc; padding-bottom: 10px; margin-bottom: 20px; }" +
+                ".header h1 { margin: 0; color: #333; }" +
+                ".details-table { width: 100%; border-collapse: collapse; }" +
+                ".details-table td { padding: 8px; border-bottom: 1px solid #eee; }" +
+                ".details-table td:first-child { font-weight: bold; color: #555; }" +
+                "</style></head><body><div class='ticket'>" +
+                "<div class='header'><h1>Railway Reservation Ticket</h1></div><table class='details-table'>" +
+                "<tr><td>Booking ID:</td><td>" + booking.getId() + "</td></tr>" +
+                "<tr><td>Passenger Name:</td><td>" + booking.getPassengerName() + "</td></tr>" +
+                "<tr><td>Train Name:</td><td>" + booking.getTrain().getTrainName() + "</td></tr>" +
+                "<tr><td>From:</td><td>" + booking.getTrain().getOrigin() + "</td></tr>" +
+                "<tr><td>To:</td><td>" + booking.getTrain().getDestination() + "</td></tr>" +
+                "<tr><td>Seat Numbers:</td><td>" + seatNumbers + "</td></tr>" +
+                "<tr><td>Booking Date:</td><td>" + booking.getBookingDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm")) + "</td></tr>" +
+                "</table></div></body></html>";
+        Path file = dir.resolve("Ticket_" + booking.getId() + ".pdf");
+        try (OutputStream os = new FileOutputStream(file.toFile())) {
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.withHtmlContent(html, null);
+            builder.toStream(os);
+            builder.run();
+        }
+        return file;
+    }
+
+    static Booking booking(long id) {
+        Train train = Train.builder().id(7L).trainNumber(12635).trainName("Vaigai Express")
+                .origin("Chennai").destination("Madurai")
+                .departureTime(LocalTime.of(13, 40)).arrivalTime(LocalTime.of(21, 15))
+                .seatsAvailable(100).price(450).build();
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setTrain(train);
+        booking.setPassengerName("Passenger " + id);
+        booking.setEmail("p@example.com");
+        booking.setBookingDate(LocalDateTime.of(2026, 12, 24, 0, 0));
+        booking.setSeats(new ArrayList<>(List.of(new BookedSeat("A1", booking), new BookedSeat("A2", booking))));
+        return booking;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TrainDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Train search on the in-memory route index at catalogue scale: 50,000 trains between 300
+ * stations, searched by an exact route and by an origin prefix that spans many routes. The
+ * searched routes are drawn up front so the measurement is the index alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteIndexBenchmark {
+
+    private static final int TRAINS = 50_000;
+    private static final int STATIONS = 300;
+    private static final int SAMPLES = 1024;
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    private final RouteIndex index = new RouteIndex();
+    private final TrainDTO[] samples = new TrainDTO[SAMPLES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        List<TrainDTO> trains = new ArrayList<>(TRAINS);
+        for (long id = 1; id <= TRAINS; id++) {
+            TrainDTO dto = new TrainDTO();
+            dto.setId(id);
+            dto.setTrainNumber(10_000 + id);
+            dto.setTrainName("Express " + id);
+            dto.setOrigin("Station " + random.nextInt(STATIONS));
+            dto.setDestination("Station " + random.nextInt(STATIONS));
+            dto.setDepartureTime(LocalTime.of(random.nextInt(24), random.nextInt(60)));
+            dto.setArrivalTime(dto.getDepartureTime().plusHours(5));
+            dto.setSeatsAvailable(100);
+            dto.setPrice(500);
+            trains.add(dto);
+        }
+        index.rebuild(trains);
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = trains.get(random.nextInt(TRAINS));
+        }
+    }
+
+    private TrainDTO sample() {
+        return samples[next++ & (SAMPLES - 1)];
+    }
+
+    @Benchmark
+    public List<TrainDTO> searchRoute() {
+        TrainDTO sample = sample();
+        return index.search(sample.getOrigin(), sample.getDestination(), NOW.toLocalDate(), 0, 20, NOW);
+    }
+
+    @Benchmark
+    public List<TrainDTO> searchRouteAnyDate() {
+        TrainDTO sample = sample();
+        return index.search(sample.getOrigin(), sample.getDestination(), null, 0, 20, NOW);
+    }
+
+    // "Station 1" also matches Station 10..19 and 100..199, so this merges many routes
+    @Benchmark
+    public List<TrainDTO> searchOriginPrefix() {
+        return index.search("Station 1", "", NOW.toLocalDate().plusDays(1), 0, 20, NOW);
+    }
+}
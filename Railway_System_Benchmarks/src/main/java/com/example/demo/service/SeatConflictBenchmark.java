@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import com.example.demo.EmbeddedRail;
+import com.example.demo.model.Booking;
+import com.example.demo.model.Role;
+import com.example.demo.model.Train;
+import com.example.demo.model.User;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking seats against those already booked: the in-memory inventory asked about free and
+ * taken seats, a reservation that is handed straight back, and a booking whose seat is taken,
+ * which is turned away inside its transaction before anything is written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeatConflictBenchmark {
+
+    private static final List<String> FREE = List.of("B1", "B2");
+    private static final List<String> TAKEN = List.of("B3", "A5");
+
+    private ConfigurableApplicationContext context;
+    private SeatInventoryService seatInventory;
+    private BookingService bookingService;
+    private Long trainId;
+    private Long userId;
+    private final LocalDate travelDate = LocalDate.now().plusDays(30);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedRail.start();
+        seatInventory = context.getBean(SeatInventoryService.class);
+        bookingService = context.getBean(BookingService.class);
+
+        userId = context.getBean(UserRepository.class)
+                .save(User.builder().username("bench").password("x").role(Role.USER).build()).getId();
+        Train train = context.getBean(TrainRepository.class).save(Train.builder().trainNumber(9901)
+                .trainName("Conflict Express").origin("Pune").destination("Goa")
+                .departureTime(LocalTime.of(7, 0)).arrivalTime(LocalTime.of(17, 0))
+                .seatsAvailable(200).price(500).build());
+        trainId = train.getId();
+        for (int i = 1; i <= 10; i++) {
+            bookingService.bookTicket(request(), List.of("A" + i), userId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean checkFree() {
+        return seatInventory.isAvailable(trainId, travelDate, FREE);
+    }
+
+    @Benchmark
+    public boolean checkTaken() {
+        return seatInventory.isAvailable(trainId, travelDate, TAKEN);
+    }
+
+    @Benchmark
+    public void reserveAndRelease() {
+        seatInventory.reserve(trainId, travelDate, FREE);
+        seatInventory.release(trainId, travelDate, FREE);
+    }
+
+    @Benchmark
+    public Object bookTakenSeat() {
+        try {
+            return bookingService.bookTicket(request(), TAKEN, userId);
+        } catch (IllegalStateException e) {
+            return e;
+        }
+    }
+
+    private Booking request() {
+        Booking request = new Booking();
+        request.setTrain(Train.builder().id(trainId).build());
+        request.setPassengerName("Bench");
+        request.setEmail("bench@example.com");
+        request.setBookingDate(travelDate.atStartOfDay());
+        return request;
+    }
+}
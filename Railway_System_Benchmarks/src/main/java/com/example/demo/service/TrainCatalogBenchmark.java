@@ -0,0 +1,90 @@
+package com.example.demo.service;
+
+import com.example.demo.EmbeddedRail;
+import com.example.demo.dto.TrainDTO;
+import com.example.demo.model.Train;
+import com.example.demo.repository.TrainRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The train catalogue as the search and listing endpoints serve it: entities mapped to
+ * DTOs, the whole catalogue read from the database (a cache miss) and from the cache, and
+ * one train with its live seat availability.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainCatalogBenchmark {
+
+    private static final int TRAINS = 2_000;
+
+    private ConfigurableApplicationContext context;
+    private TrainService trainService;
+    private TrainRepository trainRepo;
+    private List<Train> trains;
+    private Long trainId;
+    private final LocalDate travelDate = LocalDate.now().plusDays(30);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedRail.start();
+        trainService = context.getBean(TrainService.class);
+        trainRepo = context.getBean(TrainRepository.class);
+
+        List<Train> seed = new ArrayList<>(TRAINS);
+        for (int i = 0; i < TRAINS; i++) {
+            seed.add(Train.builder().trainNumber(10_000 + i).trainName("Catalogue Express " + i)
+                    .origin("Station " + (i % 50)).destination("Station " + (i % 50 + 1))
+                    .departureTime(LocalTime.of(i % 24, 0)).arrivalTime(LocalTime.of((i + 5) % 24, 30))
+                    .seatsAvailable(500).price(100 + i % 400).build());
+        }
+        trains = trainRepo.saveAll(seed);
+        trainId = trains.get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TrainDTO> mapCatalogue() {
+        return trains.stream().map(TrainService::toDto).toList();
+    }
+
+    @Benchmark
+    public List<TrainDTO> catalogueFromDatabase() {
+        return trainRepo.findAll().stream().map(TrainService::toDto).toList();
+    }
+
+    @Benchmark
+    public List<TrainDTO> catalogueCached() {
+        return trainService.getAllTrains();
+    }
+
+    @Benchmark
+    public TrainDTO trainDetails() {
+        return trainService.getTrainDetails(trainId, travelDate);
+    }
+}
@@ -1,8 +1,12 @@
 // src/api/adminApi.js
 import api from "../utils/request";
 
-// Dashboard - This endpoint doesn't exist in the provided APIs, so we'll remove it
-// export const getDashboardStats = () => api.get("/admin/dashboard/stats");
+// Dashboard - counters kept by the server: { bookings, paid, unpaid, canceled, revenue }
+export const getBookingStats = () => api.get("/bookings/admin/stats");
+// Same counters per travel date, keyed yyyy-mm-dd, for every day from..to (at most a year)
+export const getDailyBookingStats = (from, to) => api.get("/bookings/admin/stats/daily", { params: { from, to } });
+// Same counters per train, keyed by train id
+export const getBookingStatsByTrain = () => api.get("/bookings/admin/stats/trains");
 
 // Train Management - Using the correct endpoints
 export const getAllTrains = () => api.get("/trains");
@@ -11,7 +15,11 @@ export const updateTrain = (id, trainData) => api.put(`/trains/${id}`, trainData
 export const deleteTrain = (id) => api.delete(`/trains/${id}`);
 
 // Booking Management - Using the correct endpoints
-export const getAllBookings = () => api.get("/bookings/admin");
+// Keyset-paginated: returns { items, nextCursor }; pass nextCursor back as `cursor` for the next page.
+// Filters: trainId, from, to (travel dates, yyyy-mm-dd), status (ACTIVE, PAID, UNPAID, CANCELED)
+export const getBookingsPage = (params = {}) => api.get("/bookings/admin", { params });
+export const exportBookings = (params = {}, format = "csv") =>
+  api.get("/bookings/admin/export", { params: { ...params, format }, responseType: "blob" });
 export const cancelBooking = (bookingId) => api.patch(`/bookings/${bookingId}/cancel`);
 
 // User Management - These endpoints don't exist in the provided APIs
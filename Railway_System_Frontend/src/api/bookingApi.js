@@ -4,8 +4,12 @@ import api from "../utils/request";
 // Get user's bookings
 export const getUserBookings = () => api.get("/bookings");
 
-// Create a booking
-export const createBooking = (bookingData) => api.post("/bookings", bookingData);
+// Create a booking; resending with the same idempotency key returns the first booking instead of a new one
+export const createBooking = (bookingData, idempotencyKey) =>
+  api.post("/bookings", bookingData, idempotencyKey ? { headers: { "Idempotency-Key": idempotencyKey } } : undefined);
+
+// Create many bookings at once; the response has a result per item, in the same order
+export const createBookings = (bookings) => api.post("/bookings/batch", bookings);
 
 // Cancel a booking
 export const cancelBooking = (bookingId) => api.patch(`/bookings/${bookingId}/cancel`);
@@ -2,4 +2,6 @@
 import api from "../utils/request";
 
 // Simulate payment - Using the correct endpoint with query parameter
-export const simulatePayment = (bookingId) => api.post(`/payment/simulate?bookingId=${bookingId}`);
+// A booking is paid once, so its id makes a natural idempotency key for retries
+export const simulatePayment = (bookingId) =>
+  api.post(`/payment/simulate?bookingId=${bookingId}`, null, { headers: { "Idempotency-Key": `payment-${bookingId}` } });
@@ -1,5 +1,6 @@
 // src/api/trainApi.js
 import api from "../utils/request";
+import { API_BASE_URL } from "../utils/constants";
 
 // Get all trains
 export const getAllTrains = () => api.get("/trains");
@@ -10,8 +11,22 @@ export const searchTrains = (searchParams) => {
   return api.get(`/trains/search?from=${from}&to=${to}&date=${date}`);
 };
 
-// Get train by ID
-export const getTrainById = (id) => api.get(`/trains/details/${id}`);
+// Get train by ID, with seat availability per class for the travel date (today if omitted)
+export const getTrainById = (id, date) =>
+  api.get(`/trains/details/${id}`, { params: date ? { date } : {} });
+
+// Coaches of a train with their free seats for the travel date
+export const getTrainCoaches = (id, date) =>
+  api.get(`/trains/details/${id}/coaches`, { params: date ? { date } : {} });
+
+// Live seat availability for the travel date; onUpdate receives { version, classes }.
+// Returns a function that closes the stream.
+export const subscribeToAvailability = (id, date, onUpdate) => {
+  const query = date ? `?date=${encodeURIComponent(date)}` : "";
+  const source = new EventSource(`${API_BASE_URL}/trains/details/${id}/availability/stream${query}`);
+  source.addEventListener("availability", (event) => onUpdate(JSON.parse(event.data)));
+  return () => source.close();
+};
 
 // Admin endpoints (require admin token)
 export const addTrain = (trainObj) => api.post("/trains", trainObj);
@@ -0,0 +1,10 @@
+// src/api/waitlistApi.js
+import api from "../utils/request";
+
+// Join the waitlist for a full class on a given date
+export const joinWaitlist = (request) => api.post("/waitlist", request);
+
+// Current user's waitlist entries, with their place in the queue
+export const getMyWaitlist = () => api.get("/waitlist");
+
+export const withdrawFromWaitlist = (id) => api.delete(`/waitlist/${id}`);
@@ -1,7 +1,7 @@
 // src/pages/Admin/AdminDashboard/AdminDashboard.js
 import React, { useState, useEffect } from "react";
 import { getAllTrains } from "../../../api/trainApi";
-import { getAllBookings } from "../../../api/adminApi";
+import { getBookingStats, getBookingsPage } from "../../../api/adminApi";
 import { registerAdmin } from "../../../api/authApi";
 import "./AdminDashboard.css";
 
@@ -32,25 +32,23 @@ const AdminDashboard = () => {
   useEffect(() => {
     const fetchDashboardData = async () => {
       try {
-        const [trainsResponse, bookingsResponse] = await Promise.all([
+        // The server keeps the counts; only the five newest bookings are fetched
+        const [trainsResponse, statsResponse, recentResponse] = await Promise.all([
           getAllTrains(),
-          getAllBookings()
+          getBookingStats(),
+          getBookingsPage({ size: 5 })
         ]);
 
-        const trains = trainsResponse.data;
-        const bookings = bookingsResponse.data;
-        
-        const totalTrains = trains.length;
-        const totalBookings = bookings.length;
-        const confirmedBookings = bookings.filter(b => b.paid && !b.canceled).length;
-        const pendingBookings = bookings.filter(b => !b.paid && !b.canceled).length;
-        const canceledBookings = bookings.filter(b => b.canceled).length;
-        const totalRevenue = bookings.filter(b => b.paid && !b.canceled).reduce((sum, b) => sum + (b.train?.price || 0), 0);
-        
-        setStats({ totalTrains, totalBookings, confirmedBookings, pendingBookings, canceledBookings, totalRevenue });
-        
-        const recent = bookings.sort((a, b) => new Date(b.bookingDate) - new Date(a.bookingDate)).slice(0, 5);
-        setRecentBookings(recent);
+        const counts = statsResponse.data;
+        setStats({
+          totalTrains: trainsResponse.data.length,
+          totalBookings: counts.bookings,
+          confirmedBookings: counts.paid,
+          pendingBookings: counts.unpaid,
+          canceledBookings: counts.canceled,
+          totalRevenue: counts.revenue
+        });
+        setRecentBookings(recentResponse.data.items);
         setError("");
       } catch (err) {
         console.error("Error fetching dashboard data:", err);
@@ -1,32 +1,76 @@
 // src/pages/Admin/ManageBookings/ManageBookings.js
-import React, { useState, useEffect } from "react";
-import { getAllBookings, cancelBooking } from "../../../api/adminApi";
+import React, { useState, useEffect, useCallback } from "react";
+import { getBookingsPage, exportBookings, cancelBooking } from "../../../api/adminApi";
 import "./ManageBookings.css";
 
+const PAGE_SIZE = 50;
+
 const AdminManageBookings = () => {
   const [bookings, setBookings] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState("");
   const [filterDate, setFilterDate] = useState("");
-  const [filterTrainNumber, setFilterTrainNumber] = useState("");
+  const [filterTrainId, setFilterTrainId] = useState("");
+  const [filterStatus, setFilterStatus] = useState("");
   const [filterPnr, setFilterPnr] = useState("");
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [selectedBooking, setSelectedBooking] = useState(null);
   const [showDetails, setShowDetails] = useState(false);
 
-  useEffect(() => {
-    fetchAllBookings();
-  }, []);
+  // Date, train and status are filtered on the server; the booking ID filter only narrows loaded rows
+  const buildFilters = useCallback(() => {
+    const params = {};
+    if (filterDate) {
+      params.from = filterDate;
+      params.to = filterDate;
+    }
+    if (filterTrainId) params.trainId = filterTrainId;
+    if (filterStatus) params.status = filterStatus;
+    return params;
+  }, [filterDate, filterTrainId, filterStatus]);
 
-  const fetchAllBookings = async () => {
+  const fetchBookings = useCallback(async (cursor = null) => {
     try {
-      const response = await getAllBookings();
-      setBookings(response.data);
+      const params = { ...buildFilters(), size: PAGE_SIZE };
+      if (cursor) params.cursor = cursor;
+      const response = await getBookingsPage(params);
+      const { items, nextCursor: next } = response.data;
+      setBookings(prev => (cursor ? [...prev, ...items] : items));
+      setNextCursor(next);
       setError("");
     } catch (err) {
       console.error("Error fetching bookings:", err);
       setError("Failed to fetch bookings.");
     } finally {
       setLoading(false);
+      setLoadingMore(false);
+    }
+  }, [buildFilters]);
+
+  useEffect(() => {
+    fetchBookings();
+  }, [fetchBookings]);
+
+  const handleLoadMore = () => {
+    setLoadingMore(true);
+    fetchBookings(nextCursor);
+  };
+
+  const handleExport = async (format) => {
+    try {
+      const response = await exportBookings(buildFilters(), format);
+      const url = window.URL.createObjectURL(new Blob([response.data]));
+      const link = document.createElement("a");
+      link.href = url;
+      link.setAttribute("download", `bookings.${format}`);
+      document.body.appendChild(link);
+      link.click();
+      link.remove();
+      window.URL.revokeObjectURL(url);
+    } catch (err) {
+      console.error("Error exporting bookings:", err);
+      setError("Failed to export bookings.");
     }
   };
 
@@ -39,7 +83,7 @@ const AdminManageBookings = () => {
       await cancelBooking(bookingId);
       
       // Refresh the bookings list
-      fetchAllBookings();
+      fetchBookings();
       setError("");
     } catch (err) {
       console.error("Error canceling booking:", err);
@@ -57,20 +101,14 @@ const AdminManageBookings = () => {
     setSelectedBooking(null);
   };
 
-  const filteredBookings = bookings.filter(booking => {
-    const matchesDate = !filterDate || 
-      new Date(booking.bookingDate).toISOString().split('T')[0] === filterDate;
-    const matchesTrain = !filterTrainNumber || 
-      booking.train?.trainName?.toLowerCase().includes(filterTrainNumber.toLowerCase()) ||
-      booking.train?.id?.toString().includes(filterTrainNumber);
-    const matchesPnr = !filterPnr || 
-      booking.id?.toString().includes(filterPnr);
-    
-    return matchesDate && matchesTrain && matchesPnr;
-  });
+  const filteredBookings = bookings.filter(booking =>
+    !filterPnr || booking.id?.toString().includes(filterPnr)
+  );
 
   const getStatusBadge = (booking) => {
-    if (booking.canceled) {
+    if (booking.state === "EXPIRED") {
+      return <span className="badge bg-secondary">Expired</span>;
+    } else if (booking.canceled) {
       return <span className="badge bg-danger">Cancelled</span>;
     } else if (booking.paid) {
       return <span className="badge bg-success">Confirmed</span>;
@@ -112,8 +150,8 @@ const AdminManageBookings = () => {
         </div>
         <div className="card-body">
           <div className="row g-3">
-            <div className="col-md-4">
-              <label className="form-label">Booking Date</label>
+            <div className="col-md-3">
+              <label className="form-label">Travel Date</label>
               <input
                 type="date"
                 className="form-control"
@@ -121,17 +159,30 @@ const AdminManageBookings = () => {
                 onChange={(e) => setFilterDate(e.target.value)}
               />
             </div>
-            <div className="col-md-4">
-              <label className="form-label">Train Number/Name</label>
+            <div className="col-md-3">
+              <label className="form-label">Train ID</label>
               <input
-                type="text"
+                type="number"
                 className="form-control"
-                placeholder="Enter train number or name"
-                value={filterTrainNumber}
-                onChange={(e) => setFilterTrainNumber(e.target.value)}
+                placeholder="Enter train ID"
+                value={filterTrainId}
+                onChange={(e) => setFilterTrainId(e.target.value)}
               />
             </div>
-            <div className="col-md-4">
+            <div className="col-md-3">
+              <label className="form-label">Status</label>
+              <select
+                className="form-select"
+                value={filterStatus}
+                onChange={(e) => setFilterStatus(e.target.value)}
+              >
+                <option value="">All</option>
+                <option value="PAID">Confirmed</option>
+                <option value="UNPAID">Pending Payment</option>
+                <option value="CANCELED">Cancelled</option>
+              </select>
+            </div>
+            <div className="col-md-3">
               <label className="form-label">Booking ID</label>
               <input
                 type="text"
@@ -150,7 +201,23 @@ const AdminManageBookings = () => {
         <div className="card-header">
           <div className="d-flex justify-content-between align-items-center">
             <h5 className="card-title mb-0">All Bookings</h5>
-            <span className="badge bg-primary">{filteredBookings.length} bookings</span>
+            <div>
+              <button
+                className="btn btn-sm btn-outline-secondary me-2"
+                onClick={() => handleExport("csv")}
+              >
+                Export CSV
+              </button>
+              <button
+                className="btn btn-sm btn-outline-secondary me-2"
+                onClick={() => handleExport("ndjson")}
+              >
+                Export NDJSON
+              </button>
+              <span className="badge bg-primary">
+                {filteredBookings.length}{nextCursor ? "+" : ""} bookings
+              </span>
+            </div>
           </div>
         </div>
         <div className="card-body">
@@ -219,6 +286,18 @@ const AdminManageBookings = () => {
               <p className="text-muted">No bookings found matching your criteria.</p>
             </div>
           )}
+
+          {nextCursor && (
+            <div className="text-center mt-3">
+              <button
+                className="btn btn-outline-primary"
+                onClick={handleLoadMore}
+                disabled={loadingMore}
+              >
+                {loadingMore ? "Loading..." : "Load more"}
+              </button>
+            </div>
+          )}
         </div>
       </div>
 
@@ -1,5 +1,5 @@
 // src/pages/PassengerDetails/PassengerDetails.js
-import React, { useState, useEffect } from "react";
+import React, { useState, useEffect, useRef } from "react";
 import { useParams, useNavigate, useLocation } from "react-router-dom";
 import { getTrainById } from "../../api/trainApi";
 import { createBooking } from "../../api/bookingApi";
@@ -13,6 +13,9 @@ const PassengerDetails = () => {
   const [loading, setLoading] = useState(true);
   const [submitting, setSubmitting] = useState(false);
   const [error, setError] = useState("");
+  // Submitting the same booking again (e.g. after a lost response) reuses its Idempotency-Key,
+  // so the server answers with the booking it already made instead of booking twice
+  const lastSubmission = useRef({ payload: null, key: null });
 
   // Get the travel date from navigation state, fallback to today if not provided
   const [travelDate, setTravelDate] = useState(
@@ -99,7 +102,11 @@ const PassengerDetails = () => {
         seatNumbers: validSeatNumbers
       };
 
-      const response = await createBooking(bookingData);
+      const payload = JSON.stringify(bookingData);
+      if (lastSubmission.current.payload !== payload) {
+        lastSubmission.current = { payload, key: crypto.randomUUID() };
+      }
+      const response = await createBooking(bookingData, lastSubmission.current.key);
       
       // Navigate to payment page with the booking ID
       navigate(`/payment/${response.data.id}`);
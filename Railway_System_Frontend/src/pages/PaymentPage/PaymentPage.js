@@ -320,6 +320,12 @@ const PaymentPage = () => {
                   <span>Passenger:</span>
                   <span>{booking.passengerName}</span>
                 </div>
+                {booking.holdExpiresAt && !booking.paid && (
+                  <div className="detail-item">
+                    <span>Seats held until:</span>
+                    <span className="text-danger">{new Date(booking.holdExpiresAt).toLocaleTimeString()}</span>
+                  </div>
+                )}
                 <div className="detail-item">
                   <span>Class:</span>
                   <span>{booking.preferredClass}</span>
@@ -1,7 +1,7 @@
 // src/pages/TrainDetails/TrainDetails.js
 import React, { useEffect, useState } from "react";
 import { useParams, useNavigate, useLocation } from "react-router-dom";
-import { getTrainById } from "../../api/trainApi";
+import { getTrainById, subscribeToAvailability } from "../../api/trainApi";
 import { isAuthenticated } from "../../utils/auth";
 import "./TrainDetails.css";
 
@@ -19,7 +19,7 @@ const TrainDetails = () => {
       setLoading(true);
       try {
         console.log("🔍 Fetching train details for:", trainNumber);
-        const response = await getTrainById(trainNumber);
+        const response = await getTrainById(trainNumber, location.state?.travelDate);
         console.log("✅ Train details:", response.data);
         setTrain(response.data);
         setError("");
@@ -34,7 +34,22 @@ const TrainDetails = () => {
     if (trainNumber) {
       loadTrainDetails();
     }
-  }, [trainNumber]);
+  }, [trainNumber, location.state?.travelDate]);
+
+  // Seat counts update live as others book and cancel; older updates are ignored
+  useEffect(() => {
+    if (!trainNumber) {
+      return undefined;
+    }
+    let latestVersion = 0;
+    return subscribeToAvailability(trainNumber, location.state?.travelDate, (update) => {
+      if (update.version <= latestVersion) {
+        return;
+      }
+      latestVersion = update.version;
+      setTrain((current) => current && { ...current, seatAvailability: update.classes });
+    });
+  }, [trainNumber, location.state?.travelDate]);
 
   const handleBookNow = () => {
     if (!isAuthenticated()) {
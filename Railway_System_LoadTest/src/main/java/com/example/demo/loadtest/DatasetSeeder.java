@@ -0,0 +1,350 @@
+package com.example.demo.loadtest;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills a database with a synthetic but self-consistent dataset: users, trains spread over
+ * station pairs, and bookings whose routes follow a Zipf distribution so that a few routes are
+ * hot and most are quiet. The schema is brought up to date with the application's own Flyway
+ * migrations first, so an empty database works.
+ * <p>
+ * Rows are written straight over JDBC in batches, since going through the services would take
+ * hours for millions of bookings. The data still obeys the application's rules: a train is never
+ * sold beyond its seats on a day, every active booking owns its seat reservations, and the pooled
+ * id counters are moved past the seeded ids so the application keeps handing out fresh ones.
+ */
+final class DatasetSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetSeeder.class);
+
+    // Every seeded user logs in with this password
+    static final String PASSWORD = "loadtest";
+    static final String USER_PREFIX = "load-user-";
+
+    private static final String[] STATIONS = {
+            "Delhi", "Mumbai", "Kolkata", "Chennai", "Bengaluru", "Hyderabad", "Ahmedabad", "Pune",
+            "Jaipur", "Lucknow", "Kanpur", "Nagpur", "Indore", "Bhopal", "Patna", "Vadodara",
+            "Ludhiana", "Agra", "Nashik", "Varanasi", "Amritsar", "Ranchi", "Guwahati", "Coimbatore",
+            "Kochi", "Madurai", "Visakhapatnam", "Vijayawada", "Jabalpur", "Gwalior", "Jodhpur", "Raipur",
+            "Allahabad", "Dehradun", "Bhubaneswar", "Mysuru", "Surat", "Chandigarh", "Jammu", "Udaipur"
+    };
+
+    private static final int BATCH = 5_000;
+    private static final int PROGRESS_EVERY = 100_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int users;
+    private final int trains;
+    private final long bookings;
+    private final int daysBack;
+    private final int daysAhead;
+    private final double skew;
+    private final long seed;
+
+    DatasetSeeder(String url, String username, String password, Options options) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        users = options.integer("users", 10_000);
+        trains = options.integer("trains", 2_000);
+        bookings = options.number("bookings", 1_000_000);
+        daysBack = options.integer("days-back", 30);
+        daysAhead = options.integer("days-ahead", 60);
+        skew = options.decimal("skew", 1.0);
+        seed = options.number("seed", 42);
+    }
+
+    void run() throws SQLException {
+        Flyway.configure()
+                .dataSource(url, username, password)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        try (Connection db = DriverManager.getConnection(url, username, password)) {
+            db.setAutoCommit(false);
+            refuseIfSeeded(db);
+            Random random = new Random(seed);
+            long start = System.nanoTime();
+
+            List<Long> userIds = insertUsers(db);
+            List<Route> routes = insertTrains(db, random);
+            insertBookings(db, random, userIds, routes);
+
+            log.info("Seeded {} users, {} trains on {} routes and {} bookings in {} s", userIds.size(), trains,
+                    routes.size(), bookings, (System.nanoTime() - start) / 1_000_000_000);
+        }
+    }
+
+    private void refuseIfSeeded(Connection db) throws SQLException {
+        try (Statement statement = db.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM booking")) {
+            rows.next();
+            if (rows.getLong(1) > 0) {
+                throw new IllegalStateException("The booking table is not empty; seed a fresh database");
+            }
+        }
+        try (PreparedStatement statement = db.prepareStatement("SELECT COUNT(*) FROM `user` WHERE username = ?")) {
+            statement.setString(1, USER_PREFIX + 1);
+            try (ResultSet rows = statement.executeQuery()) {
+                rows.next();
+                if (rows.getLong(1) > 0) {
+                    throw new IllegalStateException("Load test users already exist; seed a fresh database");
+                }
+            }
+        }
+    }
+
+    private List<Long> insertUsers(Connection db) throws SQLException {
+        // One hash for everybody: hashing thousands of passwords would dominate small runs
+        String hash = new BCryptPasswordEncoder(10).encode(PASSWORD);
+        List<Long> ids = new ArrayList<>(users);
+        try (PreparedStatement insert = db.prepareStatement(
+                "INSERT INTO `user` (username, password, role) VALUES (?, ?, 'USER')",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 1; i <= users; i++) {
+                insert.setString(1, USER_PREFIX + i);
+                insert.setString(2, hash);
+                insert.addBatch();
+                if (i % BATCH == 0 || i == users) {
+                    ids.addAll(executeReturningIds(insert));
+                    db.commit();
+                }
+            }
+        }
+        return ids;
+    }
+
+    // Routes in order of popularity, each with the trains that run on it
+    private List<Route> insertTrains(Connection db, Random random) throws SQLException {
+        List<Route> pairs = new ArrayList<>();
+        for (String origin : STATIONS) {
+            for (String destination : STATIONS) {
+                if (!origin.equals(destination)) {
+                    pairs.add(new Route(origin, destination));
+                }
+            }
+        }
+        Collections.shuffle(pairs, random);
+
+        // Hot routes get more trains as well as more bookings
+        Zipf byRoute = new Zipf(pairs.size(), skew);
+        try (PreparedStatement insert = db.prepareStatement(
+                "INSERT INTO train (train_number, train_name, origin, destination, departure_time, arrival_time, "
+                        + "seats_available, price) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            List<Route> routeOf = new ArrayList<>(trains);
+            List<Integer> seatsOf = new ArrayList<>(trains);
+            for (int i = 1; i <= trains; i++) {
+                Route route = pairs.get(byRoute.sample(random));
+                LocalTime departure = LocalTime.of(random.nextInt(24), 5 * random.nextInt(12));
+                int seats = 200 + 100 * random.nextInt(9);
+                insert.setLong(1, 10_000 + i);
+                insert.setString(2, route.origin + " " + route.destination + " Express " + i);
+                insert.setString(3, route.origin);
+                insert.setString(4, route.destination);
+                insert.setObject(5, departure);
+                insert.setObject(6, departure.plusMinutes(120 + random.nextInt(20 * 60)));
+                insert.setLong(7, seats);
+                insert.setLong(8, 100 + 10L * random.nextInt(250));
+                insert.addBatch();
+                routeOf.add(route);
+                seatsOf.add(seats);
+                if (i % BATCH == 0 || i == trains) {
+                    List<Long> ids = executeReturningIds(insert);
+                    int first = i - ids.size();
+                    for (int j = 0; j < ids.size(); j++) {
+                        routeOf.get(first + j).trains.add(new SeededTrain(ids.get(j), seatsOf.get(first + j)));
+                    }
+                    db.commit();
+                }
+            }
+        }
+
+        List<Route> used = new ArrayList<>();
+        for (Route route : pairs) {
+            if (!route.trains.isEmpty()) {
+                used.add(route);
+            }
+        }
+        return used;
+    }
+
+    private void insertBookings(Connection db, Random random, List<Long> userIds, List<Route> routes)
+            throws SQLException {
+        Zipf byRoute = new Zipf(routes.size(), skew);
+        int days = daysBack + daysAhead + 1;
+        LocalDate firstDay = LocalDate.now().minusDays(daysBack);
+        // Seats sold so far per train and day, indexed by the train's position in the route lists
+        List<int[]> sold = new ArrayList<>();
+        for (Route route : routes) {
+            for (SeededTrain ignored : route.trains) {
+                sold.add(new int[days]);
+            }
+        }
+        int[] firstTrainOfRoute = new int[routes.size()];
+        for (int r = 1; r < routes.size(); r++) {
+            firstTrainOfRoute[r] = firstTrainOfRoute[r - 1] + routes.get(r - 1).trains.size();
+        }
+
+        long bookingId = nextId(db, "booking");
+        long seatId = nextId(db, "booked_seat");
+        long reservationId = nextId(db, "seat_reservation");
+        long soldOut = 0;
+
+        try (PreparedStatement booking = db.prepareStatement(
+                "INSERT INTO booking (id, state, email, user_id, train_id, passenger_name, booking_date, travel_date) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement seat = db.prepareStatement(
+                     "INSERT INTO booked_seat (id, seat_number, booking_id) VALUES (?, ?, ?)");
+             PreparedStatement reservation = db.prepareStatement(
+                     "INSERT INTO seat_reservation (id, booking_id, seat_number, train_id, travel_date) "
+                             + "VALUES (?, ?, ?, ?, ?)")) {
+            for (long n = 1; n <= bookings; n++) {
+                int r = byRoute.sample(random);
+                Route route = routes.get(r);
+                int t = random.nextInt(route.trains.size());
+                SeededTrain train = route.trains.get(t);
+                int day = random.nextInt(days);
+                LocalDate travelDate = firstDay.plusDays(day);
+                int seats = 1 + random.nextInt(4);
+                int userIndex = random.nextInt(userIds.size());
+
+                String state = pickState(random);
+                int[] soldOnDay = sold.get(firstTrainOfRoute[r] + t);
+                boolean holdsSeats = state.equals("PAID");
+                if (holdsSeats && soldOnDay[day] + seats > train.seats) {
+                    // Full on that day: the attempt ends up canceled, like a payment that came too late
+                    state = "CANCELED";
+                    holdsSeats = false;
+                    soldOut++;
+                }
+
+                long id = bookingId++;
+                booking.setLong(1, id);
+                booking.setString(2, state);
+                booking.setString(3, USER_PREFIX + (userIndex + 1) + "@example.com");
+                booking.setLong(4, userIds.get(userIndex));
+                booking.setLong(5, train.id);
+                booking.setString(6, "Passenger " + n);
+                booking.setTimestamp(7, Timestamp.valueOf(travelDate.atStartOfDay()));
+                booking.setObject(8, travelDate);
+                booking.addBatch();
+
+                for (int s = 0; s < seats; s++) {
+                    // Canceled bookings keep their seat labels; they do not have to be unique
+                    String label = "G" + (holdsSeats ? soldOnDay[day] + s + 1 : s + 1);
+                    seat.setLong(1, seatId++);
+                    seat.setString(2, label);
+                    seat.setLong(3, id);
+                    seat.addBatch();
+                    if (holdsSeats) {
+                        reservation.setLong(1, reservationId++);
+                        reservation.setLong(2, id);
+                        reservation.setString(3, label);
+                        reservation.setLong(4, train.id);
+                        reservation.setObject(5, travelDate);
+                        reservation.addBatch();
+                    }
+                }
+                if (holdsSeats) {
+                    soldOnDay[day] += seats;
+                }
+
+                if (n % BATCH == 0 || n == bookings) {
+                    booking.executeBatch();
+                    seat.executeBatch();
+                    reservation.executeBatch();
+                    db.commit();
+                }
+                if (n % PROGRESS_EVERY == 0) {
+                    log.info("{} of {} bookings", n, bookings);
+                }
+            }
+        }
+
+        moveIdGenerator(db, "booking", bookingId);
+        moveIdGenerator(db, "booked_seat", seatId);
+        moveIdGenerator(db, "seat_reservation", reservationId);
+        db.commit();
+        if (soldOut > 0) {
+            log.info("{} bookings found their train full and were seeded as canceled", soldOut);
+        }
+    }
+
+    // Mostly paid; the rest canceled by the passenger or never paid for in time
+    private static String pickState(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 75) {
+            return "PAID";
+        }
+        return roll < 90 ? "CANCELED" : "EXPIRED";
+    }
+
+    private static long nextId(Connection db, String sequence) throws SQLException {
+        try (PreparedStatement select = db.prepareStatement(
+                "SELECT next_val FROM id_generator WHERE sequence_name = ?")) {
+            select.setString(1, sequence);
+            try (ResultSet rows = select.executeQuery()) {
+                if (!rows.next()) {
+                    throw new IllegalStateException("No id_generator row for " + sequence);
+                }
+                return rows.getLong(1);
+            }
+        }
+    }
+
+    private static void moveIdGenerator(Connection db, String sequence, long nextVal) throws SQLException {
+        try (PreparedStatement update = db.prepareStatement(
+                "UPDATE id_generator SET next_val = ? WHERE sequence_name = ?")) {
+            update.setLong(1, nextVal);
+            update.setString(2, sequence);
+            update.executeUpdate();
+        }
+    }
+
+    private static List<Long> executeReturningIds(PreparedStatement insert) throws SQLException {
+        insert.executeBatch();
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet keys = insert.getGeneratedKeys()) {
+            while (keys.next()) {
+                ids.add(keys.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private static final class Route {
+        final String origin;
+        final String destination;
+        final List<SeededTrain> trains = new ArrayList<>();
+
+        Route(String origin, String destination) {
+            this.origin = origin;
+            this.destination = destination;
+        }
+    }
+
+    private record SeededTrain(long id, int seats) {
+    }
+}
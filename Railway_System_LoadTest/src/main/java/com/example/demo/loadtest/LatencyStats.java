@@ -0,0 +1,64 @@
+package com.example.demo.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcomes and latencies of one endpoint. Each virtual user records into its own instance, so
+ * recording takes no locks; they are merged once the run is over. Every latency is kept rather
+ * than bucketed, which makes the percentiles exact and costs eight bytes a request.
+ */
+final class LatencyStats {
+
+    // Failures that never got a response (timeouts, refused connections) are counted under this status
+    static final int NO_RESPONSE = 0;
+
+    private long[] nanos = new long[1024];
+    private int count;
+    private long ok;
+    private final Map<Integer, Long> failedByStatus = new TreeMap<>();
+
+    void record(int status, long latencyNanos) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latencyNanos;
+        if (status >= 200 && status < 300) {
+            ok++;
+        } else {
+            failedByStatus.merge(status, 1L, Long::sum);
+        }
+    }
+
+    void merge(LatencyStats other) {
+        if (count + other.count > nanos.length) {
+            nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, count + other.count));
+        }
+        System.arraycopy(other.nanos, 0, nanos, count, other.count);
+        count += other.count;
+        ok += other.ok;
+        other.failedByStatus.forEach((status, n) -> failedByStatus.merge(status, n, Long::sum));
+    }
+
+    Summary summarize(double seconds) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return new Summary(count, ok, count - ok, new TreeMap<>(failedByStatus), count / seconds,
+                millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 0.999),
+                count == 0 ? 0 : sorted[count - 1] / 1e6);
+    }
+
+    // Nearest-rank percentile
+    private static double millis(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(rank - 1, 0)] / 1e6;
+    }
+
+    record Summary(long requests, long ok, long failed, Map<Integer, Long> failedByStatus, double perSecond,
+                   double p50, double p90, double p99, double p999, double max) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.RailApplication;
+import com.example.demo.loadtest.WorkloadDriver.Operation;
+import com.openhtmltopdf.util.XRLog;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Entry point of the load test jar.
+ * <ul>
+ *     <li>{@code seed} fills a database with synthetic users, trains and bookings ({@link DatasetSeeder})</li>
+ *     <li>{@code drive} sends a mixed workload to a running application ({@link WorkloadDriver})</li>
+ *     <li>{@code embedded} seeds an in-memory H2 database, starts the application on it in this
+ *     JVM and drives it, for a run that needs nothing else installed</li>
+ * </ul>
+ * Options are {@code --name=value}; see the README for the list.
+ */
+public final class LoadTest {
+
+    // The database of application-loadtest.properties, seeded before the embedded application starts on it
+    static final String EMBEDDED_DB_URL =
+            "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: java -jar loadtest.jar seed|drive|embedded [--name=value ...]");
+            System.exit(2);
+        }
+        Options options = new Options(args, 1);
+        switch (args[0]) {
+            case "seed" -> seed(options);
+            case "drive" -> drive(options);
+            case "embedded" -> embedded(options);
+            default -> {
+                System.err.println("Unknown command " + args[0] + "; expected seed, drive or embedded");
+                System.exit(2);
+            }
+        }
+        // The HTTP client and the embedded application leave non-daemon threads behind
+        System.exit(0);
+    }
+
+    private static void seed(Options options) throws Exception {
+        DatasetSeeder seeder = new DatasetSeeder(
+                options.string("db-url", "jdbc:mysql://localhost:3306/rail?rewriteBatchedStatements=true"),
+                options.string("db-user", "root"),
+                options.string("db-password", ""),
+                options);
+        options.checkAllUsed();
+        seeder.run();
+    }
+
+    private static void drive(Options options) throws Exception {
+        URI target = URI.create(options.string("url", "http://localhost:8080"));
+        WorkloadDriver driver = new WorkloadDriver(options);
+        String format = options.string("report", "text");
+        options.checkAllUsed();
+        report(driver.run(target), format);
+    }
+
+    private static void embedded(Options options) throws Exception {
+        DatasetSeeder seeder = new DatasetSeeder(EMBEDDED_DB_URL, "sa", "", options);
+        WorkloadDriver driver = new WorkloadDriver(options);
+        String format = options.string("report", "text");
+        options.checkAllUsed();
+
+        seeder.run();
+        // The report goes to standard output, which the ticket renderer would otherwise log to
+        XRLog.setLoggingEnabled(false);
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(RailApplication.class)
+                .profiles("loadtest")
+                .logStartupInfo(false)
+                .run()) {
+            int port = app.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            report(driver.run(URI.create("http://localhost:" + port)), format);
+        }
+    }
+
+    private static void report(Map<Operation, LatencyStats.Summary> results, String format) throws Exception {
+        switch (format) {
+            case "text" -> Report.text(results, System.out);
+            case "json" -> Report.json(results, System.out);
+            default -> throw new IllegalArgumentException("--report must be text or json, got " + format);
+        }
+    }
+}
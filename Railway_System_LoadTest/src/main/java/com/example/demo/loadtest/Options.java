@@ -0,0 +1,65 @@
+package com.example.demo.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options of the form {@code --name=value}. Every option has a default, so a
+ * name that is never asked for is most likely a typo; {@link #checkAllUsed()} reports those.
+ */
+final class Options {
+
+    private final Map<String, String> values = new HashMap<>();
+    private final Set<String> used = new HashSet<>();
+
+    Options(String[] args, int from) {
+        for (int i = from; i < args.length; i++) {
+            String arg = args[i];
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 3) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+    }
+
+    String string(String name, String defaultValue) {
+        used.add(name);
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int integer(String name, int defaultValue) {
+        String value = string(name, null);
+        return value == null ? defaultValue : Integer.parseInt(value.replace("_", ""));
+    }
+
+    long number(String name, long defaultValue) {
+        String value = string(name, null);
+        return value == null ? defaultValue : Long.parseLong(value.replace("_", ""));
+    }
+
+    double decimal(String name, double defaultValue) {
+        String value = string(name, null);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    // ISO-8601 (PT30S) like the rest of the settings, or plain seconds
+    Duration duration(String name, Duration defaultValue) {
+        String value = string(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value.startsWith("P") ? Duration.parse(value) : Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    void checkAllUsed() {
+        Set<String> unknown = new HashSet<>(values.keySet());
+        unknown.removeAll(used);
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + unknown);
+        }
+    }
+}
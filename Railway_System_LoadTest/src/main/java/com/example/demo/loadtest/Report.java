@@ -0,0 +1,45 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.loadtest.WorkloadDriver.Operation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Prints the outcome of a run per operation: requests, successes, failures by HTTP status,
+ * throughput and latency percentiles in milliseconds. As a table for people, or as JSON for
+ * comparing runs with a script.
+ */
+final class Report {
+
+    private Report() {
+    }
+
+    static void text(Map<Operation, LatencyStats.Summary> results, PrintStream out) {
+        out.printf("%-8s %10s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "", "requests", "ok", "failed", "req/s", "p50", "p90", "p99", "p99.9", "max");
+        results.forEach((operation, s) -> {
+            out.printf("%-8s %10d %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.name().toLowerCase(), s.requests(), s.ok(), s.failed(), s.perSecond(),
+                    s.p50(), s.p90(), s.p99(), s.p999(), s.max());
+        });
+        results.forEach((operation, s) -> {
+            if (!s.failedByStatus().isEmpty()) {
+                out.println(operation.name().toLowerCase() + " failures: " + s.failedByStatus().entrySet().stream()
+                        .map(e -> (e.getKey() == LatencyStats.NO_RESPONSE ? "no response" : e.getKey()) + " x" + e.getValue())
+                        .collect(Collectors.joining(", ")));
+            }
+        });
+    }
+
+    static void json(Map<Operation, LatencyStats.Summary> results, PrintStream out) throws JsonProcessingException {
+        Map<String, LatencyStats.Summary> byName = new LinkedHashMap<>();
+        results.forEach((operation, summary) -> byName.put(operation.name().toLowerCase(), summary));
+        out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(byName));
+    }
+}
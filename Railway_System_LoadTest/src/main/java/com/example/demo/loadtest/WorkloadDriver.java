@@ -0,0 +1,355 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drives a running application over HTTP with a mix of searches, bookings, payments and
+ * cancellations. Each virtual user is a thread with its own login that sends its next request
+ * as soon as the previous one is answered (a closed workload), so the offered load is set by
+ * {@code --concurrency}. Searches and bookings pick their route from the live catalogue with
+ * the same Zipf skew as the seeder, and payments and cancellations act on the user's own
+ * bookings from earlier in the run.
+ * <p>
+ * Nothing is recorded during the warmup; afterwards every request's status and latency is kept
+ * per operation and reported once the run is over.
+ */
+final class WorkloadDriver {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkloadDriver.class);
+
+    // Bookings a virtual user remembers for paying or canceling later; older ones are forgotten
+    private static final int REMEMBERED = 100;
+
+    enum Operation { SEARCH, BOOK, PAY, CANCEL }
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final int users;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration timeout;
+    private final Map<Operation, Integer> mix;
+    private final int daysAhead;
+    private final double skew;
+    private final long seed;
+    private final HttpClient http;
+
+    private URI target;
+    private List<List<Long>> routes;
+    private List<String[]> routeStations;
+    private Zipf byRoute;
+    private volatile long measureFrom;
+    private volatile long end;
+
+    WorkloadDriver(Options options) {
+        users = options.integer("users", 10_000);
+        concurrency = options.integer("concurrency", 32);
+        warmup = options.duration("warmup", Duration.ofSeconds(10));
+        duration = options.duration("duration", Duration.ofSeconds(60));
+        timeout = options.duration("timeout", Duration.ofSeconds(10));
+        mix = parseMix(options.string("mix", "search=60,book=20,pay=12,cancel=8"));
+        daysAhead = options.integer("days-ahead", 60);
+        skew = options.decimal("skew", 1.0);
+        seed = options.number("seed", 42);
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    Map<Operation, LatencyStats.Summary> run(URI target) throws Exception {
+        this.target = target;
+        loadCatalogue();
+
+        CountDownLatch loggedIn = new CountDownLatch(concurrency);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        List<VirtualUser> virtualUsers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            VirtualUser vu = new VirtualUser(i, new Random(seed + i));
+            Thread thread = new Thread(() -> {
+                try {
+                    vu.login();
+                    loggedIn.countDown();
+                    go.await();
+                    vu.work();
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                    loggedIn.countDown();
+                }
+            }, "vu-" + i);
+            thread.setDaemon(true);
+            virtualUsers.add(vu);
+            threads.add(thread);
+            thread.start();
+        }
+
+        loggedIn.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        measureFrom = System.nanoTime() + warmup.toNanos();
+        end = measureFrom + duration.toNanos();
+        log.info("{} virtual users logged in; warming up for {} s, then measuring for {} s",
+                concurrency, warmup.toSeconds(), duration.toSeconds());
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        Map<Operation, LatencyStats> merged = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            merged.put(operation, new LatencyStats());
+        }
+        for (VirtualUser vu : virtualUsers) {
+            vu.stats.forEach((operation, stats) -> merged.get(operation).merge(stats));
+        }
+        double seconds = duration.toNanos() / 1e9;
+        Map<Operation, LatencyStats.Summary> summaries = new EnumMap<>(Operation.class);
+        merged.forEach((operation, stats) -> summaries.put(operation, stats.summarize(seconds)));
+        return summaries;
+    }
+
+    // Routes ranked by how many trains run on them, the same order of popularity the seeder used
+    private void loadCatalogue() throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(target.resolve("/api/trains"))
+                .timeout(timeout).GET().build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Train catalogue returned " + response.statusCode());
+        }
+        Map<String, List<Long>> trainsByRoute = new LinkedHashMap<>();
+        for (JsonNode train : json.readTree(response.body())) {
+            String route = train.path("origin").asText() + "\n" + train.path("destination").asText();
+            trainsByRoute.computeIfAbsent(route, r -> new ArrayList<>()).add(train.path("id").asLong());
+        }
+        if (trainsByRoute.isEmpty()) {
+            throw new IllegalStateException("There are no trains to search or book; seed the database first");
+        }
+        List<Map.Entry<String, List<Long>>> ranked = new ArrayList<>(trainsByRoute.entrySet());
+        ranked.sort((a, b) -> Integer.compare(b.getValue().size(), a.getValue().size()));
+        routes = new ArrayList<>();
+        routeStations = new ArrayList<>();
+        for (Map.Entry<String, List<Long>> route : ranked) {
+            routes.add(route.getValue());
+            routeStations.add(route.getKey().split("\n"));
+        }
+        byRoute = new Zipf(routes.size(), skew);
+        log.info("{} trains on {} routes", trainsByRoute.values().stream().mapToInt(List::size).sum(), routes.size());
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] weight = part.split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in --mix, got " + part);
+            }
+            weights.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("--mix needs at least one positive weight");
+        }
+        return weights;
+    }
+
+    private final class VirtualUser {
+        final int index;
+        final Random random;
+        final Map<Operation, LatencyStats> stats = new EnumMap<>(Operation.class);
+        final Deque<Long> held = new ArrayDeque<>();
+        final Deque<Long> paid = new ArrayDeque<>();
+        final int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        String token;
+        int seatSeq;
+
+        VirtualUser(int index, Random random) {
+            this.index = index;
+            this.random = random;
+            for (Operation operation : Operation.values()) {
+                stats.put(operation, new LatencyStats());
+            }
+        }
+
+        // Logins are setup and not measured; the password pool and rate limiter may ask us to come back later
+        void login() throws IOException, InterruptedException {
+            String username = DatasetSeeder.USER_PREFIX + (index % users + 1);
+            String body = json.writeValueAsString(Map.of("username", username, "password", DatasetSeeder.PASSWORD));
+            while (true) {
+                HttpResponse<String> response = http.send(post("/api/auth/login", body).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                int status = response.statusCode();
+                if (status == 200) {
+                    token = json.readTree(response.body()).path("token").asText();
+                    return;
+                }
+                if (status != 429 && status != 503) {
+                    throw new IllegalStateException("Login of " + username + " failed with status " + status);
+                }
+                long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+                Thread.sleep(Math.max(retryAfter, 1) * 1000);
+            }
+        }
+
+        void work() throws InterruptedException {
+            while (System.nanoTime() < end) {
+                switch (pick()) {
+                    case SEARCH -> search();
+                    case BOOK -> book();
+                    case PAY -> pay();
+                    case CANCEL -> cancel();
+                }
+            }
+        }
+
+        // Paying or canceling with nothing to act on books instead, so the mix does not stall
+        private Operation pick() {
+            int roll = random.nextInt(totalWeight);
+            Operation chosen = Operation.SEARCH;
+            for (Map.Entry<Operation, Integer> weight : mix.entrySet()) {
+                roll -= weight.getValue();
+                if (roll < 0) {
+                    chosen = weight.getKey();
+                    break;
+                }
+            }
+            if (chosen == Operation.PAY && held.isEmpty()
+                    || chosen == Operation.CANCEL && held.isEmpty() && paid.isEmpty()) {
+                return Operation.BOOK;
+            }
+            return chosen;
+        }
+
+        private void search() throws InterruptedException {
+            String[] stations = routeStations.get(byRoute.sample(random));
+            String query = "/api/trains/search?from=" + encode(stations[0]) + "&to=" + encode(stations[1])
+                    + "&date=" + travelDate() + "&size=20";
+            send(Operation.SEARCH, authorized(query).GET());
+        }
+
+        private void book() throws InterruptedException {
+            List<Long> trains = routes.get(byRoute.sample(random));
+            long trainId = trains.get(random.nextInt(trains.size()));
+            List<String> seats = new ArrayList<>();
+            for (int i = 1 + random.nextInt(3); i > 0; i--) {
+                // Labels of their own so two virtual users never fight over the same seat
+                seats.add("L" + index + "X" + ++seatSeq);
+            }
+            Map<String, Object> details = Map.of(
+                    "train", Map.of("id", trainId),
+                    "passengerName", "Load Passenger " + index,
+                    "email", "load-passenger-" + index + "@example.com",
+                    "bookingDate", travelDate() + "T00:00:00");
+            HttpResponse<String> response = send(Operation.BOOK,
+                    authorized("/api/bookings")
+                            .header("Content-Type", "application/json")
+                            .POST(body(Map.of("bookingDetails", details, "seatNumbers", seats))));
+            if (response != null && response.statusCode() == 201) {
+                remember(held, idOf(response));
+            }
+        }
+
+        private void pay() throws InterruptedException {
+            long bookingId = held.pollFirst();
+            HttpResponse<String> response = send(Operation.PAY,
+                    authorized("/api/payment/simulate?bookingId=" + bookingId).POST(HttpRequest.BodyPublishers.noBody()));
+            if (response != null && response.statusCode() == 200) {
+                remember(paid, bookingId);
+            }
+        }
+
+        private void cancel() throws InterruptedException {
+            Deque<Long> from = paid.isEmpty() || !held.isEmpty() && random.nextBoolean() ? held : paid;
+            long bookingId = from.pollLast();
+            send(Operation.CANCEL, authorized("/api/bookings/" + bookingId + "/cancel")
+                    .method("PATCH", HttpRequest.BodyPublishers.noBody()));
+        }
+
+        private HttpResponse<String> send(Operation operation, HttpRequest.Builder request) throws InterruptedException {
+            long start = System.nanoTime();
+            HttpResponse<String> response = null;
+            int status;
+            try {
+                response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+                status = response.statusCode();
+            } catch (IOException e) {
+                status = LatencyStats.NO_RESPONSE;
+            }
+            long now = System.nanoTime();
+            if (start >= measureFrom && now <= end) {
+                stats.get(operation).record(status, now - start);
+            }
+            return response;
+        }
+
+        private HttpRequest.Builder authorized(String path) {
+            return HttpRequest.newBuilder(target.resolve(path))
+                    .timeout(timeout)
+                    .header("Authorization", "Bearer " + token);
+        }
+
+        private HttpRequest.BodyPublisher body(Object value) {
+            try {
+                return HttpRequest.BodyPublishers.ofString(json.writeValueAsString(value));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private long idOf(HttpResponse<String> response) {
+            try {
+                return json.readTree(response.body()).path("id").asLong();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unreadable booking response: " + response.body(), e);
+            }
+        }
+
+        private LocalDate travelDate() {
+            return LocalDate.now().plusDays(1 + random.nextInt(daysAhead));
+        }
+    }
+
+    private HttpRequest.Builder post(String path, String body) {
+        return HttpRequest.newBuilder(target.resolve(path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private static void remember(Deque<Long> bookings, long id) {
+        if (bookings.size() == REMEMBERED) {
+            bookings.pollFirst();
+        }
+        bookings.addLast(id);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
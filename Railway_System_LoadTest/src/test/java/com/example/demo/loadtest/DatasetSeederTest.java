@@ -0,0 +1,78 @@
+package com.example.demo.loadtest;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetSeederTest {
+
+    private static final String URL =
+            "jdbc:h2:mem:seeder-test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+
+    @BeforeAll
+    static void seed() throws SQLException {
+        seeder().run();
+    }
+
+    @Test
+    void seedsTheRequestedRows() throws SQLException {
+        assertEquals(50, count("SELECT COUNT(*) FROM `user` WHERE username LIKE 'load-user-%'"));
+        assertEquals(40, count("SELECT COUNT(*) FROM train"));
+        assertEquals(20_000, count("SELECT COUNT(*) FROM booking"));
+    }
+
+    @Test
+    void activeBookingsOwnTheirSeatsAndNoTrainIsOversold() throws SQLException {
+        assertEquals(count("SELECT COUNT(*) FROM booked_seat s JOIN booking b ON b.id = s.booking_id WHERE b.state = 'PAID'"),
+                count("SELECT COUNT(*) FROM seat_reservation"));
+        assertEquals(0, count("SELECT COUNT(*) FROM seat_reservation r JOIN booking b ON b.id = r.booking_id "
+                + "WHERE b.state <> 'PAID' OR b.train_id <> r.train_id OR b.travel_date <> r.travel_date"));
+        assertEquals(0, count("SELECT COUNT(*) FROM (SELECT r.train_id, r.travel_date, COUNT(*) AS sold "
+                + "FROM seat_reservation r GROUP BY r.train_id, r.travel_date) d "
+                + "JOIN train t ON t.id = d.train_id WHERE d.sold > t.seats_available"));
+    }
+
+    @Test
+    void pooledIdsContinueAfterTheSeededRows() throws SQLException {
+        assertEquals(count("SELECT MAX(id) + 1 FROM booking"),
+                count("SELECT next_val FROM id_generator WHERE sequence_name = 'booking'"));
+        assertEquals(count("SELECT MAX(id) + 1 FROM booked_seat"),
+                count("SELECT next_val FROM id_generator WHERE sequence_name = 'booked_seat'"));
+        assertEquals(count("SELECT MAX(id) + 1 FROM seat_reservation"),
+                count("SELECT next_val FROM id_generator WHERE sequence_name = 'seat_reservation'"));
+    }
+
+    @Test
+    void theBusiestRouteTakesFarMoreThanItsShare() throws SQLException {
+        long routes = count("SELECT COUNT(*) FROM (SELECT DISTINCT origin, destination FROM train) r");
+        long busiest = count("SELECT MAX(n) FROM (SELECT COUNT(*) AS n FROM booking b JOIN train t ON t.id = b.train_id "
+                + "GROUP BY t.origin, t.destination) per_route");
+        assertTrue(busiest > 5 * 20_000 / routes, "busiest route has " + busiest + " of 20000 bookings");
+    }
+
+    @Test
+    void refusesToSeedTwice() {
+        assertThrows(IllegalStateException.class, () -> seeder().run());
+    }
+
+    private static DatasetSeeder seeder() {
+        return new DatasetSeeder(URL, "sa", "", new Options(new String[]{
+                "--users=50", "--trains=40", "--bookings=20000", "--days-back=5", "--days-ahead=5"}, 0));
+    }
+
+    private static long count(String sql) throws SQLException {
+        try (Connection db = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = db.createStatement();
+             ResultSet rows = statement.executeQuery(sql)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+}